@@ -0,0 +1,34 @@
+package br.ufal.ic.p2.jackut.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Executa os benchmarks do Jackut com o perfilador de coleta de lixo, que informa a taxa de
+ * alocao de cada operao, e grava os resultados em JSON para comparao entre verses.
+ *
+ * Aceita as mesmas opes da linha de comando do JMH, por exemplo para filtrar benchmarks ou
+ * fixar parmetros. Como o sistema grava em data/, deve ser executado em um diretrio de
+ * trabalho descartvel.
+ *
+ * Uso: java -jar benchmarks/target/benchmarks.jar [opes do JMH] [filtro]
+ *      java -jar benchmarks/target/benchmarks.jar MessageBenchmark -p usuarios=1000
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(commandLine.getResult().orElse("jmh-result.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,100 @@
+package br.ufal.ic.p2.jackut.bench;
+
+import br.ufal.ic.p2.jackut.Facade;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks do envio e da leitura de recados e do envio de mensagens para comunidades.
+ *
+ * A leitura consome recados, ento cada invocao de {@link #lerRecado} l um lote de recados
+ * entregue antes dela, fora da medio. As mensagens de comunidade so entregues a todos os
+ * membros, ento o seu custo  medido para comunidades de tamanhos diferentes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MessageBenchmark {
+    static final int READ_BATCH = 500;
+
+    @Param({"1000", "10000"})
+    public int usuarios;
+
+    @Param({"10", "100"})
+    public int membros;
+
+    private Facade facade;
+    private String[] sessions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createFacade() {
+        this.facade = new Facade();
+    }
+
+    @Setup(Level.Iteration)
+    public void populate() throws AbstractException {
+        this.sessions = Population.populate(this.facade, this.usuarios);
+        this.facade.criarComunidade(this.sessions[0], "bench", "Comunidade dos benchmarks");
+        for (int i = 1; i < Math.min(this.membros, this.usuarios); i++) {
+            this.facade.adicionarComunidade(this.sessions[i], "bench");
+        }
+        this.next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void clear() {
+        this.facade.zerarSistema();
+    }
+
+    /**
+     * Recados enviados ao usurio 0 antes de cada invocao de {@link #lerRecado}.
+     */
+    @State(Scope.Thread)
+    public static class Backlog {
+        @Setup(Level.Invocation)
+        public void fill(MessageBenchmark benchmark) throws AbstractException {
+            for (int i = 0; i < READ_BATCH; i++) {
+                benchmark.facade.enviarRecado(benchmark.sessions[1 + i % (benchmark.usuarios - 1)], Population.login(0), "recado " + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public void enviarRecado() throws AbstractException {
+        int sender = this.next++ % this.usuarios;
+        this.facade.enviarRecado(this.sessions[sender], Population.login((sender + 1) % this.usuarios), "recado de benchmark");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READ_BATCH)
+    public void lerRecado(Backlog backlog, Blackhole blackhole) throws AbstractException {
+        for (int i = 0; i < READ_BATCH; i++) {
+            blackhole.consume(this.facade.lerRecado(this.sessions[0]));
+        }
+    }
+
+    @Benchmark
+    public void enviarMensagem() throws AbstractException {
+        this.facade.enviarMensagem(this.sessions[this.next++ % this.membros], "bench", "mensagem de benchmark");
+    }
+}
@@ -0,0 +1,60 @@
+package br.ufal.ic.p2.jackut.bench;
+
+import br.ufal.ic.p2.jackut.Facade;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Monta a massa de dados usada pelos benchmarks: usurios com sesses abertas e uma quantidade
+ * fixa de amizades e pedidos de amizade por usurio.
+ *
+ * Os limites de taxa so desligados, para que os benchmarks meam as operaes e no a rejeio
+ * por excesso de requisies.
+ */
+final class Population {
+    static final String PASSWORD = "senha";
+    static final int FRIENDS_PER_USER = 10;
+
+    private Population() {
+    }
+
+    static String login(int index) {
+        return "usuario" + index;
+    }
+
+    /**
+     * Limpa o sistema e cria os usurios, cada um com uma sesso aberta.
+     *
+     * @param facade a fachada a ser populada.
+     * @param users a quantidade de usurios.
+     * @return as sesses dos usurios, na ordem dos logins.
+     */
+    static String[] populate(Facade facade, int users) throws AbstractException {
+        facade.zerarSistema();
+        for (String operation : new String[]{"recado", "mensagem", "amizade"}) {
+            facade.definirLimiteDeTaxa(operation, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+
+        String[] sessions = new String[users];
+        for (int i = 0; i < users; i++) {
+            facade.criarUsuario(login(i), PASSWORD, "Usuario " + i);
+            sessions[i] = facade.abrirSessao(login(i), PASSWORD);
+        }
+        for (int i = 0; i < users; i++) {
+            for (int k = 1; k <= FRIENDS_PER_USER; k++) {
+                try {
+                    facade.adicionarAmigo(sessions[i], login(friendOf(i, k, users)));
+                } catch (AbstractException e) {
+                    // pedido repetido ou para si mesmo em populaes pequenas
+                }
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Escolhe o k-simo amigo de um usurio, espalhando as amizades pela populao.
+     */
+    static int friendOf(int index, int k, int users) {
+        return (int) ((index + (long) k * k * 7919) % users);
+    }
+}
@@ -0,0 +1,79 @@
+package br.ufal.ic.p2.jackut.bench;
+
+import br.ufal.ic.p2.jackut.Facade;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark da remoo de usurios. Antes de cada invocao, fora da medio, so criados
+ * usurios descartveis com amizades, recados e participao em uma comunidade, que a
+ * invocao remove; a populao fixa mede quanto a remoo depende do tamanho do sistema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RemovalBenchmark {
+    static final int BATCH = 50;
+
+    @Param({"1000", "10000"})
+    public int usuarios;
+
+    private Facade facade;
+    private String[] sessions;
+    private String[] doomed;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void populate() throws AbstractException {
+        this.facade = new Facade();
+        this.sessions = Population.populate(this.facade, this.usuarios);
+        this.facade.criarComunidade(this.sessions[0], "bench", "Comunidade dos benchmarks");
+        this.doomed = new String[BATCH];
+    }
+
+    @TearDown(Level.Trial)
+    public void clear() {
+        this.facade.zerarSistema();
+    }
+
+    @Setup(Level.Invocation)
+    public void createDoomedUsers() throws AbstractException {
+        for (int i = 0; i < BATCH; i++) {
+            String login = "removido" + this.next++;
+            this.facade.criarUsuario(login, Population.PASSWORD, "Removido");
+            String session = this.facade.abrirSessao(login, Population.PASSWORD);
+            int friend = this.next % this.usuarios;
+            this.facade.adicionarAmigo(session, Population.login(friend));
+            this.facade.adicionarAmigo(this.sessions[friend], login);
+            this.facade.enviarRecado(session, Population.login(friend), "recado antes de sair");
+            this.facade.adicionarComunidade(session, "bench");
+            this.doomed[i] = session;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void removerUsuario() throws AbstractException {
+        for (String session : this.doomed) {
+            this.facade.removerUsuario(session);
+        }
+    }
+}
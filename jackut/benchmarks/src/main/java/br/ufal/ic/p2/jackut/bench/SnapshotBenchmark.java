@@ -0,0 +1,89 @@
+package br.ufal.ic.p2.jackut.bench;
+
+import br.ufal.ic.p2.jackut.Facade;
+import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks da gravao e da leitura dos dados do sistema em data/, com usurios, amizades,
+ * recados e sesses abertas.
+ *
+ * Com a propriedade "jackut.bench.fixture" apontando para um diretrio exportado pelo
+ * SyntheticWorkload, os dados so copiados de l em vez de gerados, e o parmetro de usurios
+ *  ignorado. Por exemplo: -jvmArgsAppend -Djackut.bench.fixture=/tmp/fixture
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SnapshotBenchmark {
+    static final int MESSAGES_PER_USER = 5;
+
+    @Param({"1000", "10000"})
+    public int usuarios;
+
+    private Jackut jackut;
+
+    @Setup(Level.Trial)
+    public void populate() throws AbstractException, IOException {
+        String fixture = System.getProperty("jackut.bench.fixture");
+        if (fixture != null) {
+            Files.createDirectories(Paths.get("data"));
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(fixture), "*.ser")) {
+                for (Path file : files) {
+                    Files.copy(file, Paths.get("data").resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            this.jackut = new Jackut();
+            return;
+        }
+
+        Facade facade = new Facade();
+        String[] sessions = Population.populate(facade, this.usuarios);
+        for (int i = 0; i < this.usuarios; i++) {
+            for (int k = 1; k <= MESSAGES_PER_USER; k++) {
+                facade.enviarRecado(sessions[i], Population.login(Population.friendOf(i, k, this.usuarios)), "recado " + k);
+            }
+        }
+        facade.encerrarSistema();
+        this.jackut = new Jackut();
+    }
+
+    @TearDown(Level.Trial)
+    public void clear() {
+        this.jackut.clearSystem();
+    }
+
+    @Benchmark
+    public void gravar() {
+        this.jackut.saveCheckpoint();
+    }
+
+    @Benchmark
+    public Jackut carregar() {
+        return new Jackut();
+    }
+}
@@ -0,0 +1,81 @@
+package br.ufal.ic.p2.jackut.bench;
+
+import br.ufal.ic.p2.jackut.Facade;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das operaes de cadastro, abertura de sesso e amizade da fachada.
+ * A populao  recriada a cada iterao, para que o tamanho dos dados no cresa ao longo da medio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserBenchmark {
+    @Param({"1000", "10000"})
+    public int usuarios;
+
+    private Facade facade;
+    private String[] sessions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createFacade() {
+        this.facade = new Facade();
+    }
+
+    @Setup(Level.Iteration)
+    public void populate() throws AbstractException {
+        this.sessions = Population.populate(this.facade, this.usuarios);
+        this.next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void clear() {
+        this.facade.zerarSistema();
+    }
+
+    @Benchmark
+    public void criarUsuario() throws AbstractException {
+        this.facade.criarUsuario("novo" + this.next++, Population.PASSWORD, "Novo");
+    }
+
+    @Benchmark
+    public String abrirSessao() throws AbstractException {
+        return this.facade.abrirSessao(Population.login(this.next++ % this.usuarios), Population.PASSWORD);
+    }
+
+    /**
+     * Envia pedidos de amizade entre pares que ainda no foram usados na iterao; quando todos os
+     * pares se esgotam, os pedidos repetidos medem o caminho de erro.
+     */
+    @Benchmark
+    public void adicionarAmigo(Blackhole blackhole) {
+        int index = this.next++;
+        int sender = index % this.usuarios;
+        int receiver = Population.friendOf(sender, Population.FRIENDS_PER_USER + 1 + index / this.usuarios, this.usuarios);
+        try {
+            this.facade.adicionarAmigo(this.sessions[sender], Population.login(receiver));
+        } catch (AbstractException e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.AsyncFacade;
+import br.ufal.ic.p2.jackut.Comando;
+import br.ufal.ic.p2.jackut.Resultado;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste da {@link AsyncFacade} com vrias threads enviando comandos ao mesmo tempo.
+ *
+ * As threads enfileiram entradas em comunidades e recados entre usurios escolhidos ao acaso.
+ * Erros de negcio (j membro, etc.) so esperados e chegam pelos futuros; qualquer outro erro
+ *  falha. Depois, so verificados:
+ * <ul>
+ *     <li>cada comunidade tem exatamente o dono mais as entradas bem-sucedidas, e os membros e as
+ *     comunidades de cada usurio concordam entre si;</li>
+ *     <li>cada recado entregue  lido exatamente uma vez pelo destinatrio;</li>
+ *     <li>um lote  aplicado em ordem e devolve um resultado por comando;</li>
+ *     <li>as assinaturas recebem as notificaes dos recados;</li>
+ *     <li>depois de encerrarSistema, a thread de escrita termina e novos comandos so recusados.</li>
+ * </ul>
+ * Deve ser executado em um diretrio de trabalho descartvel, pois o sistema  limpo no incio.
+ *
+ * Uso: java -cp out:perf-out br.ufal.ic.p2.jackut.perf.AsyncFacadeTest [threads] [operacoes] [usuarios] [comunidades]
+ */
+public class AsyncFacadeTest {
+    private static final String MARKER = "assincrono-";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int userCount = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int communityCount = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        AsyncFacade facade = new AsyncFacade();
+        facade.zerarSistema().join();
+
+        String[] logins = new String[userCount];
+        String[] sessions = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            logins[i] = "usuario" + i;
+            facade.criarUsuario(logins[i], "senha", "Usuario " + i);
+            sessions[i] = facade.abrirSessao(logins[i], "senha").join();
+        }
+        String[] communitys = new String[communityCount];
+        AtomicLong[] joins = new AtomicLong[communityCount];
+        for (int i = 0; i < communityCount; i++) {
+            communitys[i] = "comunidade" + i;
+            facade.criarComunidade(sessions[i % userCount], communitys[i], "Comunidade " + i);
+            joins[i] = new AtomicLong(1);
+        }
+
+        AtomicLong sentMessages = new AtomicLong();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<CompletableFuture<?>> pending = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int op = 0; op < operations; op++) {
+                    int a = random.nextInt(userCount);
+                    int b = random.nextInt(userCount);
+                    int c = random.nextInt(communityCount);
+                    CompletableFuture<Void> result;
+                    if (random.nextBoolean()) {
+                        result = facade.adicionarComunidade(sessions[a], communitys[c]).thenRun(joins[c]::incrementAndGet);
+                    } else {
+                        result = facade.enviarRecado(sessions[a], logins[b], MARKER + a + "-" + b).thenRun(sentMessages::incrementAndGet);
+                    }
+                    pending.add(result.exceptionally(error -> {
+                        if (!isBusinessError(error)) {
+                            failures.add(error);
+                        }
+                        return null;
+                    }));
+                }
+            }, "assincrono-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        long elapsed = System.nanoTime() - begin;
+        long total = threads * (long) operations;
+        System.out.printf("%d threads, %,d comandos em %.2f s (%,.0f comandos/s)%n", threads, total, elapsed / 1e9, total * 1e9 / elapsed);
+
+        List<String> violations = new ArrayList<>();
+        for (Throwable failure : failures) {
+            violations.add("exceo inesperada: " + failure);
+        }
+
+        for (int i = 0; i < communityCount; i++) {
+            Set<String> members = parse(facade.getMembrosComunidade(communitys[i]));
+            if (members.size() != joins[i].get() || facade.contarMembros(communitys[i]) != joins[i].get()) {
+                violations.add(communitys[i] + " tem " + members.size() + " membros, esperados " + joins[i].get());
+            }
+            for (String member : members) {
+                if (!parse(facade.getComunidades(member)).contains(communitys[i])) {
+                    violations.add(member + "  membro de " + communitys[i] + " mas a comunidade no est na sua lista");
+                }
+            }
+        }
+
+        long readMessages = 0;
+        for (String session : sessions) {
+            while (true) {
+                try {
+                    if (facade.lerRecado(session).join().startsWith(MARKER)) {
+                        readMessages++;
+                    }
+                } catch (CompletionException empty) {
+                    break;
+                }
+            }
+        }
+        if (readMessages != sentMessages.get()) {
+            violations.add(sentMessages.get() + " recados entregues, mas " + readMessages + " lidos");
+        }
+
+        List<Resultado> batch = facade.executarLote(List.of(
+                new Comando("criarComunidade", sessions[0], "lote", "Comunidade do lote"),
+                new Comando("adicionarComunidade", sessions[1], "lote"),
+                new Comando("adicionarComunidade", sessions[1], "lote"),
+                new Comando("getMembrosComunidade", "lote"))).join();
+        String expectedBatch = "[, , erro: Usuario j faz parte dessa comunidade., {usuario0,usuario1}]";
+        if (!batch.toString().equals(expectedBatch)) {
+            violations.add("lote devolveu " + batch + ", esperado " + expectedBatch);
+        }
+
+        String subscription = facade.assinarMensagens(sessions[1]).join();
+        facade.enviarRecado(sessions[0], logins[1], "notificado");
+        if (!"notificado".equals(facade.aguardarMensagem(sessions[1], subscription, 1000))) {
+            violations.add("a assinatura no recebeu o recado");
+        }
+        facade.cancelarAssinatura(sessions[1], subscription).join();
+
+        facade.zerarSistema();
+        facade.encerrarSistema().join();
+        try {
+            facade.criarUsuario("tardio", "senha", "Tardio").join();
+            violations.add("comando aceito depois de encerrarSistema");
+        } catch (CompletionException expected) {
+            if (!(expected.getCause() instanceof RejectedExecutionException)) {
+                violations.add("comando depois de encerrarSistema falhou com " + expected.getCause());
+            }
+        }
+        if (!writerTerminated(1000)) {
+            violations.add("a thread de escrita continua em execuo depois de encerrarSistema");
+        }
+
+        if (violations.isEmpty()) {
+            System.out.println("invariantes preservados");
+            return;
+        }
+        for (String violation : violations.subList(0, Math.min(violations.size(), 20))) {
+            System.out.println("VIOLAO: " + violation);
+        }
+        System.out.println(violations.size() + " violaes");
+        System.exit(1);
+    }
+
+    private static boolean isBusinessError(Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        return cause instanceof AbstractException;
+    }
+
+    private static boolean writerTerminated(long timeoutMillis) throws InterruptedException {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("jackut-escritor")) {
+                thread.join(timeoutMillis);
+                if (thread.isAlive()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> parse(String list) {
+        String inner = list.substring(1, list.length() - 1);
+        return inner.isEmpty() ? new HashSet<>() : new HashSet<>(Arrays.asList(inner.split(",")));
+    }
+}
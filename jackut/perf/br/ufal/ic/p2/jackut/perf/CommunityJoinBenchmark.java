@@ -0,0 +1,62 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.code.community.Community;
+import br.ufal.ic.p2.jackut.code.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mede a vazo de entradas em uma comunidade  medida que ela cresce.
+ *
+ * Cada entrada repete o que Jackut.joinCommunity faz: verifica se o usurio j  membro,
+ * adiciona-o  comunidade e registra a comunidade no usurio. A vazo  informada por faixa
+ * de tamanho da comunidade; com a associao indexada por hash ela deve se manter constante.
+ * Ao final, mede tambm a sada de um usurio que participa de muitas comunidades.
+ *
+ * Uso: java -cp out:perf-out br.ufal.ic.p2.jackut.perf.CommunityJoinBenchmark [membros] [faixa]
+ */
+public class CommunityJoinBenchmark {
+    public static void main(String[] args) throws Exception {
+        int members = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int step = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        List<User> users = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            users.add(new User("usuario" + i, "senha", "Usuario " + i));
+        }
+
+        Community community = new Community(users.get(0), "popular", "Comunidade popular");
+        System.out.printf("%-20s %15s%n", "membros", "entradas/s");
+        int joined = 1;
+        while (joined < members) {
+            int end = Math.min(joined + step, members);
+            long start = System.nanoTime();
+            for (int i = joined; i < end; i++) {
+                User user = users.get(i);
+                if (!community.userAlredyJoined(user)) {
+                    community.addMember(user);
+                    user.addCommunity("popular");
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-20s %,15.0f%n", joined + "-" + end, (end - joined) * 1e9 / elapsed);
+            joined = end;
+        }
+
+        User owner = users.get(0);
+        List<Community> owned = new ArrayList<>();
+        for (int i = 0; i < step; i++) {
+            Community other = new Community(owner, "comunidade" + i, "Comunidade " + i);
+            other.addMember(users.get(1));
+            users.get(1).addCommunity("comunidade" + i);
+            owned.add(other);
+        }
+        long start = System.nanoTime();
+        for (Community other : owned) {
+            other.removeMember(users.get(1));
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%nsadas de um usurio com %d comunidades: %,.0f/s%n", step, step * 1e9 / elapsed);
+    }
+}
@@ -0,0 +1,192 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste de estresse do ncleo do Jackut sob acesso concorrente.
+ *
+ * Vrias threads enviam pedidos de amizade, recados, paqueras, entradas em comunidades e
+ * mensagens de comunidades entre usurios escolhidos ao acaso, intercalados com consultas.
+ * Erros de negcio (j amigos, j membro, etc.) so esperados; qualquer outra exceo  falha.
+ * Ao final, com o sistema parado, so verificados os invariantes:
+ * <ul>
+ *     <li>toda amizade  simtrica;</li>
+ *     <li>os membros de cada comunidade e as comunidades de cada usurio concordam entre si;</li>
+ *     <li>cada comunidade tem exatamente o dono mais as entradas bem-sucedidas;</li>
+ *     <li>cada recado enviado com sucesso  lido exatamente uma vez pelo destinatrio.</li>
+ * </ul>
+ * Deve ser executado em um diretrio de trabalho descartvel, pois o sistema  limpo no incio.
+ *
+ * Uso: java -cp out:perf-out br.ufal.ic.p2.jackut.perf.ConcurrencyStressTest [threads] [operacoes] [usuarios] [comunidades]
+ */
+public class ConcurrencyStressTest {
+    private static final String MARKER = "estresse-";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int userCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int communityCount = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        Jackut jackut = new Jackut();
+        jackut.clearSystem();
+
+        String[] logins = new String[userCount];
+        String[] sessions = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            logins[i] = "usuario" + i;
+            jackut.createUser(logins[i], "senha", "Usuario " + i);
+            sessions[i] = jackut.openSession(logins[i], "senha");
+        }
+        String[] communitys = new String[communityCount];
+        AtomicLong[] joins = new AtomicLong[communityCount];
+        for (int i = 0; i < communityCount; i++) {
+            communitys[i] = "comunidade" + i;
+            jackut.createCommunity(sessions[i % userCount], communitys[i], "Comunidade " + i);
+            joins[i] = new AtomicLong(1);
+        }
+
+        AtomicLong sentMessages = new AtomicLong();
+        AtomicLong[] operationCounts = new AtomicLong[6];
+        Arrays.setAll(operationCounts, i -> new AtomicLong());
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int op = 0; op < operations; op++) {
+                    int a = random.nextInt(userCount);
+                    int b = random.nextInt(userCount);
+                    int c = random.nextInt(communityCount);
+                    int kind = random.nextInt(operationCounts.length);
+                    try {
+                        switch (kind) {
+                            case 0:
+                                jackut.addFriend(sessions[a], logins[b]);
+                                break;
+                            case 1:
+                                jackut.sendPrivateMessage(sessions[a], logins[b], MARKER + a + "-" + b);
+                                sentMessages.incrementAndGet();
+                                break;
+                            case 2:
+                                jackut.addPaquera(sessions[a], logins[b]);
+                                break;
+                            case 3:
+                                jackut.joinCommunity(sessions[a], communitys[c]);
+                                joins[c].incrementAndGet();
+                                break;
+                            case 4:
+                                jackut.sendCommunityMessage(sessions[a], communitys[c], "mensagem de " + a);
+                                break;
+                            default:
+                                jackut.isFriend(logins[a], logins[b]);
+                                jackut.getUserFriends(logins[a]);
+                                jackut.countCommunityMembers(communitys[c]);
+                                jackut.getCommunityMembers(communitys[c]);
+                                jackut.getPopularCommunities(5);
+                                break;
+                        }
+                        operationCounts[kind].incrementAndGet();
+                    } catch (AbstractException expected) {
+                        operationCounts[kind].incrementAndGet();
+                    } catch (Throwable unexpected) {
+                        failures.add(unexpected);
+                    }
+                }
+            }, "estresse-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long total = threads * (long) operations;
+        System.out.printf("%d threads, %,d operaes em %.2f s (%,.0f operaes/s)%n", threads, total, elapsed / 1e9, total * 1e9 / elapsed);
+
+        List<String> violations = new ArrayList<>();
+        for (Throwable failure : failures) {
+            violations.add("exceo inesperada: " + failure);
+        }
+
+        for (int i = 0; i < userCount; i++) {
+            for (int j = i + 1; j < userCount; j++) {
+                if (jackut.isFriend(logins[i], logins[j]) != jackut.isFriend(logins[j], logins[i])) {
+                    violations.add("amizade assimtrica entre " + logins[i] + " e " + logins[j]);
+                }
+            }
+        }
+
+        for (int i = 0; i < communityCount; i++) {
+            Set<String> members = parse(jackut.getCommunityMembers(communitys[i]));
+            if (members.size() != joins[i].get()) {
+                violations.add(communitys[i] + " tem " + members.size() + " membros, esperados " + joins[i].get());
+            }
+            for (String member : members) {
+                if (!parse(jackut.getUserCommunitysByLogin(member)).contains(communitys[i])) {
+                    violations.add(member + "  membro de " + communitys[i] + " mas a comunidade no est na sua lista");
+                }
+            }
+        }
+        for (String login : logins) {
+            for (String community : parse(jackut.getUserCommunitysByLogin(login))) {
+                if (!parse(jackut.getCommunityMembers(community)).contains(login)) {
+                    violations.add(login + " lista " + community + " mas no  membro dela");
+                }
+            }
+        }
+
+        long readMessages = 0;
+        for (String session : sessions) {
+            while (true) {
+                try {
+                    if (jackut.readPrivateMessage(session).startsWith(MARKER)) {
+                        readMessages++;
+                    }
+                } catch (AbstractException empty) {
+                    break;
+                }
+            }
+        }
+        if (readMessages != sentMessages.get()) {
+            violations.add(sentMessages.get() + " recados enviados, mas " + readMessages + " lidos");
+        }
+
+        jackut.clearSystem();
+        if (violations.isEmpty()) {
+            System.out.println("invariantes preservados");
+            return;
+        }
+        for (String violation : violations.subList(0, Math.min(violations.size(), 20))) {
+            System.out.println("VIOLAO: " + violation);
+        }
+        System.out.println(violations.size() + " violaes");
+        System.exit(1);
+    }
+
+    private static Set<String> parse(String list) {
+        String inner = list.substring(1, list.length() - 1);
+        return inner.isEmpty() ? new HashSet<>() : new HashSet<>(Arrays.asList(inner.split(",")));
+    }
+}
@@ -0,0 +1,159 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.Facade;
+import br.ufal.ic.p2.jackut.server.JackutServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Teste de carga do servidor HTTP do Jackut.
+ *
+ * Sobe um {@link JackutServer} em uma porta livre de localhost e simula vrios clientes
+ * simultneos, cada um com a sua sesso, que enviam requisies em sequncia sobre conexes
+ * mantidas abertas: leituras de perfil, recados, consultas de amizade, leituras de recados e
+ * consultas de comunidades existentes ou no. Erros de negcio (sem recados, comunidade
+ * inexistente, etc.) so esperados; respostas 404 ou 5xx e falhas de conexo so contadas como
+ * erros. Antes da carga, verifica que uma comunidade inexistente  respondida com 400 e a
+ * mensagem do erro. Ao final, imprime a vazo e os percentis de latncia.
+ * Deve ser executado em um diretrio de trabalho descartvel, pois o sistema  limpo no incio.
+ *
+ * Uso: java -cp out:perf-out br.ufal.ic.p2.jackut.perf.HttpLoadTest [clientes] [requisicoes-por-cliente] [usuarios]
+ */
+public class HttpLoadTest {
+    private static final String[] OPERATIONS = {"getAtributoUsuario", "enviarRecado", "ehAmigo", "lerRecado", "getDescricaoComunidade"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int userCount = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        Facade facade = new Facade();
+        facade.zerarSistema();
+        String[] sessions = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            facade.criarUsuario("carga" + i, "senha", "Usuario " + i);
+            sessions[i] = facade.abrirSessao("carga" + i, "senha");
+        }
+        facade.criarComunidade(sessions[0], "carga", "Comunidade da carga");
+
+        JackutServer server = new JackutServer(facade, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        String base = "http://localhost:" + server.getPort() + "/";
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        String missing;
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "getDescricaoComunidade?nome=nada"))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            missing = response.statusCode() + " \"" + response.body() + "\"";
+        } catch (IOException e) {
+            missing = e.toString();
+        }
+        if (!missing.equals("400 \"Comunidade no existe.\"")) {
+            server.stop();
+            System.out.println("comunidade inexistente respondida com " + missing);
+            System.exit(1);
+        }
+
+        long[][] latencies = new long[clients][requestsPerClient];
+        AtomicLong businessErrors = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        AtomicReference<String> firstFailure = new AtomicReference<>();
+        CompletableFuture<?>[] running = new CompletableFuture<?>[clients];
+
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int user = c % userCount;
+            running[c] = runClient(client, base, sessions[user], userCount, latencies[c], 0, businessErrors, failures,
+                    firstFailure);
+        }
+        CompletableFuture.allOf(running).join();
+        long elapsed = System.nanoTime() - start;
+        server.stop();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).filter(l -> l > 0).sorted().toArray();
+        System.out.printf("clientes=%d requisicoes=%d tempo=%.2fs%n", clients, all.length, elapsed / 1e9);
+        System.out.printf("vazao=%.0f req/s%n", all.length / (elapsed / 1e9));
+        System.out.printf("latencia p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                percentile(all, 0.999), all.length == 0 ? 0.0 : all[all.length - 1] / 1e6);
+        System.out.println("erros de negocio=" + businessErrors.get() + " falhas=" + failures.get());
+        if (failures.get() > 0) {
+            System.out.println("primeira falha: " + firstFailure.get());
+            System.exit(1);
+        }
+    }
+
+    private static CompletableFuture<Void> runClient(HttpClient client, String base, String session, int userCount,
+                                                     long[] latencies, int index, AtomicLong businessErrors,
+                                                     AtomicLong failures, AtomicReference<String> firstFailure) {
+        if (index == latencies.length) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + nextRequest(session, userCount)))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    latencies[index] = System.nanoTime() - sent;
+                    if (error != null || response.statusCode() == 404 || response.statusCode() >= 500) {
+                        failures.incrementAndGet();
+                        firstFailure.compareAndSet(null, error != null ? error.toString()
+                                : response.statusCode() + " " + response.body());
+                    } else if (response.statusCode() == 400) {
+                        businessErrors.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> runClient(client, base, session, userCount, latencies, index + 1,
+                        businessErrors, failures, firstFailure));
+    }
+
+    private static String nextRequest(String session, int userCount) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String other = "carga" + random.nextInt(userCount);
+        String operation = OPERATIONS[random.nextInt(OPERATIONS.length)];
+        switch (operation) {
+            case "getAtributoUsuario":
+                return operation + "?login=" + other + "&atributo=nome";
+            case "enviarRecado":
+                return operation + "?id=" + session + "&destinatario=" + other
+                        + "&mensagem=" + URLEncoder.encode("ol " + other, StandardCharsets.UTF_8);
+            case "ehAmigo":
+                return operation + "?login=" + other + "&amigo=carga0";
+            case "getDescricaoComunidade":
+                return operation + "?nome=" + (random.nextBoolean() ? "carga" : "inexistente");
+            default:
+                return operation + "?id=" + session;
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
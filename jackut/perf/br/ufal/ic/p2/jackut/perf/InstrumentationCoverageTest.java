@@ -0,0 +1,44 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.code.metrics.InstrumentedJackut;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Verifica que o {@link InstrumentedJackut} sobrescreve cada operao pblica do {@link Jackut},
+ * para que uma operao nova no deixe de ser medida sem que ningum perceba. Os indicadores
+ * lidos pelas prprias mtricas ficam de fora.
+ *
+ * Uso: java -cp out:perf-out br.ufal.ic.p2.jackut.perf.InstrumentationCoverageTest
+ */
+public class InstrumentationCoverageTest {
+    private static final Set<String> GAUGES = Set.of("countUsers", "countCommunitys", "countSessions", "countUnreadMessages");
+
+    public static void main(String[] args) {
+        List<String> missing = new ArrayList<>();
+        for (Method method : Jackut.class.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || GAUGES.contains(method.getName())) {
+                continue;
+            }
+            try {
+                InstrumentedJackut.class.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                missing.add(method.toString());
+            }
+        }
+
+        if (missing.isEmpty()) {
+            System.out.println("todas as operaes so instrumentadas");
+            return;
+        }
+        for (String method : missing) {
+            System.out.println("SEM MTRICAS: " + method);
+        }
+        System.exit(1);
+    }
+}
@@ -0,0 +1,89 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.Facade;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Teste da gravao e da leitura de um grafo de usurios profundo, na pilha padro da thread.
+ *
+ * Cada usurio  amigo, f e destinatrio de um recado do anterior, formando uma cadeia; todos
+ * entram em uma mesma comunidade. Se a serializao seguisse de um usurio para os usurios
+ * relacionados, a profundidade da gravao cresceria com o tamanho da cadeia e a pilha
+ * estouraria. Depois de encerrarSistema, o sistema  reaberto e so verificados:
+ * <ul>
+ *     <li>os amigos e os fs do incio, do meio e do fim da cadeia;</li>
+ *     <li>o recado e o remetente recebidos por cada usurio verificado;</li>
+ *     <li>a quantidade de membros da comunidade e a mensagem entregue ao ltimo usurio.</li>
+ * </ul>
+ * Deve ser executado em um diretrio de trabalho descartvel, pois o sistema  limpo no incio
+ * e no fim.
+ *
+ * Uso: java -cp out:perf-out br.ufal.ic.p2.jackut.perf.PersistenceDepthTest [usuarios]
+ */
+public class PersistenceDepthTest {
+    public static void main(String[] args) throws Exception {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        Facade facade = new Facade();
+        facade.zerarSistema();
+        for (int i = 0; i < userCount; i++) {
+            facade.criarUsuario(login(i), "senha", "Usuario " + i);
+        }
+        String owner = facade.abrirSessao(login(0), "senha");
+        facade.criarComunidade(owner, "cadeia", "Todos os usuarios da cadeia");
+        String previous = owner;
+        for (int i = 1; i < userCount; i++) {
+            String current = facade.abrirSessao(login(i), "senha");
+            facade.adicionarAmigo(previous, login(i));
+            facade.adicionarAmigo(current, login(i - 1));
+            facade.adicionarIdolo(previous, login(i));
+            facade.enviarRecado(previous, login(i), "recado " + (i - 1));
+            facade.adicionarComunidade(current, "cadeia");
+            previous = current;
+        }
+        facade.enviarMensagem(owner, "cadeia", "fim da cadeia");
+
+        long start = System.nanoTime();
+        facade.encerrarSistema();
+        long saved = System.nanoTime();
+        Facade restored = new Facade();
+        long loaded = System.nanoTime();
+        System.out.printf("%d usuarios: gravacao %d ms, leitura %d ms%n", userCount,
+                (saved - start) / 1_000_000, (loaded - saved) / 1_000_000);
+
+        List<String> violations = new ArrayList<>();
+        int last = userCount - 1;
+        for (int i : new int[]{1, userCount / 2, last}) {
+            String expectedFriends = i == last ? "{" + login(i - 1) + "}" : "{" + login(i - 1) + "," + login(i + 1) + "}";
+            check(violations, "amigos de " + login(i), expectedFriends, restored.getAmigos(login(i)));
+            check(violations, "fas de " + login(i), "{" + login(i - 1) + "}", restored.getFas(login(i)));
+            String session = restored.abrirSessao(login(i), "senha");
+            check(violations, "recado de " + login(i), "recado " + (i - 1), restored.lerRecado(session));
+        }
+        check(violations, "membros da comunidade", String.valueOf(userCount), String.valueOf(restored.contarMembros("cadeia")));
+        check(violations, "mensagem do ultimo usuario", "fim da cadeia", restored.lerMensagem(restored.abrirSessao(login(last), "senha")));
+        restored.zerarSistema();
+
+        if (violations.isEmpty()) {
+            System.out.println("invariantes preservados");
+            return;
+        }
+        for (String violation : violations) {
+            System.out.println("VIOLAO: " + violation);
+        }
+        System.out.println(violations.size() + " violaes");
+        System.exit(1);
+    }
+
+    private static String login(int index) {
+        return "elo" + index;
+    }
+
+    private static void check(List<String> violations, String what, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            violations.add(what + ": " + actual + ", esperado " + expected);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.Facade;
+import br.ufal.ic.p2.jackut.FacadeInvoker;
+import br.ufal.ic.p2.jackut.code.metrics.LatencyHistogram;
+import br.ufal.ic.p2.jackut.code.metrics.OperationMetrics;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Teste de escala a partir dos roteiros de aceitao.
+ *
+ * Os roteiros tests/us*_*.txt so lidos como modelos ({@link ScriptTemplate}) e milhares de
+ * cpias, cada uma com logins e nomes de comunidades prprios, so executadas ao mesmo tempo
+ * sobre uma nica {@link Facade}. Cada resultado e cada erro esperados pelos roteiros continua
+ * valendo em cada cpia; qualquer divergncia, ou erro em um comando que deveria funcionar, 
+ * uma violao. Ao final so informadas a vazo, os percentis de latncia por operao e as
+ * violaes, e o programa termina com cdigo 1 se houver alguma, servindo de teste de regresso
+ * para mudanas de concorrncia e desempenho.
+ *
+ * Os modelos que alteram configuraes globais, como limites de taxa, so ignorados. Deve ser
+ * executado em um diretrio de trabalho descartvel, pois o sistema  limpo no incio.
+ *
+ * Uso: java -cp out:perf-out br.ufal.ic.p2.jackut.perf.ScriptScaleRunner [copias] [threads] [filtro] [diretorio-dos-roteiros]
+ *      java -cp out:perf-out br.ufal.ic.p2.jackut.perf.ScriptScaleRunner 5000 16 "us(2|3|5)"
+ */
+public class ScriptScaleRunner {
+    private static final Pattern SCRIPT = Pattern.compile("(us\\d+)_(\\d+)\\.txt");
+
+    private final FacadeInvoker invoker;
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong unchecked = new AtomicLong();
+
+    public ScriptScaleRunner(Facade facade) {
+        this.invoker = new FacadeInvoker(facade);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 4;
+        Pattern filter = Pattern.compile(args.length > 2 ? args[2] : ".*");
+        Path directory = Paths.get(args.length > 3 ? args[3] : "tests");
+
+        List<ScriptTemplate> templates = new ArrayList<>();
+        for (ScriptTemplate template : readTemplates(directory)) {
+            if (!filter.matcher(template.getName()).matches()) {
+                continue;
+            }
+            if (template.changesGlobalSettings()) {
+                System.out.println("ignorado: " + template.getName() + " (altera configuraes globais)");
+                continue;
+            }
+            templates.add(template);
+        }
+        if (templates.isEmpty()) {
+            System.out.println("nenhum roteiro em " + directory.toAbsolutePath());
+            System.exit(1);
+        }
+
+        Facade facade = new Facade();
+        facade.zerarSistema();
+        ScriptScaleRunner runner = new ScriptScaleRunner(facade);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long begin = System.nanoTime();
+        for (int copy = 0; copy < copies; copy++) {
+            ScriptTemplate template = templates.get(copy % templates.size());
+            String prefix = "e" + copy + ".";
+            executor.execute(() -> runner.replay(template, prefix));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        long elapsed = System.nanoTime() - begin;
+
+        runner.report(templates, copies, threads, elapsed);
+        facade.zerarSistema();
+        if (!runner.violations.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * L os roteiros do diretrio, agrupados por user story e ordenados pelo nmero da story.
+     */
+    static List<ScriptTemplate> readTemplates(Path directory) throws IOException {
+        Map<Integer, Map<Integer, Path>> stories = new TreeMap<>();
+        Map<Integer, String> names = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "us*_*.txt")) {
+            for (Path file : files) {
+                Matcher matcher = SCRIPT.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    int story = Integer.parseInt(matcher.group(1).substring(2));
+                    stories.computeIfAbsent(story, key -> new TreeMap<>()).put(Integer.parseInt(matcher.group(2)), file);
+                    names.put(story, matcher.group(1));
+                }
+            }
+        }
+        List<ScriptTemplate> templates = new ArrayList<>();
+        for (Map.Entry<Integer, Map<Integer, Path>> story : stories.entrySet()) {
+            templates.add(ScriptTemplate.read(names.get(story.getKey()), new ArrayList<>(story.getValue().values())));
+        }
+        return templates;
+    }
+
+    /**
+     * Executa uma cpia de um modelo, conferindo cada resultado esperado.
+     */
+    void replay(ScriptTemplate template, String prefix) {
+        Map<String, String> variables = new HashMap<>();
+        for (ScriptTemplate.Command command : template.getCommands()) {
+            if (ScriptTemplate.IGNORED.contains(command.operation)) {
+                continue;
+            }
+            boolean batch = command.operation.equals("executarLoteTexto");
+            List<String> arguments = new ArrayList<>(command.arguments.size());
+            for (String argument : command.arguments) {
+                arguments.add(template.instantiate(argument, prefix, variables, batch));
+            }
+
+            String result = null;
+            Exception error = null;
+            long start = System.nanoTime();
+            try {
+                result = this.invoker.invoke(command.operation, arguments);
+            } catch (Exception e) {
+                error = e;
+            }
+            long nanos = System.nanoTime() - start;
+            this.latencies.record(nanos);
+            this.operations.computeIfAbsent(command.operation, OperationMetrics::new).record(nanos);
+            this.commands.incrementAndGet();
+
+            if (command.assignTo != null && result != null) {
+                variables.put(command.assignTo, result);
+            }
+            String expected = command.expected == null ? null : template.instantiate(command.expected, prefix, variables, batch);
+            switch (command.kind) {
+                case EXPECT:
+                    if (error != null) {
+                        this.violation(prefix, command, "esperado \"" + expected + "\", lanou " + describe(error));
+                    } else if (ScriptTemplate.GLOBAL_QUERIES.contains(command.operation)) {
+                        this.unchecked.incrementAndGet();
+                    } else if (!expected.equals(result)) {
+                        this.violation(prefix, command, "esperado \"" + expected + "\", obtido \"" + result + "\"");
+                    }
+                    break;
+                case EXPECT_ERROR:
+                    if (error == null) {
+                        this.violation(prefix, command, "esperado o erro \"" + expected + "\", obtido \"" + result + "\"");
+                    } else if (!expected.equals(error.getMessage())) {
+                        this.violation(prefix, command, "esperado o erro \"" + expected + "\", lanou " + describe(error));
+                    }
+                    break;
+                default:
+                    if (error != null) {
+                        this.violation(prefix, command, "lanou " + describe(error));
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void violation(String prefix, ScriptTemplate.Command command, String detail) {
+        this.violations.add(prefix + " " + command.location() + " " + command.operation + ": " + detail);
+    }
+
+    private static String describe(Exception error) {
+        return error.getClass().getSimpleName() + " \"" + error.getMessage() + "\"";
+    }
+
+    private void report(List<ScriptTemplate> templates, int copies, int threads, long elapsed) {
+        List<String> names = new ArrayList<>();
+        for (ScriptTemplate template : templates) {
+            names.add(template.getName());
+        }
+        long total = this.commands.get();
+        System.out.println("roteiros: " + String.join(",", names));
+        System.out.printf("%,d cpias em %d threads: %,d comandos em %.2f s (%,.0f comandos/s, %,.1f cpias/s)%n",
+                copies, threads, total, elapsed / 1e9, total * 1e9 / elapsed, copies * 1e9 / elapsed);
+        System.out.printf("latncia (us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                this.latencies.percentile(0.50) / 1e3, this.latencies.percentile(0.90) / 1e3,
+                this.latencies.percentile(0.99) / 1e3, this.latencies.percentile(0.999) / 1e3, this.latencies.max() / 1e3);
+
+        List<OperationMetrics> byTail = new ArrayList<>(this.operations.values());
+        byTail.sort(Comparator.comparingLong((OperationMetrics metrics) -> metrics.getLatencies().percentile(0.99)).reversed());
+        System.out.printf("  %-28s %10s %10s %10s %10s%n", "operacao", "chamadas", "p50(us)", "p99(us)", "max(us)");
+        for (OperationMetrics metrics : byTail) {
+            LatencyHistogram histogram = metrics.getLatencies();
+            System.out.printf("  %-28s %,10d %10.1f %10.1f %10.1f%n", metrics.getName(), metrics.getCalls(),
+                    histogram.percentile(0.50) / 1e3, histogram.percentile(0.99) / 1e3, histogram.max() / 1e3);
+        }
+        System.out.printf("%,d resultados de consultas globais no conferidos%n", this.unchecked.get());
+
+        if (this.violations.isEmpty()) {
+            System.out.println("nenhuma violao");
+            return;
+        }
+        int shown = 0;
+        for (String violation : this.violations) {
+            if (shown++ == 20) {
+                break;
+            }
+            System.out.println("VIOLAO: " + violation);
+        }
+        System.out.println(this.violations.size() + " violaes");
+    }
+}
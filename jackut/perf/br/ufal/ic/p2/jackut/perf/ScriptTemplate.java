@@ -0,0 +1,286 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Roteiro de aceitao do EasyAccept usado como modelo para o teste de escala.
+ *
+ * Os roteiros de uma mesma user story (us1_1.txt, us1_2.txt, ...) formam um nico modelo,
+ * executado em sequncia, pois os roteiros _2 dependem dos dados criados pelos _1. Os logins
+ * criados com criarUsuario e os nomes de comunidades criadas com criarComunidade, inclusive
+ * dentro de lotes, so descobertos na leitura; cada cpia do modelo os prefixa com um
+ * identificador prprio, tanto nos argumentos quanto nos resultados esperados, para que
+ * milhares de cpias possam rodar ao mesmo tempo sobre o mesmo sistema.
+ */
+public class ScriptTemplate {
+    /**
+     * Comandos que afetam o sistema inteiro e, por isso, no so executados pelas cpias.
+     */
+    static final Set<String> IGNORED = Set.of("zerarSistema", "encerrarSistema");
+
+    /**
+     * Comandos que alteram configuraes globais; modelos que os usam no podem rodar em paralelo.
+     */
+    static final Set<String> GLOBAL_SETTINGS = Set.of("definirPoliticaDeSessoes", "definirLimiteDeTaxa");
+
+    /**
+     * Consultas cujo resultado depende dos dados das demais cpias, como buscas em todas as
+     * comunidades e cursores da sequncia global de mensagens. So executadas, mas s os erros
+     * esperados so conferidos.
+     */
+    static final Set<String> GLOBAL_QUERIES = Set.of("lerDesde", "listarComunidades", "buscarComunidades", "getComunidadesPopulares");
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{(\\w+)}");
+
+    private final String name;
+    private final List<Command> commands;
+    private final Set<String> names;
+
+    /**
+     * Comando de um roteiro, j separado em operao e argumentos posicionais.
+     */
+    public static class Command {
+        final String file;
+        final int line;
+        final String assignTo;
+        final Kind kind;
+        final String expected;
+        final String operation;
+        final List<String> arguments;
+
+        Command(String file, int line, String assignTo, Kind kind, String expected, String operation, List<String> arguments) {
+            this.file = file;
+            this.line = line;
+            this.assignTo = assignTo;
+            this.kind = kind;
+            this.expected = expected;
+            this.operation = operation;
+            this.arguments = arguments;
+        }
+
+        public String getOperation() {
+            return this.operation;
+        }
+
+        public String location() {
+            return this.file + ":" + this.line;
+        }
+    }
+
+    /**
+     * Tipos de comando do EasyAccept.
+     */
+    enum Kind {
+        RUN, EXPECT, EXPECT_ERROR
+    }
+
+    private ScriptTemplate(String name, List<Command> commands) {
+        this.name = name;
+        this.commands = commands;
+        this.names = new LinkedHashSet<>();
+        for (Command command : commands) {
+            if (command.operation.equals("criarUsuario") && !command.arguments.isEmpty()) {
+                this.addName(command.arguments.get(0));
+            } else if (command.operation.equals("criarComunidade") && command.arguments.size() > 1) {
+                this.addName(command.arguments.get(1));
+            } else if (command.operation.equals("executarLoteTexto") && !command.arguments.isEmpty()) {
+                for (String batched : command.arguments.get(0).split(";")) {
+                    String[] fields = batched.split("\\|", -1);
+                    if (fields[0].trim().equals("criarUsuario") && fields.length > 1) {
+                        this.addName(fields[1]);
+                    } else if (fields[0].trim().equals("criarComunidade") && fields.length > 2) {
+                        this.addName(fields[2]);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addName(String value) {
+        if (!value.isEmpty() && !value.contains("${")) {
+            this.names.add(value);
+        }
+    }
+
+    /**
+     * L os roteiros de uma user story, na ordem informada, como um nico modelo.
+     *
+     * @param name o nome do modelo, como "us1".
+     * @param files os arquivos dos roteiros.
+     * @return o modelo lido.
+     */
+    public static ScriptTemplate read(String name, List<Path> files) throws IOException {
+        List<Command> commands = new ArrayList<>();
+        for (Path file : files) {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.ISO_8859_1);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> tokens = tokenize(line);
+                if (tokens.get(0).equals("quit")) {
+                    break;
+                }
+                commands.add(parse(file.getFileName().toString(), i + 1, tokens));
+            }
+        }
+        return new ScriptTemplate(name, commands);
+    }
+
+    private static Command parse(String file, int line, List<String> tokens) {
+        String assignTo = null;
+        Kind kind = Kind.RUN;
+        String expected = null;
+        int position = 0;
+        String first = tokens.get(0);
+        if (first.equals("expect") || first.equals("expectError")) {
+            kind = first.equals("expect") ? Kind.EXPECT : Kind.EXPECT_ERROR;
+            expected = tokens.get(1);
+            position = 2;
+        } else if (first.contains("=")) {
+            assignTo = first.substring(0, first.indexOf('='));
+            tokens.set(0, first.substring(first.indexOf('=') + 1));
+        }
+        String operation = tokens.get(position);
+        List<String> arguments = new ArrayList<>();
+        for (String token : tokens.subList(position + 1, tokens.size())) {
+            arguments.add(token.substring(token.indexOf('=') + 1));
+        }
+        return new Command(file, line, assignTo, kind, expected, operation, arguments);
+    }
+
+    /**
+     * Separa uma linha do EasyAccept em palavras. Valores entre aspas, isolados ou depois de
+     * "nome=", formam uma nica palavra, sem as aspas. Como no EasyAccept, "\" faz o caractere
+     * seguinte ser tomado literalmente.
+     */
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean started = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                current.append(line.charAt(++i));
+                started = true;
+            } else if (c == '"') {
+                quoted = !quoted;
+                started = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (started) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    started = false;
+                }
+            } else {
+                current.append(c);
+                started = true;
+            }
+        }
+        if (started) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public List<Command> getCommands() {
+        return Collections.unmodifiableList(this.commands);
+    }
+
+    /**
+     * Indica se o modelo altera configuraes globais do sistema.
+     *
+     * @return true se o modelo no puder rodar em paralelo com outras cpias.
+     */
+    public boolean changesGlobalSettings() {
+        for (Command command : this.commands) {
+            if (GLOBAL_SETTINGS.contains(command.operation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Instancia um valor para uma cpia: substitui as variveis e prefixa os logins e nomes de
+     * comunidades do modelo. Listas no formato "{a,b}" ou "a,b" tm cada elemento tratado separadamente,
+     * e lotes de comandos tm cada campo tratado separadamente.
+     *
+     * @param value o valor do modelo.
+     * @param prefix o prefixo da cpia.
+     * @param variables as variveis da cpia.
+     * @param batch se o valor  um lote de comandos, ou o resultado de um.
+     * @return o valor instanciado.
+     */
+    String instantiate(String value, String prefix, Map<String, String> variables, boolean batch) {
+        String resolved = substitute(value, variables);
+        if (batch) {
+            StringBuilder out = new StringBuilder();
+            String[] parts = resolved.split(";", -1);
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    out.append(';');
+                }
+                String[] fields = parts[i].split("\\|", -1);
+                for (int j = 0; j < fields.length; j++) {
+                    if (j > 0) {
+                        out.append('|');
+                    }
+                    out.append(this.rename(fields[j], prefix));
+                }
+            }
+            return out.toString();
+        }
+        return this.rename(resolved, prefix);
+    }
+
+    private String rename(String value, String prefix) {
+        if (value.length() > 1 && value.startsWith("{") && value.endsWith("}")) {
+            return "{" + this.renameList(value.substring(1, value.length() - 1), prefix) + "}";
+        }
+        return this.renameList(value, prefix);
+    }
+
+    private String renameList(String value, String prefix) {
+        StringBuilder out = new StringBuilder();
+        String[] elements = value.split(",", -1);
+        for (int i = 0; i < elements.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(this.names.contains(elements[i]) ? prefix + elements[i] : elements[i]);
+        }
+        return out.toString();
+    }
+
+    private static String substitute(String value, Map<String, String> variables) {
+        if (!value.contains("${")) {
+            return value;
+        }
+        Matcher matcher = VARIABLE.matcher(value);
+        StringBuilder out = new StringBuilder();
+        while (matcher.find()) {
+            String replacement = variables.getOrDefault(matcher.group(1), matcher.group(0));
+            matcher.appendReplacement(out, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+}
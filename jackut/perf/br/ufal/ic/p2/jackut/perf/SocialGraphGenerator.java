@@ -0,0 +1,203 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+import java.util.Random;
+
+/**
+ * Gera uma rede social sinttica diretamente sobre o {@link Jackut}, para dimensionar o sistema
+ * com dados parecidos com os de produo.
+ *
+ * Os graus de amizade, de fs e de paqueras seguem leis de potncia: a maioria dos usurios tem
+ * poucas ligaes e alguns tm muitas. Os alvos das ligaes so escolhidos por popularidade
+ * (Zipf), de forma que tambm os graus de entrada tenham cauda longa. A participao nas
+ * comunidades  Zipfiana, e os usurios e comunidades recebem um acmulo de recados e mensagens
+ * no lidos. As inimizades so declaradas por ltimo, pois bloqueiam as demais relaes.
+ *
+ * Os logins e os nomes das comunidades dependem apenas da posio, e o gerador  determinstico
+ * para uma mesma semente; assim, uma carga pode ser reproduzida sobre dados exportados.
+ */
+public class SocialGraphGenerator {
+    static final String PASSWORD = "senha";
+
+    private static final int MAX_FRIENDS = 200;
+    private static final int MAX_IDOLS = 500;
+    private static final int MAX_PAQUERAS = 20;
+    private static final int MAX_ENEMIES = 3;
+    private static final double ENEMY_PROBABILITY = 0.05;
+    private static final int MAX_COMMUNITIES_PER_USER = 50;
+    private static final int MAX_BACKLOG = 100;
+    private static final int COMMUNITY_MESSAGES_PER_COMMUNITY = 5;
+
+    private final Jackut jackut;
+    private final int userCount;
+    private final int communityCount;
+    private final Random random;
+    private final int[] popularity;
+    private final long[] counts = new long[Edge.values().length];
+
+    /**
+     * Tipos de dado gerados, para o relatrio do gerador.
+     */
+    public enum Edge {
+        AMIZADE, FA, PAQUERA, INIMIGO, MEMBRO, RECADO, MENSAGEM, REJEITADO
+    }
+
+    /**
+     * Constri o gerador.
+     *
+     * @param jackut o sistema a ser populado.
+     * @param userCount a quantidade de usurios.
+     * @param communityCount a quantidade de comunidades.
+     * @param seed a semente dos sorteios.
+     */
+    public SocialGraphGenerator(Jackut jackut, int userCount, int communityCount, long seed) {
+        this.jackut = jackut;
+        this.userCount = userCount;
+        this.communityCount = communityCount;
+        this.random = new Random(seed);
+        this.popularity = new int[userCount];
+        for (int i = 0; i < userCount; i++) {
+            this.popularity[i] = i;
+        }
+        for (int i = userCount - 1; i > 0; i--) {
+            int j = this.random.nextInt(i + 1);
+            int swap = this.popularity[i];
+            this.popularity[i] = this.popularity[j];
+            this.popularity[j] = swap;
+        }
+    }
+
+    static String login(int index) {
+        return "usuario" + index;
+    }
+
+    static String community(int index) {
+        return "comunidade" + index;
+    }
+
+    /**
+     * Limpa o sistema e gera usurios, relaes, comunidades e mensagens.
+     * Os limites de taxa so desligados durante a gerao.
+     *
+     * @return as sesses abertas, na ordem dos logins.
+     */
+    public String[] generate() throws AbstractException {
+        this.jackut.clearSystem();
+        for (String operation : new String[]{"recado", "mensagem", "amizade"}) {
+            this.jackut.setRateLimit(operation, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+
+        String[] sessions = new String[this.userCount];
+        for (int i = 0; i < this.userCount; i++) {
+            this.jackut.createUser(login(i), PASSWORD, "Usuario " + i);
+            sessions[i] = this.jackut.openSession(login(i), PASSWORD);
+        }
+
+        ZipfDistribution targets = new ZipfDistribution(this.userCount, 1.0);
+        ZipfDistribution friendDegrees = new ZipfDistribution(Math.min(MAX_FRIENDS, this.userCount), 2.0);
+        ZipfDistribution idolDegrees = new ZipfDistribution(Math.min(MAX_IDOLS, this.userCount), 2.0);
+        ZipfDistribution paqueraDegrees = new ZipfDistribution(Math.min(MAX_PAQUERAS, this.userCount), 2.5);
+        for (int user = 0; user < this.userCount; user++) {
+            int i = user;
+            for (int k = friendDegrees.degree(this.random); k > 0; k--) {
+                int j = this.target(targets);
+                if (!this.attempt(() -> this.jackut.addFriend(sessions[i], login(j)))) {
+                    continue;
+                }
+                if (this.jackut.isFriend(login(i), login(j)) || this.attempt(() -> this.jackut.addFriend(sessions[j], login(i)))) {
+                    this.counts[Edge.AMIZADE.ordinal()]++;
+                }
+            }
+            for (int k = idolDegrees.degree(this.random) - 1; k > 0; k--) {
+                int j = this.target(targets);
+                this.link(Edge.FA, () -> this.jackut.addIdol(sessions[i], login(j)));
+            }
+            for (int k = paqueraDegrees.degree(this.random) - 1; k > 0; k--) {
+                int j = this.target(targets);
+                this.link(Edge.PAQUERA, () -> this.jackut.addPaquera(sessions[i], login(j)));
+            }
+        }
+
+        if (this.communityCount > 0) {
+            ZipfDistribution communityPopularity = new ZipfDistribution(this.communityCount, 1.0);
+            ZipfDistribution membershipDegrees = new ZipfDistribution(Math.min(MAX_COMMUNITIES_PER_USER, this.communityCount), 2.0);
+            for (int c = 0; c < this.communityCount; c++) {
+                this.jackut.createCommunity(sessions[this.target(targets)], community(c), "Comunidade sintetica " + c);
+                this.counts[Edge.MEMBRO.ordinal()]++;
+            }
+            for (int user = 0; user < this.userCount; user++) {
+                int i = user;
+                for (int k = membershipDegrees.degree(this.random) - 1; k > 0; k--) {
+                    String name = community(communityPopularity.sample(this.random));
+                    this.link(Edge.MEMBRO, () -> this.jackut.joinCommunity(sessions[i], name));
+                }
+            }
+            for (int m = this.communityCount * COMMUNITY_MESSAGES_PER_COMMUNITY; m > 0; m--) {
+                String name = community(communityPopularity.sample(this.random));
+                int sender = this.indexOf(this.jackut.getCommunityOwner(name));
+                this.link(Edge.MENSAGEM, () -> this.jackut.sendCommunityMessage(sessions[sender], name, "mensagem sintetica em " + name));
+            }
+        }
+
+        ZipfDistribution backlogs = new ZipfDistribution(Math.min(MAX_BACKLOG, this.userCount), 1.5);
+        for (int user = 0; user < this.userCount; user++) {
+            int i = user;
+            for (int k = backlogs.degree(this.random) - 1; k > 0; k--) {
+                int sender = this.random.nextInt(this.userCount);
+                this.link(Edge.RECADO, () -> this.jackut.sendPrivateMessage(sessions[sender], login(i), "recado sintetico de " + sender));
+            }
+        }
+
+        for (int user = 0; user < this.userCount; user++) {
+            int i = user;
+            if (this.random.nextDouble() < ENEMY_PROBABILITY) {
+                for (int k = 1 + this.random.nextInt(MAX_ENEMIES); k > 0; k--) {
+                    int j = this.random.nextInt(this.userCount);
+                    this.link(Edge.INIMIGO, () -> this.jackut.addEnemy(sessions[i], login(j)));
+                }
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Retorna quantos dados de um tipo foram criados. Em {@link Edge#REJEITADO} so contadas as
+     * ligaes sorteadas que o sistema recusou, como pedidos repetidos ou para si mesmo.
+     *
+     * @param edge o tipo de dado.
+     * @return a quantidade criada.
+     */
+    public long count(Edge edge) {
+        return this.counts[edge.ordinal()];
+    }
+
+    private int target(ZipfDistribution targets) {
+        return this.popularity[targets.sample(this.random)];
+    }
+
+    private int indexOf(String login) {
+        return Integer.parseInt(login.substring("usuario".length()));
+    }
+
+    private void link(Edge edge, Action action) {
+        if (this.attempt(action)) {
+            this.counts[edge.ordinal()]++;
+        }
+    }
+
+    private boolean attempt(Action action) {
+        try {
+            action.run();
+            return true;
+        } catch (AbstractException rejected) {
+            this.counts[Edge.REJEITADO.ordinal()]++;
+            return false;
+        }
+    }
+
+    private interface Action {
+        void run() throws AbstractException;
+    }
+}
@@ -0,0 +1,95 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Gera uma rede social sinttica com o {@link SocialGraphGenerator}, exporta os dados e
+ * reproduz uma mistura de operaes sobre eles com o {@link WorkloadReplayer}.
+ *
+ * Se o diretrio de exportao for informado, os arquivos de data/ so copiados para ele logo
+ * aps a gerao, antes da carga; copi-los de volta para data/ de outro diretrio de trabalho
+ * fornece a mesma massa de dados para benchmarks. Quando data/ j contm uma massa gerada com a
+ * mesma quantidade de usurios e comunidades, ela  reaproveitada em vez de gerada de novo.
+ * Deve ser executado em um diretrio de trabalho descartvel.
+ *
+ * Uso: java -cp out:perf-out br.ufal.ic.p2.jackut.perf.SyntheticWorkload [usuarios] [comunidades] [operacoes-por-thread] [threads] [mistura] [exportar-para]
+ */
+public class SyntheticWorkload {
+    public static void main(String[] args) throws Exception {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int communityCount = args.length > 1 ? Integer.parseInt(args[1]) : userCount / 50;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors() * 2;
+        String mix = args.length > 4 && !args[4].isEmpty() ? args[4] : WorkloadReplayer.DEFAULT_MIX;
+        Path export = args.length > 5 ? Paths.get(args[5]) : null;
+        long seed = Long.getLong("jackut.carga.semente", 42L);
+
+        Jackut jackut = new Jackut();
+        String[] sessions;
+        if (alreadyGenerated(jackut, userCount, communityCount)) {
+            System.out.println("reaproveitando os dados existentes em data/");
+            sessions = openSessions(jackut, userCount);
+        } else {
+            SocialGraphGenerator generator = new SocialGraphGenerator(jackut, userCount, communityCount, seed);
+            long begin = System.nanoTime();
+            sessions = generator.generate();
+            System.out.printf("%,d usurios e %,d comunidades gerados em %.2f s%n", userCount, communityCount, (System.nanoTime() - begin) / 1e9);
+            for (SocialGraphGenerator.Edge edge : SocialGraphGenerator.Edge.values()) {
+                System.out.printf("  %-10s %,12d%n", edge.name().toLowerCase(), generator.count(edge));
+            }
+            if (export != null) {
+                jackut.saveCheckpoint();
+                exportData(export);
+                System.out.println("dados exportados para " + export.toAbsolutePath());
+            }
+        }
+
+        WorkloadReplayer replayer = new WorkloadReplayer(jackut, sessions, communityCount, mix, seed);
+        replayer.run(threads, operations);
+        System.out.println(threads + " threads, mistura " + mix);
+        replayer.report();
+        if (!replayer.getFailures().isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean alreadyGenerated(Jackut jackut, int userCount, int communityCount) {
+        try {
+            jackut.getUserAttribute(SocialGraphGenerator.login(userCount - 1), "nome");
+            if (communityCount > 0) {
+                jackut.getCommunityOwner(SocialGraphGenerator.community(communityCount - 1));
+            }
+            return true;
+        } catch (AbstractException missing) {
+            return false;
+        }
+    }
+
+    private static String[] openSessions(Jackut jackut, int userCount) throws AbstractException {
+        for (String operation : new String[]{"recado", "mensagem", "amizade"}) {
+            jackut.setRateLimit(operation, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        String[] sessions = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            sessions[i] = jackut.openSession(SocialGraphGenerator.login(i), SocialGraphGenerator.PASSWORD);
+        }
+        return sessions;
+    }
+
+    private static void exportData(Path target) throws IOException {
+        Files.createDirectories(target);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("data"), "*.ser")) {
+            for (Path file : files) {
+                Files.copy(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Reproduz sobre o {@link Jackut} uma mistura configurvel de operaes de leitura e escrita.
+ *
+ * A mistura  descrita por pesos, como "perfil=30,amigos=20,recado=10", e os usurios e
+ * comunidades envolvidos so sorteados por popularidade (Zipf), como na gerao dos dados.
+ * Erros de negcio so contados por operao; qualquer outra exceo  registrada como falha.
+ */
+public class WorkloadReplayer {
+    /**
+     * Operaes que podem compor a mistura, identificadas pelo nome usado nos pesos.
+     */
+    public enum Operation {
+        PERFIL("perfil", false),
+        AMIGOS("amigos", false),
+        FAS("fas", false),
+        MEMBROS("membros", false),
+        POPULARES("populares", false),
+        LER_RECADO("lerRecado", true),
+        LER_MENSAGEM("lerMensagem", true),
+        RECADO("recado", true),
+        MENSAGEM("mensagem", true),
+        AMIZADE("amizade", true),
+        ENTRAR("entrar", true);
+
+        private final String key;
+        private final boolean write;
+
+        Operation(String key, boolean write) {
+            this.key = key;
+            this.write = write;
+        }
+
+        public String getKey() {
+            return this.key;
+        }
+
+        public boolean isWrite() {
+            return this.write;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equalsIgnoreCase(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("unknown operation: " + key);
+        }
+    }
+
+    /**
+     * Mistura padro, com cerca de 80% de leituras.
+     */
+    public static final String DEFAULT_MIX = "perfil=25,amigos=20,fas=5,membros=10,populares=5,lerRecado=10,lerMensagem=5,recado=10,mensagem=5,amizade=3,entrar=2";
+
+    private final Jackut jackut;
+    private final String[] sessions;
+    private final int communityCount;
+    private final Operation[] table;
+    private final long seed;
+    private final long[] calls = new long[Operation.values().length];
+    private final long[] rejections = new long[Operation.values().length];
+    private final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    private long[] latencies = new long[0];
+    private long elapsedNanos;
+
+    /**
+     * Constri o reprodutor.
+     *
+     * @param jackut o sistema sobre o qual a carga  reproduzida.
+     * @param sessions as sesses dos usurios, na ordem dos logins.
+     * @param communityCount a quantidade de comunidades existentes.
+     * @param mix os pesos das operaes, no formato "operacao=peso,...".
+     * @param seed a semente dos sorteios.
+     */
+    public WorkloadReplayer(Jackut jackut, String[] sessions, int communityCount, String mix, long seed) {
+        this.jackut = jackut;
+        this.sessions = sessions;
+        this.communityCount = communityCount;
+        this.table = parseMix(mix);
+        this.seed = seed;
+    }
+
+    /**
+     * Converte os pesos da mistura em uma tabela de 100 posies, sorteada uniformemente.
+     */
+    static Operation[] parseMix(String mix) {
+        List<Operation> operations = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("negative weight: " + entry);
+            }
+            operations.add(Operation.of(pair[0].trim()));
+            weights.add(weight);
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("empty mix: " + mix);
+        }
+        Operation[] table = new Operation[100];
+        int position = 0;
+        int accumulated = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            accumulated += weights.get(i);
+            int end = (int) Math.round(accumulated * 100.0 / total);
+            while (position < end) {
+                table[position++] = operations.get(i);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Executa as operaes, divididas entre as threads, e aguarda o trmino.
+     *
+     * @param threads a quantidade de threads.
+     * @param operationsPerThread a quantidade de operaes de cada thread.
+     */
+    public void run(int threads, int operationsPerThread) throws InterruptedException {
+        ZipfDistribution users = new ZipfDistribution(this.sessions.length, 1.0);
+        ZipfDistribution communities = this.communityCount > 0 ? new ZipfDistribution(this.communityCount, 1.0) : null;
+        long[][] samples = new long[threads][operationsPerThread];
+        long[][] callsByThread = new long[threads][Operation.values().length];
+        long[][] rejectionsByThread = new long[threads][Operation.values().length];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(this.seed + worker);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int op = 0; op < operationsPerThread; op++) {
+                    Operation operation = this.table[random.nextInt(this.table.length)];
+                    int a = users.sample(random);
+                    int b = users.sample(random);
+                    String community = communities != null ? SocialGraphGenerator.community(communities.sample(random)) : null;
+                    long begin = System.nanoTime();
+                    try {
+                        this.execute(operation, a, b, community);
+                    } catch (AbstractException expected) {
+                        rejectionsByThread[worker][operation.ordinal()]++;
+                    } catch (Throwable unexpected) {
+                        this.failures.add(unexpected);
+                    }
+                    samples[worker][op] = System.nanoTime() - begin;
+                    callsByThread[worker][operation.ordinal()]++;
+                }
+            }, "carga-" + t);
+            workers.add(thread);
+            thread.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+        this.elapsedNanos = System.nanoTime() - begin;
+
+        this.latencies = new long[threads * operationsPerThread];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(samples[t], 0, this.latencies, t * operationsPerThread, operationsPerThread);
+            for (int o = 0; o < this.calls.length; o++) {
+                this.calls[o] += callsByThread[t][o];
+                this.rejections[o] += rejectionsByThread[t][o];
+            }
+        }
+        Arrays.sort(this.latencies);
+    }
+
+    private void execute(Operation operation, int a, int b, String community) throws AbstractException {
+        String loginB = SocialGraphGenerator.login(b);
+        switch (operation) {
+            case PERFIL:
+                this.jackut.getUserAttribute(loginB, "nome");
+                break;
+            case AMIGOS:
+                this.jackut.getUserFriends(loginB);
+                break;
+            case FAS:
+                this.jackut.getFas(loginB);
+                break;
+            case MEMBROS:
+                if (community != null) {
+                    this.jackut.getCommunityMembers(community, 0, 50);
+                }
+                break;
+            case POPULARES:
+                this.jackut.getPopularCommunities(10);
+                break;
+            case LER_RECADO:
+                this.jackut.readPrivateMessage(this.sessions[a]);
+                break;
+            case LER_MENSAGEM:
+                this.jackut.readCommunityMessage(this.sessions[a]);
+                break;
+            case RECADO:
+                this.jackut.sendPrivateMessage(this.sessions[a], loginB, "recado da carga");
+                break;
+            case MENSAGEM:
+                if (community != null) {
+                    this.jackut.sendCommunityMessage(this.sessions[a], community, "mensagem da carga");
+                }
+                break;
+            case AMIZADE:
+                this.jackut.addFriend(this.sessions[a], loginB);
+                break;
+            default:
+                if (community != null) {
+                    this.jackut.joinCommunity(this.sessions[a], community);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Imprime a vazo, os percentis de latncia e as contagens por operao da ltima execuo.
+     */
+    public void report() {
+        long total = this.latencies.length;
+        System.out.printf("%,d operaes em %.2f s (%,.0f operaes/s)%n", total, this.elapsedNanos / 1e9, total * 1e9 / this.elapsedNanos);
+        if (total > 0) {
+            System.out.printf("latncia (us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                    this.percentile(0.50), this.percentile(0.90), this.percentile(0.99), this.percentile(0.999),
+                    this.latencies[this.latencies.length - 1] / 1e3);
+        }
+        for (Operation operation : Operation.values()) {
+            if (this.calls[operation.ordinal()] > 0) {
+                System.out.printf("  %-12s %s %,10d chamadas %,10d recusadas%n", operation.getKey(), operation.isWrite() ? "escrita" : "leitura",
+                        this.calls[operation.ordinal()], this.rejections[operation.ordinal()]);
+            }
+        }
+        for (Throwable failure : this.failures) {
+            System.out.println("FALHA: " + failure);
+        }
+    }
+
+    /**
+     * Retorna as excees inesperadas da ltima execuo.
+     *
+     * @return as falhas registradas.
+     */
+    public List<Throwable> getFailures() {
+        return new ArrayList<>(this.failures);
+    }
+
+    private double percentile(double quantile) {
+        int index = (int) Math.min(this.latencies.length - 1, Math.ceil(quantile * this.latencies.length) - 1);
+        return this.latencies[Math.max(index, 0)] / 1e3;
+    }
+}
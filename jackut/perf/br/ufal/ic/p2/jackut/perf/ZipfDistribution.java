@@ -0,0 +1,59 @@
+package br.ufal.ic.p2.jackut.perf;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Distribuio de Zipf sobre as posies 0 a n - 1: a posio k  sorteada com probabilidade
+ * proporcional a 1 / (k + 1)^s.
+ *
+ * Serve tanto para escolher alvos por popularidade (poucos usurios e comunidades concentram a
+ * maior parte das ligaes) quanto para sortear graus com cauda longa, somando 1  posio.
+ * A distribuio acumulada  calculada uma vez e cada sorteio  uma busca binria.
+ */
+public class ZipfDistribution {
+    private final double[] cumulative;
+
+    /**
+     * Constri a distribuio.
+     *
+     * @param size a quantidade de posies.
+     * @param exponent o expoente s; quanto maior, mais concentrada nas primeiras posies.
+     */
+    public ZipfDistribution(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.cumulative = new double[size];
+        double total = 0;
+        for (int k = 0; k < size; k++) {
+            total += 1.0 / Math.pow(k + 1, exponent);
+            this.cumulative[k] = total;
+        }
+        for (int k = 0; k < size; k++) {
+            this.cumulative[k] /= total;
+        }
+    }
+
+    /**
+     * Sorteia uma posio.
+     *
+     * @param random a fonte de aleatoriedade.
+     * @return uma posio entre 0 e n - 1.
+     */
+    public int sample(Random random) {
+        int position = Arrays.binarySearch(this.cumulative, random.nextDouble());
+        position = position >= 0 ? position : -position - 1;
+        return Math.min(position, this.cumulative.length - 1);
+    }
+
+    /**
+     * Sorteia um grau entre 1 e n, com probabilidade proporcional a grau^-s.
+     *
+     * @param random a fonte de aleatoriedade.
+     * @return o grau sorteado.
+     */
+    public int degree(Random random) {
+        return this.sample(random) + 1;
+    }
+}
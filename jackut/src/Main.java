@@ -33,6 +33,26 @@ public class Main {
                 "tests/us8_2.txt",
                 "tests/us9_1.txt",
                 "tests/us9_2.txt",
+                "tests/us10_1.txt",
+                "tests/us10_2.txt",
+                "tests/us11_1.txt",
+                "tests/us11_2.txt",
+                "tests/us12_1.txt",
+                "tests/us12_2.txt",
+                "tests/us13_1.txt",
+                "tests/us14_1.txt",
+                "tests/us15_1.txt",
+                "tests/us16_1.txt",
+                "tests/us17_1.txt",
+                "tests/us18_1.txt",
+                "tests/us18_2.txt",
+                "tests/us19_1.txt",
+                "tests/us20_1.txt",
+                "tests/us21_1.txt",
+                "tests/us21_2.txt",
+                "tests/us22_1.txt",
+                "tests/us23_1.txt",
+                "tests/us23_2.txt",
         };
 
         for (String test : tests) {
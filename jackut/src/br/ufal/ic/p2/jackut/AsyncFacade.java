@@ -0,0 +1,613 @@
+package br.ufal.ic.p2.jackut;
+
+import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.code.concurrency.WriterLoop;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import br.ufal.ic.p2.jackut.exceptions.community.CommunityNotExistException;
+import br.ufal.ic.p2.jackut.exceptions.login.UserNotRegisteredException;
+import br.ufal.ic.p2.jackut.exceptions.paging.InvalidLimitException;
+import br.ufal.ic.p2.jackut.exceptions.paging.InvalidOffsetException;
+import br.ufal.ic.p2.jackut.exceptions.subscription.NoNotificationException;
+import br.ufal.ic.p2.jackut.exceptions.subscription.SubscriptionNotFoundException;
+import br.ufal.ic.p2.jackut.exceptions.user.UserAttributeNotFilledException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante da {@link Facade} para uso por vrias threads em que todas as alteraes so aplicadas
+ * por uma nica thread de escrita.
+ *
+ * Cada mtodo que altera o sistema apenas enfileira o comando correspondente e retorna um
+ * {@link CompletableFuture}, completado com o resultado da operao ou, em caso de erro, com a
+ * mesma {@link AbstractException} que a {@link Facade} lanaria. Os comandos so aplicados na
+ * ordem em que foram enfileirados, independentemente da thread que os enviou. As consultas no
+ * passam pela fila e so respondidas diretamente pela thread que as faz; o mesmo vale para a
+ * espera por notificaes, que no pode ocupar a thread de escrita.
+ *
+ * Depois de {@link #encerrarSistema()}, a thread de escrita termina e os comandos enviados a
+ * partir de ento so recusados com {@link java.util.concurrent.RejectedExecutionException}.
+ */
+public class AsyncFacade {
+    private final Jackut jackut;
+    private final Facade facade;
+    private final WriterLoop writer;
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws AbstractException;
+    }
+
+    /**
+     * Constri a fachada, criando uma instncia de Jackut e a thread de escrita.
+     */
+    public AsyncFacade() {
+        this.jackut = new Jackut();
+        this.facade = new Facade(this.jackut);
+        this.writer = new WriterLoop();
+    }
+
+    private CompletableFuture<Void> submit(Action action) {
+        return this.writer.submit(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Enfileira a limpeza de todos os dados do sistema. Ver {@link Facade#zerarSistema()}.
+     *
+     * @return o futuro completado quando o sistema tiver sido limpo.
+     */
+    public CompletableFuture<Void> zerarSistema() {
+        return this.submit(jackut::clearSystem);
+    }
+
+    /**
+     * Enfileira o encerramento do sistema. Ver {@link Facade#encerrarSistema()}. Os comandos
+     * enfileirados antes dele ainda so aplicados, e depois dele a thread de escrita termina.
+     *
+     * @return o futuro completado quando os dados tiverem sido salvos.
+     */
+    public CompletableFuture<Void> encerrarSistema() {
+        CompletableFuture<Void> closed = this.submit(jackut::closeSystem);
+        this.writer.shutdown();
+        return closed;
+    }
+
+    /**
+     * Enfileira a gravao dos dados do sistema. Ver {@link Facade#salvarSistema()}.
+     *
+     * @return o futuro completado quando os dados tiverem sido salvos.
+     */
+    public CompletableFuture<Void> salvarSistema() {
+        return this.submit(jackut::saveCheckpoint);
+    }
+
+    /**
+     * Enfileira a criao de um usurio. Ver {@link Facade#criarUsuario(String, String, String)}.
+     *
+     * @param login o login do novo usurio.
+     * @param senha a senha do novo usurio.
+     * @param nome o nome do novo usurio.
+     * @return o futuro completado quando o usurio tiver sido criado.
+     */
+    public CompletableFuture<Void> criarUsuario(String login, String senha, String nome) {
+        return this.submit(() -> jackut.createUser(login, senha, nome));
+    }
+
+    /**
+     * Enfileira a abertura de uma sesso. Ver {@link Facade#abrirSessao(String, String)}.
+     *
+     * @param login o login do usurio.
+     * @param senha a senha do usurio.
+     * @return o futuro completado com o ID da sesso aberta.
+     */
+    public CompletableFuture<String> abrirSessao(String login, String senha) {
+        return this.writer.submit(() -> jackut.openSession(login, senha));
+    }
+
+    /**
+     * Enfileira a edio de um atributo do perfil. Ver {@link Facade#editarPerfil(String, String, String)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @param atributo o nome do atributo.
+     * @param valor o novo valor do atributo.
+     * @return o futuro completado quando o perfil tiver sido alterado.
+     */
+    public CompletableFuture<Void> editarPerfil(String id, String atributo, String valor) {
+        return this.submit(() -> jackut.updateProfile(id, atributo, valor));
+    }
+
+    /**
+     * Enfileira um pedido de amizade. Ver {@link Facade#adicionarAmigo(String, String)}.
+     *
+     * @param id o ID da sesso de quem envia o pedido.
+     * @param amigo o login de quem recebe o pedido.
+     * @return o futuro completado quando o pedido tiver sido registrado.
+     */
+    public CompletableFuture<Void> adicionarAmigo(String id, String amigo) {
+        return this.submit(() -> jackut.addFriend(id, amigo));
+    }
+
+    /**
+     * Enfileira o envio de um recado. Ver {@link Facade#enviarRecado(String, String, String)}.
+     *
+     * @param id o ID da sesso do remetente.
+     * @param destinatario o login do destinatrio.
+     * @param mensagem o contedo do recado.
+     * @return o futuro completado quando o recado tiver sido entregue.
+     */
+    public CompletableFuture<Void> enviarRecado(String id, String destinatario, String mensagem) {
+        return this.submit(() -> jackut.sendPrivateMessage(id, destinatario, mensagem));
+    }
+
+    /**
+     * Enfileira o envio de um recado temporrio. Ver {@link Facade#enviarRecadoTemporario(String, String, String, int)}.
+     *
+     * @param id o ID da sesso do remetente.
+     * @param destinatario o login do destinatrio.
+     * @param mensagem o contedo do recado.
+     * @param validade a validade do recado, em segundos.
+     * @return o futuro completado quando o recado tiver sido entregue.
+     */
+    public CompletableFuture<Void> enviarRecadoTemporario(String id, String destinatario, String mensagem, int validade) {
+        return this.submit(() -> jackut.sendTemporaryPrivateMessage(id, destinatario, mensagem, validade));
+    }
+
+    /**
+     * Enfileira a leitura do prximo recado, que o retira da caixa de entrada. Ver {@link Facade#lerRecado(String)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @return o futuro completado com o contedo do recado.
+     */
+    public CompletableFuture<String> lerRecado(String id) {
+        return this.writer.submit(() -> jackut.readPrivateMessage(id));
+    }
+
+    /**
+     * Enfileira a criao de uma comunidade. Ver {@link Facade#criarComunidade(String, String, String)}.
+     *
+     * @param id o ID da sesso do dono.
+     * @param nome o nome da comunidade.
+     * @param descricao a descrio da comunidade.
+     * @return o futuro completado quando a comunidade tiver sido criada.
+     */
+    public CompletableFuture<Void> criarComunidade(String id, String nome, String descricao) {
+        return this.submit(() -> jackut.createCommunity(id, nome, descricao));
+    }
+
+    /**
+     * Enfileira a entrada do usurio em uma comunidade. Ver {@link Facade#adicionarComunidade(String, String)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @param nome o nome da comunidade.
+     * @return o futuro completado quando o usurio tiver entrado na comunidade.
+     */
+    public CompletableFuture<Void> adicionarComunidade(String id, String nome) {
+        return this.submit(() -> jackut.joinCommunity(id, nome));
+    }
+
+    /**
+     * Enfileira a incluso de vrios membros em uma comunidade. Ver {@link Facade#adicionarMembros(String, String, String)}.
+     *
+     * @param idDono o ID da sesso do dono da comunidade.
+     * @param comunidade o nome da comunidade.
+     * @param logins os logins dos novos membros, separados por vrgula.
+     * @return o futuro completado quando os membros tiverem sido includos.
+     */
+    public CompletableFuture<Void> adicionarMembros(String idDono, String comunidade, String logins) {
+        return this.submit(() -> jackut.addMembers(idDono, comunidade, logins.split(",")));
+    }
+
+    /**
+     * Enfileira o envio de uma mensagem para uma comunidade. Ver {@link Facade#enviarMensagem(String, String, String)}.
+     *
+     * @param id o ID da sesso do remetente.
+     * @param comunidade o nome da comunidade.
+     * @param mensagem o contedo da mensagem.
+     * @return o futuro completado quando a mensagem tiver sido entregue aos membros.
+     */
+    public CompletableFuture<Void> enviarMensagem(String id, String comunidade, String mensagem) {
+        return this.submit(() -> jackut.sendCommunityMessage(id, comunidade, mensagem));
+    }
+
+    /**
+     * Enfileira o envio de uma mensagem temporria para uma comunidade.
+     * Ver {@link Facade#enviarMensagemTemporaria(String, String, String, int)}.
+     *
+     * @param id o ID da sesso do remetente.
+     * @param comunidade o nome da comunidade.
+     * @param mensagem o contedo da mensagem.
+     * @param validade a validade da mensagem, em segundos.
+     * @return o futuro completado quando a mensagem tiver sido entregue aos membros.
+     */
+    public CompletableFuture<Void> enviarMensagemTemporaria(String id, String comunidade, String mensagem, int validade) {
+        return this.submit(() -> jackut.sendTemporaryCommunityMessage(id, comunidade, mensagem, validade));
+    }
+
+    /**
+     * Enfileira a leitura da prxima mensagem de comunidade. Ver {@link Facade#lerMensagem(String)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @return o futuro completado com o contedo da mensagem.
+     */
+    public CompletableFuture<String> lerMensagem(String id) {
+        return this.writer.submit(() -> jackut.readCommunityMessage(id));
+    }
+
+    /**
+     * Enfileira a alterao do limite da caixa de mensagens. Ver {@link Facade#definirLimiteDeMensagens(String, int)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @param limite a nova quantidade mxima de mensagens mantidas em memria.
+     * @return o futuro completado quando o limite tiver sido alterado.
+     */
+    public CompletableFuture<Void> definirLimiteDeMensagens(String id, int limite) {
+        return this.submit(() -> jackut.setMailboxLimit(id, limite));
+    }
+
+    /**
+     * Enfileira a adio de um dolo. Ver {@link Facade#adicionarIdolo(String, String)}.
+     *
+     * @param id o ID da sesso do f.
+     * @param idolo o login do dolo.
+     * @return o futuro completado quando o dolo tiver sido adicionado.
+     */
+    public CompletableFuture<Void> adicionarIdolo(String id, String idolo) {
+        return this.submit(() -> jackut.addIdol(id, idolo));
+    }
+
+    /**
+     * Enfileira a adio de uma paquera. Ver {@link Facade#adicionarPaquera(String, String)}.
+     *
+     * @param id o ID da sesso de quem adiciona a paquera.
+     * @param paquera o login da paquera.
+     * @return o futuro completado quando a paquera tiver sido adicionada.
+     */
+    public CompletableFuture<Void> adicionarPaquera(String id, String paquera) {
+        return this.submit(() -> jackut.addPaquera(id, paquera));
+    }
+
+    /**
+     * Enfileira a declarao de um inimigo. Ver {@link Facade#adicionarInimigo(String, String)}.
+     *
+     * @param id o ID da sesso de quem declara o inimigo.
+     * @param inimigo o login do inimigo.
+     * @return o futuro completado quando o inimigo tiver sido declarado.
+     */
+    public CompletableFuture<Void> adicionarInimigo(String id, String inimigo) {
+        return this.submit(() -> jackut.addEnemy(id, inimigo));
+    }
+
+    /**
+     * Enfileira a remoo do usurio da sesso. Ver {@link Facade#removerUsuario(String)}.
+     *
+     * @param id o ID da sesso do usurio a ser removido.
+     * @return o futuro completado quando o usurio tiver sido removido.
+     */
+    public CompletableFuture<Void> removerUsuario(String id) {
+        return this.submit(() -> jackut.removeUser(id));
+    }
+
+    /**
+     * Enfileira a criao de uma assinatura de mensagens. Ver {@link Facade#assinarMensagens(String)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @return o futuro completado com o ID da assinatura.
+     */
+    public CompletableFuture<String> assinarMensagens(String id) {
+        return this.writer.submit(() -> jackut.subscribeToQueue(id));
+    }
+
+    /**
+     * Enfileira o cancelamento de uma assinatura. Ver {@link Facade#cancelarAssinatura(String, String)}.
+     *
+     * @param id o ID da sesso do dono da assinatura.
+     * @param assinatura o ID da assinatura.
+     * @return o futuro completado quando a assinatura tiver sido cancelada.
+     */
+    public CompletableFuture<Void> cancelarAssinatura(String id, String assinatura) {
+        return this.submit(() -> jackut.unsubscribe(id, assinatura));
+    }
+
+    /**
+     * Enfileira a alterao da poltica de sesses. Ver {@link Facade#definirPoliticaDeSessoes(int, int, int)}.
+     *
+     * @param ociosidade o tempo mximo de inatividade de uma sesso, em segundos.
+     * @param duracao a durao mxima de uma sesso, em segundos.
+     * @param limitePorUsuario a quantidade mxima de sesses abertas por usurio.
+     * @return o futuro completado quando a poltica tiver sido alterada.
+     */
+    public CompletableFuture<Void> definirPoliticaDeSessoes(int ociosidade, int duracao, int limitePorUsuario) {
+        return this.submit(() -> jackut.setSessionPolicy(ociosidade, duracao, limitePorUsuario));
+    }
+
+    /**
+     * Enfileira a alterao do limite de taxa de uma operao. Ver {@link Facade#definirLimiteDeTaxa(String, int, int)}.
+     *
+     * @param operacao o nome da operao limitada.
+     * @param porMinuto a quantidade de operaes permitidas por minuto.
+     * @param rajada a quantidade de operaes permitidas de uma s vez.
+     * @return o futuro completado quando o limite tiver sido alterado.
+     */
+    public CompletableFuture<Void> definirLimiteDeTaxa(String operacao, int porMinuto, int rajada) {
+        return this.submit(() -> jackut.setRateLimit(operacao, porMinuto, rajada));
+    }
+
+    /**
+     * Enfileira um lote de comandos, aplicado de uma s vez pela thread de escrita, sem que
+     * comandos de outras threads se intercalem entre os do lote. Ver {@link Facade#executarLote(List)}.
+     *
+     * @param comandos os comandos do lote, na ordem em que devem ser executados.
+     * @return o futuro completado com o resultado de cada comando, na mesma ordem.
+     */
+    public CompletableFuture<List<Resultado>> executarLote(List<Comando> comandos) {
+        return this.writer.submit(() -> facade.executarLote(comandos));
+    }
+
+    /**
+     * Consulta um atributo do perfil de um usurio. Ver {@link Facade#getAtributoUsuario(String, String)}.
+     *
+     * @param login o login do usurio.
+     * @param atributo o nome do atributo.
+     * @return o valor do atributo.
+     * @throws UserNotRegisteredException se o usurio no estiver cadastrado.
+     * @throws UserAttributeNotFilledException se o atributo no estiver preenchido.
+     */
+    public String getAtributoUsuario(String login, String atributo) throws UserNotRegisteredException, UserAttributeNotFilledException {
+        return jackut.getUserAttribute(login, atributo);
+    }
+
+    /**
+     * Verifica se dois usurios so amigos. Ver {@link Facade#ehAmigo(String, String)}.
+     *
+     * @param login o login do usurio.
+     * @param amigo o login do possvel amigo.
+     * @return true se os usurios forem amigos.
+     * @throws UserNotRegisteredException se algum dos usurios no estiver cadastrado.
+     */
+    public boolean ehAmigo(String login, String amigo) throws UserNotRegisteredException {
+        return jackut.isFriend(login, amigo);
+    }
+
+    /**
+     * Consulta os amigos de um usurio. Ver {@link Facade#getAmigos(String)}.
+     *
+     * @param login o login do usurio.
+     * @return a lista de amigos no formato "{amigo1,amigo2,...}".
+     * @throws UserNotRegisteredException se o usurio no estiver cadastrado.
+     */
+    public String getAmigos(String login) throws UserNotRegisteredException {
+        return jackut.getUserFriends(login);
+    }
+
+    /**
+     * Consulta as comunidades de um usurio. Ver {@link Facade#getComunidades(String)}.
+     *
+     * @param login o login do usurio.
+     * @return a lista de comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws UserNotRegisteredException se o usurio no estiver cadastrado.
+     */
+    public String getComunidades(String login) throws UserNotRegisteredException {
+        return jackut.getUserCommunitysByLogin(login);
+    }
+
+    /**
+     * Consulta os membros de uma comunidade. Ver {@link Facade#getMembrosComunidade(String)}.
+     *
+     * @param nome o nome da comunidade.
+     * @return a lista de membros no formato "{membro1,membro2,...}".
+     * @throws CommunityNotExistException se a comunidade no existir.
+     */
+    public String getMembrosComunidade(String nome) throws CommunityNotExistException {
+        return jackut.getCommunityMembers(nome);
+    }
+
+    /**
+     * Verifica se um usurio  f de outro. Ver {@link Facade#ehFa(String, String)}.
+     *
+     * @param login o login do possvel f.
+     * @param idolo o login do dolo.
+     * @return true se o usurio for f do dolo.
+     * @throws UserNotRegisteredException se algum dos usurios no estiver cadastrado.
+     */
+    public boolean ehFa(String login, String idolo) throws UserNotRegisteredException {
+        return jackut.isFa(login, idolo);
+    }
+
+    /**
+     * Consulta os fs de um usurio. Ver {@link Facade#getFas(String)}.
+     *
+     * @param login o login do dolo.
+     * @return a lista de fs no formato "{fa1,fa2,...}".
+     * @throws UserNotRegisteredException se o usurio no estiver cadastrado.
+     */
+    public String getFas(String login) throws UserNotRegisteredException {
+        return jackut.getFas(login);
+    }
+
+    /**
+     * Verifica se um usurio  paquera do usurio da sesso. Ver {@link Facade#ehPaquera(String, String)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @param paquera o login da possvel paquera.
+     * @return true se o usurio for paquera do usurio da sesso.
+     * @throws UserNotRegisteredException se algum dos usurios no estiver cadastrado.
+     */
+    public boolean ehPaquera(String id, String paquera) throws UserNotRegisteredException {
+        return jackut.isPaquera(id, paquera);
+    }
+
+    /**
+     * Consulta as paqueras do usurio da sesso. Ver {@link Facade#getPaqueras(String)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @return a lista de paqueras no formato "{paquera1,paquera2,...}".
+     * @throws UserNotRegisteredException se o usurio no estiver cadastrado.
+     */
+    public String getPaqueras(String id) throws UserNotRegisteredException {
+        return jackut.getPaqueras(id);
+    }
+
+    /**
+     * Consulta a descrio de uma comunidade. Ver {@link Facade#getDescricaoComunidade(String)}.
+     *
+     * @param nome o nome da comunidade.
+     * @return a descrio da comunidade.
+     * @throws CommunityNotExistException se a comunidade no existir.
+     */
+    public String getDescricaoComunidade(String nome) throws CommunityNotExistException {
+        return jackut.getCommunityDescription(nome);
+    }
+
+    /**
+     * Consulta o dono de uma comunidade. Ver {@link Facade#getDonoComunidade(String)}.
+     *
+     * @param nome o nome da comunidade.
+     * @return o login do dono da comunidade.
+     * @throws CommunityNotExistException se a comunidade no existir.
+     */
+    public String getDonoComunidade(String nome) throws CommunityNotExistException {
+        return jackut.getCommunityOwner(nome);
+    }
+
+    /**
+     * Consulta uma pgina dos membros de uma comunidade. Ver {@link Facade#getMembrosComunidade(String, int, int)}.
+     *
+     * @param nome o nome da comunidade.
+     * @param offset a quantidade de membros a serem pulados.
+     * @param limite a quantidade mxima de membros retornados.
+     * @return os membros da pgina no formato "{membro1,membro2,...}".
+     * @throws CommunityNotExistException se a comunidade no existir.
+     * @throws InvalidOffsetException se o deslocamento for negativo.
+     * @throws InvalidLimitException se o limite no for positivo.
+     */
+    public String getMembrosComunidade(String nome, int offset, int limite) throws CommunityNotExistException, InvalidOffsetException, InvalidLimitException {
+        return jackut.getCommunityMembers(nome, offset, limite);
+    }
+
+    /**
+     * Conta os membros de uma comunidade. Ver {@link Facade#contarMembros(String)}.
+     *
+     * @param nome o nome da comunidade.
+     * @return a quantidade de membros.
+     * @throws CommunityNotExistException se a comunidade no existir.
+     */
+    public int contarMembros(String nome) throws CommunityNotExistException {
+        return jackut.countCommunityMembers(nome);
+    }
+
+    /**
+     * Conta as sesses vlidas de um usurio. Ver {@link Facade#contarSessoes(String)}.
+     *
+     * @param login o login do usurio.
+     * @return a quantidade de sesses vlidas.
+     */
+    public int contarSessoes(String login) {
+        return jackut.countSessionsOf(login);
+    }
+
+    /**
+     * Consulta as mensagens mais recentes de uma comunidade. Ver {@link Facade#getHistoricoComunidade(String, int)}.
+     *
+     * @param nome o nome da comunidade.
+     * @param limite a quantidade mxima de mensagens retornadas.
+     * @return as mensagens no formato "{mensagem1,mensagem2,...}".
+     * @throws CommunityNotExistException se a comunidade no existir.
+     * @throws InvalidLimitException se o limite no for positivo.
+     */
+    public String getHistoricoComunidade(String nome, int limite) throws CommunityNotExistException, InvalidLimitException {
+        return jackut.getCommunityHistory(nome, limite);
+    }
+
+    /**
+     * Lista as comunidades mais populares. Ver {@link Facade#getComunidadesPopulares(int)}.
+     *
+     * @param k a quantidade de comunidades retornadas.
+     * @return as comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws InvalidLimitException se k no for positivo.
+     */
+    public String getComunidadesPopulares(int k) throws InvalidLimitException {
+        return jackut.getPopularCommunities(k);
+    }
+
+    /**
+     * Lista as comunidades cujo nome comea com um prefixo. Ver {@link Facade#listarComunidades(String, int)}.
+     *
+     * @param prefixo o prefixo dos nomes.
+     * @param limite a quantidade mxima de comunidades retornadas.
+     * @return as comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws InvalidLimitException se o limite no for positivo.
+     */
+    public String listarComunidades(String prefixo, int limite) throws InvalidLimitException {
+        return jackut.listCommunities(prefixo, limite);
+    }
+
+    /**
+     * Lista as comunidades cujo nome comea com um prefixo, a partir de um cursor.
+     * Ver {@link Facade#listarComunidades(String, String, int)}.
+     *
+     * @param prefixo o prefixo dos nomes.
+     * @param cursor o nome da ltima comunidade da pgina anterior.
+     * @param limite a quantidade mxima de comunidades retornadas.
+     * @return as comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws InvalidLimitException se o limite no for positivo.
+     */
+    public String listarComunidades(String prefixo, String cursor, int limite) throws InvalidLimitException {
+        return jackut.listCommunities(prefixo, cursor, limite);
+    }
+
+    /**
+     * Busca comunidades pelo nome e pela descrio. Ver {@link Facade#buscarComunidades(String)}.
+     *
+     * @param termos os termos da busca.
+     * @return as comunidades encontradas no formato "{comunidade1,comunidade2,...}".
+     */
+    public String buscarComunidades(String termos) {
+        return jackut.searchCommunities(termos);
+    }
+
+    /**
+     * Busca as mensagens recebidas pelo usurio da sesso. Ver {@link Facade#buscarMensagens(String, String)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @param termos os termos da busca.
+     * @return as mensagens encontradas no formato "{mensagem1,mensagem2,...}".
+     * @throws UserNotRegisteredException se o usurio no estiver cadastrado.
+     */
+    public String buscarMensagens(String id, String termos) throws UserNotRegisteredException {
+        return jackut.searchMessages(id, termos);
+    }
+
+    /**
+     * Consulta as mensagens recebidas depois de um cursor, sem retir-las das caixas.
+     * Ver {@link Facade#lerDesde(String, long, int)}.
+     *
+     * @param id o ID da sesso do usurio.
+     * @param cursor a sequncia da ltima mensagem j vista.
+     * @param limite a quantidade mxima de mensagens retornadas.
+     * @return as mensagens no formato "{sequencia1:mensagem1,...}".
+     * @throws UserNotRegisteredException se o usurio no estiver cadastrado.
+     * @throws InvalidLimitException se o limite no for positivo.
+     */
+    public String lerDesde(String id, long cursor, int limite) throws UserNotRegisteredException, InvalidLimitException {
+        return jackut.readMessagesSince(id, cursor, limite);
+    }
+
+    /**
+     * Espera pela prxima notificao de uma assinatura, na thread que faz a chamada.
+     * Ver {@link Facade#aguardarMensagem(String, String, int)}.
+     *
+     * @param id o ID da sesso do dono da assinatura.
+     * @param assinatura o ID da assinatura.
+     * @param espera o tempo mximo de espera, em milissegundos.
+     * @return a notificao recebida.
+     * @throws UserNotRegisteredException se a sesso no estiver ativa.
+     * @throws SubscriptionNotFoundException se a assinatura no existir ou no pertencer ao usurio.
+     * @throws NoNotificationException se nenhuma notificao chegar dentro do tempo de espera.
+     */
+    public String aguardarMensagem(String id, String assinatura, int espera) throws UserNotRegisteredException, SubscriptionNotFoundException, NoNotificationException {
+        return jackut.awaitMessage(id, assinatura, espera);
+    }
+}
@@ -0,0 +1,43 @@
+package br.ufal.ic.p2.jackut;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Um comando a ser executado em lote pela {@link Facade}: o nome de uma operao da fachada e os
+ * seus argumentos, em texto e na ordem dos parmetros.
+ */
+public class Comando {
+    private final String operacao;
+    private final List<String> argumentos;
+
+    /**
+     * Constri um comando.
+     *
+     * @param operacao o nome da operao da fachada, como em {@code criarUsuario}.
+     * @param argumentos os argumentos da operao, na ordem dos parmetros.
+     */
+    public Comando(String operacao, String... argumentos) {
+        this.operacao = operacao;
+        this.argumentos = Collections.unmodifiableList(Arrays.asList(argumentos.clone()));
+    }
+
+    /**
+     * Retorna o nome da operao.
+     *
+     * @return o nome da operao.
+     */
+    public String getOperacao() {
+        return this.operacao;
+    }
+
+    /**
+     * Retorna os argumentos da operao.
+     *
+     * @return os argumentos, na ordem dos parmetros.
+     */
+    public List<String> getArgumentos() {
+        return this.argumentos;
+    }
+}
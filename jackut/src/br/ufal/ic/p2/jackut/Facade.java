@@ -1,32 +1,79 @@
 package br.ufal.ic.p2.jackut;
 
 import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.code.metrics.InstrumentedJackut;
+import br.ufal.ic.p2.jackut.code.metrics.JackutMetrics;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import br.ufal.ic.p2.jackut.exceptions.batch.CommandNotAllowedInBatchException;
 import br.ufal.ic.p2.jackut.exceptions.community.CommunityAlredyExistException;
 import br.ufal.ic.p2.jackut.exceptions.community.CommunityNotExistException;
+import br.ufal.ic.p2.jackut.exceptions.community.NotCommunityOwnerException;
 import br.ufal.ic.p2.jackut.exceptions.community.UserAlredyJoinedCommunityException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginOrPasswordException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidPasswordException;
 import br.ufal.ic.p2.jackut.exceptions.login.LoginAlredyUsedException;
+import br.ufal.ic.p2.jackut.exceptions.message.InvalidExpirationException;
 import br.ufal.ic.p2.jackut.exceptions.message.NoCommunityMessageException;
 import br.ufal.ic.p2.jackut.exceptions.message.NoPrivateMessageException;
+import br.ufal.ic.p2.jackut.exceptions.paging.InvalidLimitException;
+import br.ufal.ic.p2.jackut.exceptions.paging.InvalidOffsetException;
+import br.ufal.ic.p2.jackut.exceptions.ratelimit.RateLimitExceededException;
+import br.ufal.ic.p2.jackut.exceptions.ratelimit.UnknownOperationException;
 import br.ufal.ic.p2.jackut.exceptions.relations.*;
+import br.ufal.ic.p2.jackut.exceptions.subscription.NoNotificationException;
+import br.ufal.ic.p2.jackut.exceptions.subscription.SubscriptionNotFoundException;
 import br.ufal.ic.p2.jackut.exceptions.user.UserAttributeNotFilledException;
 import br.ufal.ic.p2.jackut.exceptions.login.UserNotRegisteredException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
 /**
  * A classe Facade fornece uma interface para interagir com a lgica do sistema encapsulada na classe Jackut.
  * Ela simplifica a interao para gerenciar usurios, sesses, amigos e mensagens dentro do sistema.
  */
 public class Facade {
+    private static final Set<String> NOT_ALLOWED_IN_BATCH = Set.of("zerarSistema", "encerrarSistema", "executarLote", "executarLoteTexto");
+
+    private static final boolean METRICS_ENABLED = Boolean.parseBoolean(System.getProperty("jackut.metricas", "true"));
+
     private final Jackut jackut;
+    private final JackutMetrics metrics;
+    private final FacadeInvoker invoker;
 
     /**
      * Construtor padro da classe Facade.
-     * Inicializa a Facade e cria uma instncia da classe Jackut.
+     * Inicializa a Facade e cria uma instncia da classe Jackut. As mtricas ficam ativas por
+     * padro: salvo se a propriedade "jackut.metricas" for "false", a instncia registra mtricas
+     * de cada operao, e elas so publicadas no servidor de MBeans da plataforma, substituindo as
+     * de uma Facade criada antes.
      */
     public Facade() {
-        this.jackut = new Jackut();
+        if (METRICS_ENABLED) {
+            InstrumentedJackut instrumented = new InstrumentedJackut();
+            this.jackut = instrumented;
+            this.metrics = instrumented.getMetrics();
+            this.metrics.register();
+        } else {
+            this.jackut = new Jackut();
+            this.metrics = null;
+        }
+        this.invoker = new FacadeInvoker(this);
+    }
+
+    /**
+     * Constri uma Facade sobre uma instncia de Jackut j existente, sem registro de mtricas.
+     * Usado pela {@link AsyncFacade} para executar lotes sobre o mesmo sistema.
+     *
+     * @param jackut a instncia de Jackut sobre a qual as operaes so executadas.
+     */
+    Facade(Jackut jackut) {
+        this.jackut = jackut;
+        this.metrics = null;
+        this.invoker = new FacadeInvoker(this);
     }
 
     /**
@@ -56,6 +103,15 @@ public class Facade {
         jackut.closeSystem();
     }
 
+    /**
+     * Salva os dados do sistema sem encerr-lo, para que as alteraes feitas at aqui sobrevivam
+     * a uma parada inesperada. Toda a gravao acontece com o sistema travado para escrita, por
+     * isso cabe a quem chama decidir com que frequncia salvar, por exemplo ao final de um lote.
+     */
+    public void salvarSistema() {
+        jackut.saveCheckpoint();
+    }
+
     /**
      * Cria um usurio no sistema com o login, senha e nome especificados.
      *
@@ -140,13 +196,15 @@ public class Facade {
      * @throws UserAlredyAddedException Se os usurios j forem amigos.
      * @throws FriendRequestAlredySentException Se uma solicitao de amizade j foi enviada anteriormente.
      * @throws YourselfFriendRequestException Se o usurio tentar enviar uma solicitao para si mesmo.
+     * @throws RateLimitExceededException Se o usurio ultrapassar o limite de solicitaes de amizade.
      */
     public void adicionarAmigo(String id, String amigo) throws UserNotRegisteredException, UserAlredyAddedException,
-            FriendRequestAlredySentException, YourselfFriendRequestException, ThisUserIsYourEnemyException, UserAttributeNotFilledException {
+            FriendRequestAlredySentException, YourselfFriendRequestException, ThisUserIsYourEnemyException, UserAttributeNotFilledException,
+            RateLimitExceededException {
         try {
             jackut.addFriend(id, amigo);
         } catch (UserNotRegisteredException | FriendRequestAlredySentException | YourselfFriendRequestException |
-                 UserAlredyAddedException | ThisUserIsYourEnemyException | UserAttributeNotFilledException e) {
+                 UserAlredyAddedException | ThisUserIsYourEnemyException | UserAttributeNotFilledException | RateLimitExceededException e) {
             throw e;
         }
     }
@@ -190,12 +248,31 @@ public class Facade {
      * @param mensagem O contedo da mensagem.
      * @throws UserNotRegisteredException Se o remetente ou destinatrio no estiver cadastrado.
      * @throws YourselfMessageException Se o usurio tentar enviar uma mensagem para si mesmo.
+     * @throws RateLimitExceededException Se o usurio ultrapassar o limite de recados.
      */
     public void enviarRecado(String id, String destinatario, String mensagem) throws UserNotRegisteredException,
-            YourselfMessageException, ThisUserIsYourEnemyException, UserAttributeNotFilledException {
+            YourselfMessageException, ThisUserIsYourEnemyException, UserAttributeNotFilledException, RateLimitExceededException {
         jackut.sendPrivateMessage(id, destinatario, mensagem);
     }
 
+    /**
+     * Envia um recado temporrio, que deixa de poder ser lido depois de passada a validade.
+     *
+     * @param id O ID da sesso do remetente.
+     * @param destinatario O login do destinatrio.
+     * @param mensagem O contedo da mensagem.
+     * @param validade A validade do recado, em segundos.
+     * @throws UserNotRegisteredException Se o remetente ou destinatrio no estiver cadastrado.
+     * @throws YourselfMessageException Se o usurio tentar enviar uma mensagem para si mesmo.
+     * @throws InvalidExpirationException Se a validade no for positiva.
+     * @throws RateLimitExceededException Se o usurio ultrapassar o limite de recados.
+     */
+    public void enviarRecadoTemporario(String id, String destinatario, String mensagem, int validade) throws UserNotRegisteredException,
+            YourselfMessageException, ThisUserIsYourEnemyException, UserAttributeNotFilledException, InvalidExpirationException,
+            RateLimitExceededException {
+        jackut.sendTemporaryPrivateMessage(id, destinatario, mensagem, validade);
+    }
+
     /**
      * Recupera a proxima mensagem disponivel para o usurio identificado por ID.
      *
@@ -275,6 +352,57 @@ public class Facade {
         }
     }
 
+    /**
+     * Retorna uma pgina dos membros de uma comunidade, na ordem em que entraram.
+     *
+     * @param nome Nome da comunidade.
+     * @param offset Quantidade de membros a serem pulados.
+     * @param limite Quantidade mxima de membros retornados.
+     * @return Lista dos logins dos membros da pgina no formato "{login1,login2,...}".
+     * @throws CommunityNotExistException caso a comunidade no exista.
+     * @throws InvalidOffsetException caso o deslocamento seja negativo.
+     * @throws InvalidLimitException caso o limite no seja positivo.
+     */
+    public String getMembrosComunidade(String nome, int offset, int limite) throws CommunityNotExistException, InvalidOffsetException, InvalidLimitException {
+        try {
+            return jackut.getCommunityMembers(nome, offset, limite);
+        } catch (CommunityNotExistException | InvalidOffsetException | InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Retorna as mensagens mais recentes enviadas para uma comunidade.
+     *
+     * @param nome Nome da comunidade.
+     * @param limite Quantidade mxima de mensagens retornadas.
+     * @return As mensagens no formato "{mensagem1,mensagem2,...}", da mais antiga para a mais recente.
+     * @throws CommunityNotExistException caso a comunidade no exista.
+     * @throws InvalidLimitException caso o limite no seja positivo.
+     */
+    public String getHistoricoComunidade(String nome, int limite) throws CommunityNotExistException, InvalidLimitException {
+        try {
+            return jackut.getCommunityHistory(nome, limite);
+        } catch (CommunityNotExistException | InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Retorna a quantidade de membros de uma comunidade.
+     *
+     * @param nome Nome da comunidade.
+     * @return A quantidade de membros.
+     * @throws CommunityNotExistException caso a comunidade no exista.
+     */
+    public int contarMembros(String nome) throws CommunityNotExistException {
+        try {
+            return jackut.countCommunityMembers(nome);
+        } catch (CommunityNotExistException e) {
+            throw e;
+        }
+    }
+
     /**
      * Adiciona o usurio logado a uma comunidade existente.
      *
@@ -292,6 +420,26 @@ public class Facade {
         }
     }
 
+    /**
+     * Adiciona vrios usurios a uma comunidade de uma s vez. Se algum dos usurios no existir
+     * ou j for membro, nenhum deles  adicionado.
+     *
+     * @param idDono ID da sesso do dono da comunidade.
+     * @param comunidade Nome da comunidade.
+     * @param logins Logins dos usurios separados por vrgula.
+     * @throws UserNotRegisteredException caso o dono ou algum dos usurios no esteja registrado.
+     * @throws CommunityNotExistException caso a comunidade no exista.
+     * @throws NotCommunityOwnerException caso o usurio da sesso no seja o dono da comunidade.
+     * @throws UserAlredyJoinedCommunityException caso algum dos usurios j faa parte da comunidade.
+     */
+    public void adicionarMembros(String idDono, String comunidade, String logins) throws UserNotRegisteredException, CommunityNotExistException, NotCommunityOwnerException, UserAlredyJoinedCommunityException {
+        try {
+            jackut.addMembers(idDono, comunidade, logins.split(","));
+        } catch (UserNotRegisteredException | CommunityNotExistException | NotCommunityOwnerException | UserAlredyJoinedCommunityException e) {
+            throw e;
+        }
+    }
+
     /**
      * Retorna as comunidades que o usurio participa.
      *
@@ -315,11 +463,33 @@ public class Facade {
      * @param mensagem Contedo da mensagem.
      * @throws UserNotRegisteredException caso o usurio no esteja registrado.
      * @throws CommunityNotExistException caso a comunidade no exista.
+     * @throws RateLimitExceededException caso o usurio ultrapasse o limite de mensagens.
      */
-    public void enviarMensagem(String id, String comunidade, String mensagem) throws UserNotRegisteredException, CommunityNotExistException {
+    public void enviarMensagem(String id, String comunidade, String mensagem) throws UserNotRegisteredException, CommunityNotExistException, RateLimitExceededException {
         try {
             jackut.sendCommunityMessage(id, comunidade, mensagem);
-        } catch (UserNotRegisteredException | CommunityNotExistException e) {
+        } catch (UserNotRegisteredException | CommunityNotExistException | RateLimitExceededException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Envia uma mensagem temporria para uma comunidade. Depois de passada a validade,
+     * a mensagem deixa de poder ser lida pelos membros.
+     *
+     * @param id ID da sesso do usurio remetente.
+     * @param comunidade Nome da comunidade.
+     * @param mensagem Contedo da mensagem.
+     * @param validade Validade da mensagem, em segundos.
+     * @throws UserNotRegisteredException caso o usurio no esteja registrado.
+     * @throws CommunityNotExistException caso a comunidade no exista.
+     * @throws InvalidExpirationException caso a validade no seja positiva.
+     * @throws RateLimitExceededException caso o usurio ultrapasse o limite de mensagens.
+     */
+    public void enviarMensagemTemporaria(String id, String comunidade, String mensagem, int validade) throws UserNotRegisteredException, CommunityNotExistException, InvalidExpirationException, RateLimitExceededException {
+        try {
+            jackut.sendTemporaryCommunityMessage(id, comunidade, mensagem, validade);
+        } catch (UserNotRegisteredException | CommunityNotExistException | InvalidExpirationException | RateLimitExceededException e) {
             throw e;
         }
     }
@@ -340,6 +510,93 @@ public class Facade {
         }
     }
 
+    /**
+     * L, sem remover da caixa de entrada, os recados e mensagens de comunidades recebidos
+     * depois da mensagem identificada pelo cursor.
+     *
+     * @param id ID da sesso do usurio.
+     * @param cursor Sequncia da ltima mensagem j lida pelo cliente; zero para ler desde o incio.
+     * @param limite Quantidade mxima de mensagens retornadas.
+     * @return String com as mensagens no formato "{sequencia:mensagem,...}", em ordem de envio.
+     * @throws UserNotRegisteredException caso o usurio no esteja registrado.
+     * @throws InvalidLimitException caso o limite no seja positivo.
+     */
+    public String lerDesde(String id, long cursor, int limite) throws UserNotRegisteredException, InvalidLimitException {
+        try {
+            return jackut.readMessagesSince(id, cursor, limite);
+        } catch (UserNotRegisteredException | InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Define quantas mensagens de cada caixa de entrada do usurio ficam em memria.
+     * As mensagens excedentes so guardadas em disco e lidas normalmente por lerRecado e lerMensagem.
+     *
+     * @param id ID da sesso do usurio.
+     * @param limite Quantidade mxima de mensagens em memria por caixa de entrada.
+     * @throws UserNotRegisteredException caso o usurio no esteja registrado.
+     * @throws InvalidLimitException caso o limite no seja positivo.
+     */
+    public void definirLimiteDeMensagens(String id, int limite) throws UserNotRegisteredException, InvalidLimitException {
+        try {
+            jackut.setMailboxLimit(id, limite);
+        } catch (UserNotRegisteredException | InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Assina as notificaes de recados e mensagens de comunidades recebidos pelo usurio,
+     * para que ele aguarde novas mensagens em vez de consultar a caixa de entrada repetidamente.
+     *
+     * @param id ID da sesso do usurio.
+     * @return O identificador da assinatura.
+     * @throws UserNotRegisteredException caso o usurio no esteja registrado.
+     */
+    public String assinarMensagens(String id) throws UserNotRegisteredException {
+        try {
+            return jackut.subscribeToQueue(id);
+        } catch (UserNotRegisteredException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Aguarda a prxima mensagem recebida por uma assinatura.
+     *
+     * @param id ID da sesso do usurio assinante.
+     * @param assinatura O identificador da assinatura.
+     * @param espera Tempo mximo de espera, em milissegundos.
+     * @return O contedo da mensagem recebida.
+     * @throws UserNotRegisteredException caso o usurio no esteja registrado.
+     * @throws SubscriptionNotFoundException caso a assinatura no exista ou seja de outro usurio.
+     * @throws NoNotificationException caso nenhuma mensagem chegue dentro do tempo de espera.
+     */
+    public String aguardarMensagem(String id, String assinatura, int espera) throws UserNotRegisteredException, SubscriptionNotFoundException, NoNotificationException {
+        try {
+            return jackut.awaitMessage(id, assinatura, espera);
+        } catch (UserNotRegisteredException | SubscriptionNotFoundException | NoNotificationException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Cancela uma assinatura de mensagens.
+     *
+     * @param id ID da sesso do usurio assinante.
+     * @param assinatura O identificador da assinatura.
+     * @throws UserNotRegisteredException caso o usurio no esteja registrado.
+     * @throws SubscriptionNotFoundException caso a assinatura no exista ou seja de outro usurio.
+     */
+    public void cancelarAssinatura(String id, String assinatura) throws UserNotRegisteredException, SubscriptionNotFoundException {
+        try {
+            jackut.unsubscribe(id, assinatura);
+        } catch (UserNotRegisteredException | SubscriptionNotFoundException e) {
+            throw e;
+        }
+    }
+
     /**
      * Verifica se o usurio logado  f de outro usurio.
      *
@@ -472,5 +729,208 @@ public class Facade {
             throw e;
         }
     }
+
+    /**
+     * Busca os recados e mensagens de comunidades, visveis ao usurio, que contm todos os termos.
+     *
+     * @param id ID da sesso do usurio.
+     * @param termos Termos da busca separados por espaos; maisculas e acentos so ignorados.
+     * @return String com as mensagens encontradas no formato "{mensagem1,mensagem2,...}".
+     * @throws UserNotRegisteredException caso o usurio no esteja registrado.
+     */
+    public String buscarMensagens(String id, String termos) throws UserNotRegisteredException {
+        try {
+            return jackut.searchMessages(id, termos);
+        } catch (UserNotRegisteredException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Busca as comunidades cujo nome ou descrio contm todos os termos.
+     *
+     * @param termos Termos da busca separados por espaos; maisculas e acentos so ignorados.
+     * @return String com os nomes das comunidades no formato "{comunidade1,comunidade2,...}".
+     */
+    public String buscarComunidades(String termos) {
+        return jackut.searchCommunities(termos);
+    }
+
+    /**
+     * Retorna as comunidades mais populares, com mais membros e, em caso de empate, com mais mensagens.
+     *
+     * @param k Quantidade de comunidades retornadas.
+     * @return String com os nomes das comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws InvalidLimitException caso k no seja positivo.
+     */
+    public String getComunidadesPopulares(int k) throws InvalidLimitException {
+        try {
+            return jackut.getPopularCommunities(k);
+        } catch (InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Lista, em ordem alfabtica, as comunidades cujo nome comea com o prefixo.
+     *
+     * @param prefixo Prefixo do nome das comunidades; maisculas e acentos so ignorados.
+     * @param limite Quantidade mxima de comunidades retornadas.
+     * @return String com os nomes das comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws InvalidLimitException caso o limite no seja positivo.
+     */
+    public String listarComunidades(String prefixo, int limite) throws InvalidLimitException {
+        try {
+            return jackut.listCommunities(prefixo, limite);
+        } catch (InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Lista a prxima pgina das comunidades cujo nome comea com o prefixo.
+     *
+     * @param prefixo Prefixo do nome das comunidades; maisculas e acentos so ignorados.
+     * @param cursor Nome da ltima comunidade recebida na pgina anterior.
+     * @param limite Quantidade mxima de comunidades retornadas.
+     * @return String com os nomes das comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws InvalidLimitException caso o limite no seja positivo.
+     */
+    public String listarComunidades(String prefixo, String cursor, int limite) throws InvalidLimitException {
+        try {
+            return jackut.listCommunities(prefixo, cursor, limite);
+        } catch (InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Define por quanto tempo as sesses permanecem vlidas e quantas sesses cada usurio pode manter abertas.
+     * Ao abrir uma sesso alm do limite, a sesso mais antiga do usurio  encerrada.
+     *
+     * @param ociosidade Tempo mximo, em segundos, que uma sesso pode ficar sem uso.
+     * @param duracao Durao mxima de uma sesso, em segundos.
+     * @param limitePorUsuario Quantidade mxima de sesses abertas por usurio.
+     * @throws InvalidExpirationException caso algum dos tempos no seja positivo.
+     * @throws InvalidLimitException caso o limite no seja positivo.
+     */
+    public void definirPoliticaDeSessoes(int ociosidade, int duracao, int limitePorUsuario) throws InvalidExpirationException, InvalidLimitException {
+        try {
+            jackut.setSessionPolicy(ociosidade, duracao, limitePorUsuario);
+        } catch (InvalidExpirationException | InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Define o limite de taxa de uma operao de escrita para cada sesso. Cada usurio, somando as
+     * suas sesses, pode fazer at quatro vezes mais requisies.
+     *
+     * @param operacao Operao limitada: "recado", "mensagem" ou "amizade".
+     * @param porMinuto Quantidade mdia de requisies permitidas por minuto.
+     * @param rajada Quantidade de requisies permitidas de uma s vez.
+     * @throws UnknownOperationException caso a operao no tenha limite de taxa.
+     * @throws InvalidLimitException caso a taxa ou a rajada no seja positiva.
+     */
+    public void definirLimiteDeTaxa(String operacao, int porMinuto, int rajada) throws UnknownOperationException, InvalidLimitException {
+        try {
+            jackut.setRateLimit(operacao, porMinuto, rajada);
+        } catch (UnknownOperationException | InvalidLimitException e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Retorna quantas sesses vlidas um usurio mantm abertas, incluindo as restauradas depois
+     * de um reincio que ainda no foram usadas.
+     *
+     * @param login Login do usurio.
+     * @return A quantidade de sesses vlidas.
+     */
+    public int contarSessoes(String login) {
+        return jackut.countSessionsOf(login);
+    }
+
+    /**
+     * Executa uma lista de comandos em sequncia, como se cada um fosse chamado diretamente na fachada.
+     *
+     * O erro de um comando, de negcio ou inesperado, no interrompe o lote: ele  registrado no
+     * resultado do comando e a execuo segue para o prximo. Os dados no so salvos pelo lote: para isso, o lote pode
+     * terminar com "salvarSistema". A limpeza e o encerramento do sistema e os prprios lotes no
+     * podem ser executados em lote.
+     *
+     * @param comandos Comandos a serem executados, na ordem.
+     * @return Os resultados dos comandos, na mesma ordem.
+     */
+    public List<Resultado> executarLote(List<Comando> comandos) {
+        List<Resultado> resultados = new ArrayList<>(comandos.size());
+        for (Comando comando : comandos) {
+            try {
+                if (NOT_ALLOWED_IN_BATCH.contains(comando.getOperacao())) {
+                    throw new CommandNotAllowedInBatchException();
+                }
+                resultados.add(Resultado.sucesso(invoker.invoke(comando.getOperacao(), comando.getArgumentos())));
+            } catch (AbstractException | RuntimeException e) {
+                resultados.add(Resultado.falha(e));
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Executa em lote comandos descritos em texto. Os comandos so separados por ";" e, em cada
+     * comando, o nome da operao e os argumentos so separados por "|", como em
+     * "criarUsuario|jpsauve|sauvejp|Jacques;getAtributoUsuario|jpsauve|nome". Para usar ";", "|"
+     * ou "\" dentro de um argumento, eles devem ser precedidos de "\", como em "Oi\; tudo bem?".
+     *
+     * @param lote Texto com os comandos a serem executados.
+     * @return Os resultados dos comandos separados por ";"; o resultado de um comando que falhou  a
+     *         mensagem do erro precedida de "erro: ".
+     */
+    public String executarLoteTexto(String lote) {
+        List<Comando> comandos = new ArrayList<>();
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        for (int i = 0; i < lote.length(); i++) {
+            char c = lote.charAt(i);
+            if (c == '\\' && i + 1 < lote.length()) {
+                campo.append(lote.charAt(++i));
+            } else if (c == '|' || c == ';') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+                if (c == ';') {
+                    comandos.add(toComando(campos));
+                    campos.clear();
+                }
+            } else {
+                campo.append(c);
+            }
+        }
+        if (campo.length() > 0 || !campos.isEmpty() || comandos.isEmpty()) {
+            campos.add(campo.toString());
+            comandos.add(toComando(campos));
+        }
+
+        StringJoiner resultados = new StringJoiner(";");
+        for (Resultado resultado : executarLote(comandos)) {
+            resultados.add(resultado.toString());
+        }
+        return resultados.toString();
+    }
+
+    private static Comando toComando(List<String> campos) {
+        return new Comando(campos.get(0).trim(), campos.subList(1, campos.size()).toArray(new String[0]));
+    }
+
+    /**
+     * Gera um relatrio em texto com a quantidade de usurios, comunidades, sesses e mensagens
+     * na fila e, para cada operao do sistema j chamada, as chamadas, os erros por tipo e os
+     * percentis de latncia.
+     *
+     * @return O relatrio, ou uma string vazia se as mtricas estiverem desativadas.
+     */
+    public String relatorioDeMetricas() {
+        return metrics == null ? "" : metrics.dump();
+    }
 }
 
@@ -0,0 +1,110 @@
+package br.ufal.ic.p2.jackut;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import br.ufal.ic.p2.jackut.exceptions.batch.InvalidCommandArgumentException;
+import br.ufal.ic.p2.jackut.exceptions.batch.UnknownCommandException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Invoca as operaes pblicas da {@link Facade} pelo nome, com argumentos recebidos como texto.
+ *
+ * As operaes so indexadas uma nica vez pelo nome e pela quantidade de parmetros, o que
+ * permite distinguir sobrecargas como {@code getMembrosComunidade(nome)} e
+ * {@code getMembrosComunidade(nome, offset, limite)}. Os argumentos so convertidos para o tipo
+ * de cada parmetro ({@code String}, {@code int}, {@code long} ou {@code boolean}).
+ */
+public class FacadeInvoker {
+    private final Facade facade;
+    private final Map<String, Method> operations;
+
+    /**
+     * Constri o invocador sobre uma fachada.
+     *
+     * @param facade a fachada cujas operaes sero invocadas.
+     */
+    public FacadeInvoker(Facade facade) {
+        this.facade = facade;
+        this.operations = new HashMap<>();
+        for (Method method : Facade.class.getMethods()) {
+            if (method.getDeclaringClass() == Facade.class && !Modifier.isStatic(method.getModifiers())
+                    && hasSupportedParameters(method)) {
+                this.operations.put(keyOf(method.getName(), method.getParameterCount()), method);
+            }
+        }
+    }
+
+    /**
+     * Invoca uma operao da fachada.
+     *
+     * @param operation o nome da operao, como em {@code criarUsuario}.
+     * @param arguments os argumentos da operao, na ordem dos parmetros.
+     * @return o resultado da operao como texto, ou uma string vazia se ela no tiver retorno.
+     * @throws UnknownCommandException se no existir operao com esse nome e quantidade de argumentos.
+     * @throws InvalidCommandArgumentException se algum argumento no puder ser convertido para o tipo do parmetro.
+     * @throws AbstractException o erro de negcio lanado pela operao.
+     */
+    public String invoke(String operation, List<String> arguments) throws AbstractException {
+        Method method = this.operations.get(keyOf(operation, arguments.size()));
+        if (method == null) {
+            throw new UnknownCommandException();
+        }
+
+        Class<?>[] types = method.getParameterTypes();
+        Object[] values = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            values[i] = convert(arguments.get(i), types[i]);
+        }
+
+        try {
+            Object result = method.invoke(this.facade, values);
+            return result == null ? "" : String.valueOf(result);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AbstractException) {
+                throw (AbstractException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object convert(String argument, Class<?> type) throws InvalidCommandArgumentException {
+        try {
+            if (type == String.class) {
+                return argument;
+            }
+            if (type == int.class) {
+                return Integer.parseInt(argument);
+            }
+            if (type == long.class) {
+                return Long.parseLong(argument);
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidCommandArgumentException();
+        }
+        return Boolean.parseBoolean(argument);
+    }
+
+    private static boolean hasSupportedParameters(Method method) {
+        for (Class<?> type : method.getParameterTypes()) {
+            if (type != String.class && type != int.class && type != long.class && type != boolean.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String keyOf(String name, int arity) {
+        return name + "/" + arity;
+    }
+}
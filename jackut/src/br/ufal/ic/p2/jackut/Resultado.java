@@ -0,0 +1,80 @@
+package br.ufal.ic.p2.jackut;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import br.ufal.ic.p2.jackut.exceptions.community.CommunityNotExistException;
+
+/**
+ * O resultado de um comando executado em lote: o valor retornado pela operao ou o erro que ela lanou.
+ */
+public class Resultado {
+    private final String valor;
+    private final Exception erro;
+
+    private Resultado(String valor, Exception erro) {
+        this.valor = valor;
+        this.erro = erro;
+    }
+
+    /**
+     * Cria o resultado de um comando bem-sucedido.
+     *
+     * @param valor o valor retornado, ou uma string vazia se a operao no tiver retorno.
+     * @return o resultado.
+     */
+    public static Resultado sucesso(String valor) {
+        return new Resultado(valor, null);
+    }
+
+    /**
+     * Cria o resultado de um comando que falhou.
+     *
+     * @param erro o erro lanado pela operao: um erro de negcio, que estende {@link AbstractException}
+     *             ou, como {@link CommunityNotExistException}, {@link RuntimeException}, ou um erro inesperado.
+     * @return o resultado.
+     */
+    public static Resultado falha(Exception erro) {
+        return new Resultado(null, erro);
+    }
+
+    /**
+     * Informa se o comando foi executado sem erros.
+     *
+     * @return true se o comando foi bem-sucedido.
+     */
+    public boolean ehSucesso() {
+        return this.erro == null;
+    }
+
+    /**
+     * Retorna o valor retornado pelo comando.
+     *
+     * @return o valor, ou null se o comando falhou.
+     */
+    public String getValor() {
+        return this.valor;
+    }
+
+    /**
+     * Retorna o erro lanado pelo comando.
+     *
+     * @return o erro, ou null se o comando foi bem-sucedido.
+     */
+    public Exception getErro() {
+        return this.erro;
+    }
+
+    /**
+     * Retorna o valor do comando ou, se ele falhou, a mensagem do erro precedida de "erro: ". A
+     * mensagem de um erro inesperado  "Erro interno.", como na resposta do servidor HTTP.
+     *
+     * @return a representao textual do resultado.
+     */
+    @Override
+    public String toString() {
+        if (this.ehSucesso()) {
+            return this.valor;
+        }
+        boolean negocio = this.erro instanceof AbstractException || this.erro instanceof CommunityNotExistException;
+        return "erro: " + (negocio ? this.erro.getMessage() : "Erro interno.");
+    }
+}
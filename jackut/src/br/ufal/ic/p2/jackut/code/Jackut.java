@@ -2,34 +2,84 @@ package br.ufal.ic.p2.jackut.code;
 
 import br.ufal.ic.p2.jackut.code.community.Community;
 import br.ufal.ic.p2.jackut.code.community.CommunityManager;
+import br.ufal.ic.p2.jackut.code.concurrency.StripedLocks;
+import br.ufal.ic.p2.jackut.code.expiry.MessageExpirer;
+import br.ufal.ic.p2.jackut.code.jfr.UserRemovalEvent;
 import br.ufal.ic.p2.jackut.code.message.CommunityMessage;
 import br.ufal.ic.p2.jackut.code.message.Message;
+import br.ufal.ic.p2.jackut.code.message.OutgoingMessage;
 import br.ufal.ic.p2.jackut.code.message.PrivateMessage;
+import br.ufal.ic.p2.jackut.code.search.IndexedMessage;
+import br.ufal.ic.p2.jackut.code.search.SearchIndex;
+import br.ufal.ic.p2.jackut.code.session.RateLimitedOperation;
 import br.ufal.ic.p2.jackut.code.session.SessionManager;
+import br.ufal.ic.p2.jackut.code.session.SessionSnapshot;
+import br.ufal.ic.p2.jackut.code.subscription.MessageListener;
+import br.ufal.ic.p2.jackut.code.subscription.QueueListener;
+import br.ufal.ic.p2.jackut.code.subscription.SubscriptionManager;
 import br.ufal.ic.p2.jackut.code.user.User;
 import br.ufal.ic.p2.jackut.code.user.UserManager;
 import br.ufal.ic.p2.jackut.exceptions.community.CommunityAlredyExistException;
 import br.ufal.ic.p2.jackut.exceptions.community.CommunityNotExistException;
+import br.ufal.ic.p2.jackut.exceptions.community.NotCommunityOwnerException;
 import br.ufal.ic.p2.jackut.exceptions.community.UserAlredyJoinedCommunityException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginOrPasswordException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidPasswordException;
 import br.ufal.ic.p2.jackut.exceptions.login.LoginAlredyUsedException;
+import br.ufal.ic.p2.jackut.exceptions.message.InvalidExpirationException;
 import br.ufal.ic.p2.jackut.exceptions.message.NoCommunityMessageException;
 import br.ufal.ic.p2.jackut.exceptions.message.NoPrivateMessageException;
+import br.ufal.ic.p2.jackut.exceptions.paging.InvalidLimitException;
+import br.ufal.ic.p2.jackut.exceptions.paging.InvalidOffsetException;
+import br.ufal.ic.p2.jackut.exceptions.ratelimit.RateLimitExceededException;
+import br.ufal.ic.p2.jackut.exceptions.ratelimit.UnknownOperationException;
 import br.ufal.ic.p2.jackut.exceptions.relations.*;
+import br.ufal.ic.p2.jackut.exceptions.subscription.NoNotificationException;
+import br.ufal.ic.p2.jackut.exceptions.subscription.SubscriptionNotFoundException;
 import br.ufal.ic.p2.jackut.exceptions.user.UserAttributeNotFilledException;
 import br.ufal.ic.p2.jackut.exceptions.login.UserNotRegisteredException;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A classe Jackut fornece a funcionalidade principal para um sistema de mdia social,
  * incluindo gerenciamento de usurios, gerenciamento de sesses e recursos para interagir
  * com outros usurios.
+ *
+ * A instncia pode ser usada por vrias threads ao mesmo tempo. Cada usurio e cada comunidade
+ *  protegido por uma faixa de travas de leitura e escrita, e as alteraes travam para escrita
+ * apenas os usurios e a comunidade envolvidos. As consultas a perfis, relaes e membros no
+ * travam: leem verses imutveis publicadas pelas alteraes (ver {@link
+ * br.ufal.ic.p2.jackut.code.concurrency.VersionedMap}). Operaes que
+ * envolvem mais de um usurio travam as faixas sempre na mesma ordem, e as faixas de usurios
+ * so sempre travadas antes das de comunidades: criar uma comunidade, entrar nela e adicionar
+ * membros travam as faixas dos usurios e depois a da comunidade. O envio de mensagens para uma
+ * comunidade trava apenas a faixa da comunidade, pois a entrega s altera as caixas de mensagens
+ * dos membros, que tm sincronizao prpria (ver {@link br.ufal.ic.p2.jackut.code.message.Mailbox}).
+ * A remoo de usurios, a limpeza e o encerramento do sistema travam todas as faixas.
+ *
+ * As travas so adquiridas em blocos try-with-resources cujo recurso no  usado no corpo,
+ * por isso o aviso "try" do compilador  suprimido na classe.
  */
+@SuppressWarnings("try")
 public class Jackut {
     private final UserManager users;
     private final SessionManager sessions;
+    private final SessionSnapshot sessionSnapshot;
     private final CommunityManager communitys;
+    private final SearchIndex index;
+    private final MessageExpirer expirer;
+    private final SubscriptionManager subscriptions;
+    private final StripedLocks userLocks;
+    private final StripedLocks communityLocks;
 
     /**
      * Constri uma nova instncia da classe Jackut.
@@ -41,11 +91,30 @@ public class Jackut {
     public Jackut() {
         this.users = new UserManager("data/users.ser");
         this.sessions = new SessionManager();
+        this.sessionSnapshot = SessionManager.PERSIST_SESSIONS ? new SessionSnapshot("data/sessions.ser") : null;
         this.communitys = new CommunityManager("data/communitys.ser");
+        this.index = new SearchIndex("data/index.ser");
+        this.expirer = new MessageExpirer();
+        this.subscriptions = new SubscriptionManager();
+        this.sessions.onSessionEnd(this.subscriptions::removeSubscriptionsOfSession);
+        this.userLocks = new StripedLocks();
+        this.communityLocks = new StripedLocks();
 
         this.readData();
     }
 
+    /**
+     * Retorna o login do usurio dono de uma sesso, usado para escolher a faixa de travas
+     * antes de a operao recuperar o usurio j com a trava adquirida.
+     *
+     * @param sessionId o ID da sesso.
+     * @return o login do usurio da sesso.
+     * @throws UserNotRegisteredException se a sesso no estiver ativa.
+     */
+    private String sessionLogin(String sessionId) throws UserNotRegisteredException {
+        return this.sessions.getUserBySessionId(sessionId).getLogin();
+    }
+
     /**
      * Faz chamadas para os respectivos mtodos de Limpeza de todos os dados na instncia do sistema.
      */
@@ -53,46 +122,90 @@ public class Jackut {
         this.users.clearUsers();
         this.sessions.clearSessions();
         this.communitys.clearCommunitys();
+        this.index.clearIndex();
+        this.expirer.clear();
+        this.subscriptions.clearSubscriptions();
     }
 
     /**
      * Serializa todos os dados necessrios para a persistncia da aplicao.
      */
     private void saveData() {
+        this.communitys.awaitPendingDissolutions();
         this.users.serialize();
         this.communitys.serialize();
+        this.index.serialize();
+        if (this.sessionSnapshot != null) {
+            this.sessionSnapshot.setEntries(this.sessions.snapshot());
+            this.sessionSnapshot.serialize();
+        }
     }
 
     /**
      * Desserializa todos os dados que foram previamente serializados para a persistncia da aplicao.
+     * Como usurios e comunidades so lidos de arquivos distintos, as comunidades so religadas
+     * s instncias de usurio carregadas pelo gerenciador de usurios. As sesses gravadas
+     * ficam pendentes e s so religadas aos usurios quando usadas.
      */
     private void readData() {
         this.users.deserialize();
         this.communitys.deserialize();
+        this.communitys.relinkUsers(this.users);
+        this.index.deserialize();
+        if (this.sessionSnapshot != null) {
+            this.sessionSnapshot.deserialize();
+            this.sessions.restore(this.sessionSnapshot.getEntries(), login -> {
+                try {
+                    return this.users.getUserByLogin(login);
+                } catch (UserNotRegisteredException e) {
+                    return null;
+                }
+            });
+        }
     }
 
     /**
      * Apaga todos os dados serializados, perdendo a persistncia da aplicao.
      */
     private void clearData() {
+        this.users.clearMailboxes();
+        this.communitys.clearArchives();
         this.users.clearSerialized();
         this.communitys.clearSerialized();
+        this.index.clearSerialized();
+        if (this.sessionSnapshot != null) {
+            this.sessionSnapshot.clearSerialized();
+        }
     }
 
     /**
      * Apaga todos os dados da memria do sistema e dos arquivos de persistncia.
      */
     public void clearSystem() {
-        this.clearData();
-        this.clearMemory();
+        try (StripedLocks.Guard users = this.userLocks.writeAll(); StripedLocks.Guard communitys = this.communityLocks.writeAll()) {
+            this.clearData();
+            this.clearMemory();
+        }
     }
 
     /**
      * Encessa o sistema, salvando os dados de persistncia e limpando a memria.
      */
     public void closeSystem() {
-        this.saveData();
-        this.clearMemory();
+        try (StripedLocks.Guard users = this.userLocks.writeAll(); StripedLocks.Guard communitys = this.communityLocks.writeAll()) {
+            this.saveData();
+            this.clearMemory();
+        }
+    }
+
+    /**
+     * Salva os dados de persistncia sem encerrar o sistema. Todas as faixas so travadas para
+     * escrita durante a gravao, de forma que os arquivos reflitam um estado consistente.
+     */
+    public void saveCheckpoint() {
+        try (StripedLocks.Guard users = this.userLocks.writeAll(); StripedLocks.Guard communitys = this.communityLocks.writeAll()) {
+            this.saveData();
+        }
     }
 
     /**
@@ -170,7 +283,7 @@ public class Jackut {
      * @throws UserNotRegisteredException se o ID da sesso no corresponder a um usurio registrado
      */
     public void updateProfile(String sessionId, String atribute, String value) throws UserNotRegisteredException {
-        try {
+        try (StripedLocks.Guard guard = this.userLocks.write(this.sessionLogin(sessionId))) {
             User user = this.sessions.getUserBySessionId(sessionId);
             user.updateProfileAttribute(atribute, value);
         } catch (UserNotRegisteredException e) {
@@ -216,33 +329,38 @@ public class Jackut {
      * @throws YourselfFriendRequestException Se o remetente tentar enviar uma solicitao de amizade para si mesmo.
      * @throws UserAttributeNotFilledException Caso o atributo "nome" no esteja preenchido.
      * @throws ThisUserIsYourEnemyException Se caso o usurio tente interagir com alguem que o declarou como inimigo.
+     * @throws RateLimitExceededException Se a sesso ou o usurio ultrapassar o limite de solicitaes de amizade.
      */
     public void addFriend(String sessionId, String receiverLogin) throws UserNotRegisteredException, UserAlredyAddedException,
-            FriendRequestAlredySentException, YourselfFriendRequestException, UserAttributeNotFilledException, ThisUserIsYourEnemyException {
-        User sender = this.sessions.getUserBySessionId(sessionId);
-        User receiver = this.users.getUserByLogin(receiverLogin);
+            FriendRequestAlredySentException, YourselfFriendRequestException, UserAttributeNotFilledException, ThisUserIsYourEnemyException,
+            RateLimitExceededException {
+        this.sessions.acquire(sessionId, RateLimitedOperation.FRIEND_REQUEST);
+        try (StripedLocks.Guard guard = this.userLocks.write(this.sessionLogin(sessionId), receiverLogin)) {
+            User sender = this.sessions.getUserBySessionId(sessionId);
+            User receiver = this.users.getUserByLogin(receiverLogin);
 
-        if (sender.getRelationManager().isFriend(receiver)) {
-            throw new UserAlredyAddedException();
-        }
+            if (sender.getRelationManager().isFriend(receiver)) {
+                throw new UserAlredyAddedException();
+            }
 
-        if (receiver.getRelationManager().alredyReceivedRequest(sender)) {
-            throw new FriendRequestAlredySentException();
-        }
+            if (receiver.getRelationManager().alredyReceivedRequest(sender)) {
+                throw new FriendRequestAlredySentException();
+            }
 
-        if (sender == receiver) {
-            throw new YourselfFriendRequestException();
-        }
+            if (sender == receiver) {
+                throw new YourselfFriendRequestException();
+            }
 
-        if (receiver.getRelationManager().isEnemy(sender)) {
-            throw new ThisUserIsYourEnemyException(receiver.getAttribute("nome"));
-        }
+            if (receiver.getRelationManager().isEnemy(sender)) {
+                throw new ThisUserIsYourEnemyException(receiver.getAttribute("nome"));
+            }
 
-        if (sender.getRelationManager().alredyReceivedRequest(receiver)) {
-            sender.getRelationManager().addFriend(receiver);
-            receiver.getRelationManager().addFriend(sender);
-        } else {
-            receiver.getRelationManager().receiveRequest(sender);
+            if (sender.getRelationManager().alredyReceivedRequest(receiver)) {
+                sender.getRelationManager().addFriend(receiver);
+                receiver.getRelationManager().addFriend(sender);
+            } else {
+                receiver.getRelationManager().receiveRequest(sender);
+            }
         }
     }
 
@@ -278,21 +396,68 @@ public class Jackut {
      * @param messageContent o contedo da mensagem a ser enviada do remetente para o receptor.
      * @throws UserNotRegisteredException se o ID da sesso do remetente ou o login do receptor no corresponder a nenhum usurio registrado no sistema.
      * @throws YourselfMessageException se o remetente tentar enviar uma mensagem para si mesmo.
+     * @throws RateLimitExceededException se a sesso ou o usurio ultrapassar o limite de recados.
      */
-    public void sendPrivateMessage(String sessionId, String receiverLogin, String messageContent) throws UserNotRegisteredException, YourselfMessageException, UserAttributeNotFilledException, ThisUserIsYourEnemyException {
-        User sender = this.sessions.getUserBySessionId(sessionId);
-        User receiver = this.users.getUserByLogin(receiverLogin);
+    public void sendPrivateMessage(String sessionId, String receiverLogin, String messageContent) throws UserNotRegisteredException, YourselfMessageException, UserAttributeNotFilledException, ThisUserIsYourEnemyException, RateLimitExceededException {
+        this.sendPrivateMessage(sessionId, receiverLogin, messageContent, 0);
+    }
 
-        if (receiverLogin.equals(sender.getLogin())) {
-            throw new YourselfMessageException();
+    /**
+     * Envia um recado temporrio, que deixa de poder ser lido depois de passada a sua validade.
+     * Os recados temporrios no so indexados para busca.
+     *
+     * @param sessionId o identificador exclusivo da sesso do remetente.
+     * @param receiverLogin o login do destinatrio.
+     * @param messageContent o contedo do recado.
+     * @param ttlSeconds a validade do recado, em segundos.
+     * @throws UserNotRegisteredException se o ID da sesso do remetente ou o login do receptor no corresponder a nenhum usurio registrado no sistema.
+     * @throws YourselfMessageException se o remetente tentar enviar uma mensagem para si mesmo.
+     * @throws InvalidExpirationException se a validade no for positiva.
+     * @throws RateLimitExceededException se a sesso ou o usurio ultrapassar o limite de recados.
+     */
+    public void sendTemporaryPrivateMessage(String sessionId, String receiverLogin, String messageContent, int ttlSeconds) throws UserNotRegisteredException, YourselfMessageException, UserAttributeNotFilledException, ThisUserIsYourEnemyException, InvalidExpirationException, RateLimitExceededException {
+        if (ttlSeconds <= 0) {
+            throw new InvalidExpirationException();
         }
+        this.sendPrivateMessage(sessionId, receiverLogin, messageContent, ttlSeconds * 1000L);
+    }
 
-        if (receiver.getRelationManager().isEnemy(sender)) {
-            throw new ThisUserIsYourEnemyException(receiver.getAttribute("nome"));
+    private void sendPrivateMessage(String sessionId, String receiverLogin, String messageContent, long ttlMillis) throws UserNotRegisteredException, YourselfMessageException, UserAttributeNotFilledException, ThisUserIsYourEnemyException, RateLimitExceededException {
+        this.sessions.acquire(sessionId, RateLimitedOperation.PRIVATE_MESSAGE);
+        try (StripedLocks.Guard guard = this.userLocks.lock(List.of(this.sessionLogin(sessionId)), Collections.singletonList(receiverLogin))) {
+            User sender = this.sessions.getUserBySessionId(sessionId);
+            User receiver = this.users.getUserByLogin(receiverLogin);
+
+            if (receiverLogin.equals(sender.getLogin())) {
+                throw new YourselfMessageException();
+            }
+
+            if (receiver.getRelationManager().isEnemy(sender)) {
+                throw new ThisUserIsYourEnemyException(receiver.getAttribute("nome"));
+            }
+
+            this.deliverPrivateMessage(sender, receiver, messageContent, ttlMillis);
         }
+    }
 
-        Message message = new PrivateMessage(sender, receiver, messageContent);
+    /**
+     * Cria e envia um recado de um usurio para outro. Recados permanentes so indexados para
+     * busca; recados temporrios so agendados para expirar.
+     *
+     * @param sender o remetente do recado.
+     * @param receiver o destinatrio do recado.
+     * @param messageContent o contedo do recado.
+     * @param ttlMillis a validade do recado em milissegundos, ou zero se ele no expira.
+     */
+    private void deliverPrivateMessage(User sender, User receiver, String messageContent, long ttlMillis) {
+        OutgoingMessage message = new PrivateMessage(sender, receiver, messageContent, this.users.nextMessageSequence(), ttlMillis);
         message.send();
+        this.subscriptions.publishPrivateMessage(receiver.getLogin(), message);
+        if (ttlMillis > 0) {
+            this.expirer.schedule(message, List.of(receiver));
+        } else {
+            this.index.indexPrivateMessage(message.getSequence(), sender.getLogin(), receiver.getLogin(), messageContent);
+        }
     }
 
     /**
@@ -305,7 +470,133 @@ public class Jackut {
      */
     public String readPrivateMessage(String sessionId) throws NoPrivateMessageException, UserNotRegisteredException {
         User user = this.sessions.getUserBySessionId(sessionId);
-        return user.readPrivateMessage();
+        Message message = user.readPrivateMessage();
+        this.expirer.read(message, user);
+        return message.getMessage();
+    }
+
+    /**
+     * Recupera, sem consumi-las, as mensagens privadas e de comunidades recebidas pelo usurio
+     * que foram enviadas depois da mensagem identificada pelo cursor.
+     *
+     * O resultado  uma lista no formato "{sequencia:mensagem,...}" em ordem de envio. O cliente
+     * pode usar a sequncia da ltima mensagem retornada como cursor da prxima chamada,
+     * sincronizando sua caixa de entrada de forma incremental e em lote.
+     *
+     * @param sessionId o ID da sesso associado ao usurio cujas mensagens devem ser lidas
+     * @param cursor a sequncia da ltima mensagem j conhecida pelo cliente; zero para ler desde o incio
+     * @param limit a quantidade mxima de mensagens a serem retornadas
+     * @return as mensagens posteriores ao cursor formatadas como string
+     * @throws UserNotRegisteredException se o usurio associado ao ID da sesso no estiver registrado
+     * @throws InvalidLimitException se o limite informado no for positivo
+     */
+    public String readMessagesSince(String sessionId, long cursor, int limit) throws UserNotRegisteredException, InvalidLimitException {
+        User user = this.sessions.getUserBySessionId(sessionId);
+
+        if (limit <= 0) {
+            throw new InvalidLimitException();
+        }
+
+        List<String> entries = new ArrayList<>();
+        for (Message message : user.getMessagesSince(cursor, limit)) {
+            entries.add(message.getSequence() + ":" + message.getMessage());
+        }
+        return "{" + String.join(",", entries) + "}";
+    }
+
+    /**
+     * Define quantas mensagens de cada caixa do usurio so mantidas em memria.
+     * As mensagens que excederem o limite so guardadas em um arquivo do usurio e
+     * trazidas de volta  memria conforme as mensagens anteriores so lidas.
+     *
+     * @param sessionId o ID da sesso do usurio
+     * @param limit a quantidade mxima de mensagens em memria por caixa
+     * @throws UserNotRegisteredException se o usurio associado ao ID da sesso no estiver registrado
+     * @throws InvalidLimitException se o limite informado no for positivo
+     */
+    public void setMailboxLimit(String sessionId, int limit) throws UserNotRegisteredException, InvalidLimitException {
+        User user = this.sessions.getUserBySessionId(sessionId);
+
+        if (limit <= 0) {
+            throw new InvalidLimitException();
+        }
+
+        user.setMailboxLimit(limit);
+    }
+
+    /**
+     * Registra um ouvinte que ser notificado sempre que o usurio da sesso receber um recado
+     * ou uma mensagem de comunidade, dispensando consultas repetidas  caixa de entrada.
+     * A assinatura  cancelada quando a sesso termina.
+     *
+     * @param sessionId o ID da sesso do usurio assinante.
+     * @param listener o ouvinte a ser notificado.
+     * @return o identificador da assinatura.
+     * @throws UserNotRegisteredException se a sesso no estiver associada a um usurio.
+     */
+    public String subscribe(String sessionId, MessageListener listener) throws UserNotRegisteredException {
+        return this.addSubscription(sessionId, listener);
+    }
+
+    /**
+     * Cria uma assinatura cujas notificaes so guardadas em uma fila, a ser consumida por
+     * {@link #awaitMessage(String, String, int)}.
+     *
+     * @param sessionId o ID da sesso do usurio assinante.
+     * @return o identificador da assinatura.
+     * @throws UserNotRegisteredException se a sesso no estiver associada a um usurio.
+     */
+    public String subscribeToQueue(String sessionId) throws UserNotRegisteredException {
+        return this.addSubscription(sessionId, new QueueListener());
+    }
+
+    private String addSubscription(String sessionId, MessageListener listener) throws UserNotRegisteredException {
+        User user = this.sessions.getUserBySessionId(sessionId);
+        return this.subscriptions.subscribe(sessionId, user.getLogin(), listener).getId();
+    }
+
+    /**
+     * Aguarda a prxima mensagem notificada a uma assinatura em fila. A thread fica bloqueada,
+     * sem consumir processamento, at a chegada de uma mensagem ou o fim do tempo de espera.
+     *
+     * @param sessionId o ID da sesso do usurio assinante.
+     * @param subscriptionId o identificador da assinatura.
+     * @param timeoutMillis o tempo mximo de espera, em milissegundos.
+     * @return o contedo da mensagem recebida.
+     * @throws UserNotRegisteredException se a sesso no estiver associada a um usurio.
+     * @throws SubscriptionNotFoundException se a assinatura no existir, for de outro usurio ou no for uma assinatura em fila.
+     * @throws NoNotificationException se nenhuma mensagem chegar dentro do tempo de espera.
+     */
+    public String awaitMessage(String sessionId, String subscriptionId, int timeoutMillis) throws UserNotRegisteredException, SubscriptionNotFoundException, NoNotificationException {
+        User user = this.sessions.getUserBySessionId(sessionId);
+        MessageListener listener = this.subscriptions.getSubscription(subscriptionId, user.getLogin()).getListener();
+        if (!(listener instanceof QueueListener)) {
+            throw new SubscriptionNotFoundException();
+        }
+
+        try {
+            Message message = ((QueueListener) listener).poll(Math.max(timeoutMillis, 0), TimeUnit.MILLISECONDS);
+            if (message == null) {
+                throw new NoNotificationException();
+            }
+            return message.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoNotificationException();
+        }
+    }
+
+    /**
+     * Cancela uma assinatura de mensagens.
+     *
+     * @param sessionId o ID da sesso do usurio assinante.
+     * @param subscriptionId o identificador da assinatura.
+     * @throws UserNotRegisteredException se a sesso no estiver associada a um usurio.
+     * @throws SubscriptionNotFoundException se a assinatura no existir ou for de outro usurio.
+     */
+    public void unsubscribe(String sessionId, String subscriptionId) throws UserNotRegisteredException, SubscriptionNotFoundException {
+        User user = this.sessions.getUserBySessionId(sessionId);
+        this.subscriptions.unsubscribe(subscriptionId, user.getLogin());
     }
 
     /**
@@ -318,9 +609,11 @@ public class Jackut {
      * @throws UserNotRegisteredException caso o ID no esteja associado a nenhum usurio.
      */
     public void createCommunity(String sessionId, String communityName, String communityDescription) throws CommunityAlredyExistException, UserNotRegisteredException {
-        try {
+        try (StripedLocks.Guard users = this.userLocks.write(this.sessionLogin(sessionId));
+             StripedLocks.Guard communitys = this.communityLocks.write(communityName)) {
             User user = this.sessions.getUserBySessionId(sessionId);
             this.communitys.createCommunity(user, communityName, communityDescription);
+            this.index.indexCommunity(communityName, communityDescription);
         } catch (CommunityAlredyExistException | UserNotRegisteredException e) {
             throw e;
         }
@@ -359,15 +652,96 @@ public class Jackut {
         return this.communitys.getCommunityByName(communityName).getMemberListAsString();
     }
 
+    /**
+     * Retorna uma pgina dos membros de uma comunidade, na ordem em que entraram.
+     *
+     * @param communityName nome da comunidade
+     * @param offset quantidade de membros a serem pulados
+     * @param limit quantidade mxima de membros retornados
+     * @return string com os membros da pgina, no formato "{login1,login2,...}"
+     * @throws CommunityNotExistException se a comunidade no existir
+     * @throws InvalidOffsetException se o deslocamento for negativo
+     * @throws InvalidLimitException se o limite no for positivo
+     */
+    public String getCommunityMembers(String communityName, int offset, int limit) throws CommunityNotExistException, InvalidOffsetException, InvalidLimitException {
+        Community community = this.communitys.getCommunityByName(communityName);
+
+        if (offset < 0) {
+            throw new InvalidOffsetException();
+        }
+        if (limit <= 0) {
+            throw new InvalidLimitException();
+        }
+
+        return "{" + String.join(",", community.getMemberLogins(offset, limit)) + "}";
+    }
+
+    /**
+     * Retorna as mensagens mais recentes enviadas para uma comunidade, lidas do histrico
+     * da prpria comunidade e no das caixas de entrada dos membros.
+     *
+     * @param communityName nome da comunidade
+     * @param limit quantidade mxima de mensagens retornadas
+     * @return as mensagens no formato "{mensagem1,mensagem2,...}", da mais antiga para a mais recente
+     * @throws CommunityNotExistException se a comunidade no existir
+     * @throws InvalidLimitException se o limite no for positivo
+     */
+    public String getCommunityHistory(String communityName, int limit) throws CommunityNotExistException, InvalidLimitException {
+        try (StripedLocks.Guard guard = this.communityLocks.read(communityName)) {
+            Community community = this.communitys.getCommunityByName(communityName);
+
+            if (limit <= 0) {
+                throw new InvalidLimitException();
+            }
+
+            List<String> contents = new ArrayList<>();
+            for (Message message : community.getHistory(limit)) {
+                contents.add(message.getMessage());
+            }
+            return "{" + String.join(",", contents) + "}";
+        }
+    }
+
+    /**
+     * Retorna a quantidade de membros de uma comunidade.
+     *
+     * @param communityName nome da comunidade
+     * @return a quantidade de membros
+     * @throws CommunityNotExistException se a comunidade no existir
+     */
+    public int countCommunityMembers(String communityName) throws CommunityNotExistException {
+        return this.communitys.getCommunityByName(communityName).getMemberCount();
+    }
+
+    /**
+     * Escreve os membros de uma comunidade diretamente no destino informado, no formato
+     * "{login1,login2,...}", sem materializar a listagem completa em memria.
+     *
+     * @param communityName nome da comunidade
+     * @param out destino onde os membros sero escritos
+     * @throws CommunityNotExistException se a comunidade no existir
+     * @throws IOException se ocorrer um erro ao escrever no destino
+     */
+    public void writeCommunityMembers(String communityName, Appendable out) throws CommunityNotExistException, IOException {
+        this.communitys.getCommunityByName(communityName).writeMembers(out);
+    }
+
     /**
      * Retorna as comunidades que um usurio participa com base no login.
+     * Comunidades que ainda esto sendo dissolvidas em segundo plano no so listadas.
      *
      * @param login o login do usurio
      * @return string com os nomes das comunidades
      * @throws UserNotRegisteredException se o usurio no estiver registrado
      */
     public String getUserCommunitysByLogin(String login) throws UserNotRegisteredException {
-        return this.users.getUserByLogin(login).getCommunitysAsString();
+        List<String> communityNames = new ArrayList<>();
+        for (String communityName : this.users.getUserByLogin(login).getCommunitys()) {
+            if (this.communitys.communityExists(communityName)) {
+                communityNames.add(communityName);
+            }
+        }
+        return "{" + String.join(",", communityNames) + "}";
     }
 
     /**
@@ -380,14 +754,59 @@ public class Jackut {
      * @throws UserAlredyJoinedCommunityException se o usurio j for membro da comunidade
      */
     public void joinCommunity(String sessionId, String communityName) throws UserNotRegisteredException, CommunityNotExistException, UserAlredyJoinedCommunityException {
-        Community community = this.communitys.getCommunityByName(communityName);
-        User user = this.sessions.getUserBySessionId(sessionId);
+        try (StripedLocks.Guard users = this.userLocks.write(this.sessionLogin(sessionId));
+             StripedLocks.Guard communitys = this.communityLocks.write(communityName)) {
+            Community community = this.communitys.getCommunityByName(communityName);
+            User user = this.sessions.getUserBySessionId(sessionId);
 
-        if (community.userAlredyJoined(user)) {
-            throw new UserAlredyJoinedCommunityException();
-        } else {
-            community.addMember(user);
-            user.addCommunity(communityName);
+            if (community.userAlredyJoined(user)) {
+                throw new UserAlredyJoinedCommunityException();
+            } else {
+                community.addMember(user);
+                user.addCommunity(communityName);
+                this.communitys.updateRanking(community);
+            }
+        }
+    }
+
+    /**
+     * Adiciona vrios usurios a uma comunidade em uma nica operao. Todo o lote  validado
+     * antes de qualquer insero: se algum login no existir ou j for membro, nenhum usurio
+     *  adicionado. Os logins so resolvidos em uma nica passada pela lista de usurios, e
+     * logins repetidos no lote so considerados uma nica vez.
+     *
+     * @param ownerSessionId o ID da sesso do dono da comunidade.
+     * @param communityName o nome da comunidade.
+     * @param logins os logins dos usurios a serem adicionados.
+     * @throws UserNotRegisteredException se a sesso ou algum dos logins no corresponder a um usurio.
+     * @throws CommunityNotExistException se a comunidade no existir.
+     * @throws NotCommunityOwnerException se o usurio da sesso no for o dono da comunidade.
+     * @throws UserAlredyJoinedCommunityException se algum dos usurios j for membro da comunidade.
+     */
+    public void addMembers(String ownerSessionId, String communityName, String... logins) throws UserNotRegisteredException, CommunityNotExistException, NotCommunityOwnerException, UserAlredyJoinedCommunityException {
+        Set<String> uniqueLogins = new LinkedHashSet<>();
+        for (String login : logins) {
+            if (!login.isBlank()) {
+                uniqueLogins.add(login.trim());
+            }
+        }
+        try (StripedLocks.Guard users = this.userLocks.lock(List.of(this.sessionLogin(ownerSessionId)), uniqueLogins);
+             StripedLocks.Guard communitys = this.communityLocks.write(communityName)) {
+            User owner = this.sessions.getUserBySessionId(ownerSessionId);
+            Community community = this.communitys.getCommunityByName(communityName);
+
+            if (community.getOwner() != owner) {
+                throw new NotCommunityOwnerException();
+            }
+
+            Map<String, User> newMembers = this.users.getUsersByLogin(uniqueLogins);
+            for (User user : newMembers.values()) {
+                if (community.userAlredyJoined(user)) {
+                    throw new UserAlredyJoinedCommunityException();
+                }
+            }
+
+            this.communitys.addMembers(community, newMembers.values());
         }
     }
 
@@ -403,13 +822,63 @@ public class Jackut {
      * @throws UserNotRegisteredException se o ID da sesso do remetente ou o login do receptor
      * no corresponder a nenhum usurio registrado no sistema.
      * @throws CommunityNotExistException se a comunidade que se deseja enviar a mensagem no existir
+     * @throws RateLimitExceededException se a sesso ou o usurio ultrapassar o limite de mensagens.
      */
-    public void sendCommunityMessage(String sessionId, String communityName, String messageContent) throws UserNotRegisteredException, CommunityNotExistException {
-        User sender = this.sessions.getUserBySessionId(sessionId);
-        Community community = this.communitys.getCommunityByName(communityName);
+    public void sendCommunityMessage(String sessionId, String communityName, String messageContent) throws UserNotRegisteredException, CommunityNotExistException, RateLimitExceededException {
+        this.sessions.acquire(sessionId, RateLimitedOperation.COMMUNITY_MESSAGE);
+        try (StripedLocks.Guard guard = this.communityLocks.write(communityName)) {
+            User sender = this.sessions.getUserBySessionId(sessionId);
+            Community community = this.communitys.getCommunityByName(communityName);
 
-        Message message = new CommunityMessage(sender, community, messageContent);
-        message.send();
+            OutgoingMessage message = new CommunityMessage(sender, community, messageContent, this.users.nextMessageSequence());
+            message.send();
+            this.communitys.messagePosted(community, message);
+            this.publishCommunityMessage(community, message);
+            this.index.indexCommunityMessage(message.getSequence(), sender.getLogin(), communityName, messageContent);
+        }
+    }
+
+    /**
+     * Envia uma mensagem temporria para todos os membros de uma comunidade. Depois de passada
+     * a validade, a mensagem deixa de poder ser lida e  removida das caixas dos membros.
+     * As mensagens temporrias no so indexadas para busca.
+     *
+     * @param sessionId o identificador exclusivo da sesso do remetente.
+     * @param communityName o nome da comunidade.
+     * @param messageContent o contedo da mensagem.
+     * @param ttlSeconds a validade da mensagem, em segundos.
+     * @throws UserNotRegisteredException se o ID da sesso do remetente no corresponder a nenhum usurio registrado no sistema.
+     * @throws CommunityNotExistException se a comunidade no existir.
+     * @throws InvalidExpirationException se a validade no for positiva.
+     * @throws RateLimitExceededException se a sesso ou o usurio ultrapassar o limite de mensagens.
+     */
+    public void sendTemporaryCommunityMessage(String sessionId, String communityName, String messageContent, int ttlSeconds) throws UserNotRegisteredException, CommunityNotExistException, InvalidExpirationException, RateLimitExceededException {
+        if (ttlSeconds <= 0) {
+            throw new InvalidExpirationException();
+        }
+        this.sessions.acquire(sessionId, RateLimitedOperation.COMMUNITY_MESSAGE);
+        try (StripedLocks.Guard guard = this.communityLocks.write(communityName)) {
+            User sender = this.sessions.getUserBySessionId(sessionId);
+            Community community = this.communitys.getCommunityByName(communityName);
+
+            OutgoingMessage message = new CommunityMessage(sender, community, messageContent, this.users.nextMessageSequence(), ttlSeconds * 1000L);
+            message.send();
+            this.communitys.messagePosted(community, message);
+            this.publishCommunityMessage(community, message);
+            this.expirer.schedule(message, community.getMembers());
+        }
+    }
+
+    /**
+     * Notifica as assinaturas dos membros de uma comunidade de que uma mensagem foi entregue.
+     *
+     * @param community a comunidade que recebeu a mensagem.
+     * @param message a mensagem entregue.
+     */
+    private void publishCommunityMessage(Community community, Message message) {
+        for (User member : community.getMembers()) {
+            this.subscriptions.publishCommunityMessage(member.getLogin(), community.getCommunityName(), message);
+        }
     }
 
     /**
@@ -422,7 +891,9 @@ public class Jackut {
      */
     public String readCommunityMessage(String sessionId) throws NoCommunityMessageException, UserNotRegisteredException {
         User user = this.sessions.getUserBySessionId(sessionId);
-        return user.readCommunityMessage();
+        Message message = user.readCommunityMessage();
+        this.expirer.read(message, user);
+        return message.getMessage();
     }
 
     /**
@@ -437,22 +908,24 @@ public class Jackut {
      * @throws UserAttributeNotFilledException
      */
     public void addIdol(String sessionId, String idolLogin) throws UserNotRegisteredException, YourselfFaException, UserAlredyIsIdolException, ThisUserIsYourEnemyException, UserAttributeNotFilledException {
-        User fa = this.sessions.getUserBySessionId(sessionId);
-        User idol = this.users.getUserByLogin(idolLogin);
+        try (StripedLocks.Guard guard = this.userLocks.lock(List.of(this.sessionLogin(sessionId)), Collections.singletonList(idolLogin))) {
+            User fa = this.sessions.getUserBySessionId(sessionId);
+            User idol = this.users.getUserByLogin(idolLogin);
 
-        if (fa == idol) {
-            throw new YourselfFaException();
-        }
+            if (fa == idol) {
+                throw new YourselfFaException();
+            }
 
-        if (idol.getRelationManager().isIdol(fa)) {
-            throw new UserAlredyIsIdolException();
-        }
+            if (idol.getRelationManager().isIdol(fa)) {
+                throw new UserAlredyIsIdolException();
+            }
 
-        if (idol.getRelationManager().isEnemy(fa)) {
-            throw new ThisUserIsYourEnemyException(idol.getAttribute("nome"));
-        }
+            if (idol.getRelationManager().isEnemy(fa)) {
+                throw new ThisUserIsYourEnemyException(idol.getAttribute("nome"));
+            }
 
-        idol.getRelationManager().addFa(fa);
+            idol.getRelationManager().addFa(fa);
+        }
     }
 
     /**
@@ -496,32 +969,31 @@ public class Jackut {
      */
     public void addPaquera(String sessionId, String paqueraLogin) throws UserNotRegisteredException,
             UserAttributeNotFilledException, YourselfPaqueraException, PaqueraAlredyAddedException, ThisUserIsYourEnemyException {
-        User paquerador = this.sessions.getUserBySessionId(sessionId);
-        User paquera = this.users.getUserByLogin(paqueraLogin);
-
-        if (paquerador == paquera) {
-            throw new YourselfPaqueraException();
-        }
+        try (StripedLocks.Guard guard = this.userLocks.write(this.sessionLogin(sessionId), paqueraLogin)) {
+            User paquerador = this.sessions.getUserBySessionId(sessionId);
+            User paquera = this.users.getUserByLogin(paqueraLogin);
 
-        if (paquerador.getRelationManager().paqueraTheUser(paquera)) {
-            throw new PaqueraAlredyAddedException();
-        }
+            if (paquerador == paquera) {
+                throw new YourselfPaqueraException();
+            }
 
-        if (paquera.getRelationManager().isEnemy(paquerador)) {
-            throw new ThisUserIsYourEnemyException(paquera.getAttribute("nome"));
-        }
+            if (paquerador.getRelationManager().paqueraTheUser(paquera)) {
+                throw new PaqueraAlredyAddedException();
+            }
 
-        paquerador.getRelationManager().addPaquera(paquera);
+            if (paquera.getRelationManager().isEnemy(paquerador)) {
+                throw new ThisUserIsYourEnemyException(paquera.getAttribute("nome"));
+            }
 
-        if (paquera.getRelationManager().paqueraTheUser(paquerador)) {
-            String contentToPaquerador = paquera.getAttribute("nome") + "  seu paquera - Recado do Jackut.";
-            String contentToPaquera = paquerador.getAttribute("nome") + "  seu paquera - Recado do Jackut.";
+            paquerador.getRelationManager().addPaquera(paquera);
 
-            Message messageToPaquerador = new PrivateMessage(paquera, paquerador, contentToPaquerador);
-            Message messageToPaquera = new PrivateMessage(paquerador, paquera, contentToPaquera);
+            if (paquera.getRelationManager().paqueraTheUser(paquerador)) {
+                String contentToPaquerador = paquera.getAttribute("nome") + "  seu paquera - Recado do Jackut.";
+                String contentToPaquera = paquerador.getAttribute("nome") + "  seu paquera - Recado do Jackut.";
 
-            messageToPaquerador.send();
-            messageToPaquera.send();
+                this.deliverPrivateMessage(paquera, paquerador, contentToPaquerador, 0);
+                this.deliverPrivateMessage(paquerador, paquera, contentToPaquera, 0);
+            }
         }
     }
 
@@ -563,18 +1035,104 @@ public class Jackut {
      * @throws EnemyAlredyDeclaredException se o inimigo j tiver sido declarado anteriormente
      */
     public void addEnemy(String sessionId, String enemyLogin) throws UserNotRegisteredException, UserAttributeNotFilledException, YourselfEnemyException, EnemyAlredyDeclaredException {
+        try (StripedLocks.Guard guard = this.userLocks.lock(Collections.singletonList(enemyLogin), List.of(this.sessionLogin(sessionId)))) {
+            User user = this.sessions.getUserBySessionId(sessionId);
+            User enemy = this.users.getUserByLogin(enemyLogin);
+
+            if (user == enemy) {
+                throw new YourselfEnemyException();
+            }
+
+            if (user.getRelationManager().isEnemy(enemy)) {
+                throw new EnemyAlredyDeclaredException();
+            }
+
+            user.getRelationManager().addEnemy(enemy);
+        }
+    }
+
+    /**
+     * Busca, entre os recados e mensagens de comunidades que o usurio pode ver, aqueles que
+     * contm todos os termos informados. O usurio v os recados que enviou ou recebeu e as
+     * mensagens das comunidades das quais  membro.
+     *
+     * @param sessionId o ID da sesso do usurio que realiza a busca.
+     * @param terms os termos da busca, separados por espaos.
+     * @return as mensagens encontradas no formato "{mensagem1,mensagem2,...}", em ordem de envio.
+     * @throws UserNotRegisteredException caso o ID no esteja associado a um usurio.
+     */
+    public String searchMessages(String sessionId, String terms) throws UserNotRegisteredException {
         User user = this.sessions.getUserBySessionId(sessionId);
-        User enemy = this.users.getUserByLogin(enemyLogin);
+        String login = user.getLogin();
+        Set<String> userCommunitys = user.getCommunitys();
 
-        if (user == enemy) {
-            throw new YourselfEnemyException();
+        List<String> contents = new ArrayList<>();
+        for (IndexedMessage message : this.index.searchMessages(terms, message -> login.equals(message.getSenderLogin())
+                || login.equals(message.getReceiverLogin())
+                || (message.getCommunityName() != null && userCommunitys.contains(message.getCommunityName())))) {
+            contents.add(message.getContent());
         }
+        return "{" + String.join(",", contents) + "}";
+    }
 
-        if (user.getRelationManager().isEnemy(enemy)) {
-            throw new EnemyAlredyDeclaredException();
+    /**
+     * Busca as comunidades cujo nome ou descrio contm todos os termos informados.
+     *
+     * @param terms os termos da busca, separados por espaos.
+     * @return os nomes das comunidades encontradas no formato "{comunidade1,comunidade2,...}", em ordem alfabtica.
+     */
+    public String searchCommunities(String terms) {
+        return "{" + String.join(",", this.index.searchCommunities(terms)) + "}";
+    }
+
+    /**
+     * Retorna as k comunidades mais populares: as com mais membros e, em caso de empate,
+     * as que receberam mais mensagens. O ranking  mantido a cada entrada, sada e mensagem,
+     * e por isso a consulta no precisa ordenar todas as comunidades.
+     *
+     * @param k a quantidade de comunidades retornadas.
+     * @return os nomes das comunidades no formato "{comunidade1,comunidade2,...}", da mais para a menos popular.
+     * @throws InvalidLimitException se k no for positivo.
+     */
+    public String getPopularCommunities(int k) throws InvalidLimitException {
+        if (k <= 0) {
+            throw new InvalidLimitException();
         }
+        return "{" + String.join(",", this.communitys.getPopularCommunities(k)) + "}";
+    }
 
-        user.getRelationManager().addEnemy(enemy);
+    /**
+     * Lista, em ordem alfabtica, as comunidades cujo nome comea com o prefixo informado,
+     * ignorando maisculas e acentos.
+     *
+     * @param prefix o prefixo do nome das comunidades.
+     * @param limit a quantidade mxima de comunidades retornadas.
+     * @return os nomes das comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws InvalidLimitException se o limite no for positivo.
+     */
+    public String listCommunities(String prefix, int limit) throws InvalidLimitException {
+        return this.listCommunityPage(prefix, null, limit);
+    }
+
+    /**
+     * Lista a prxima pgina das comunidades cujo nome comea com o prefixo informado,
+     * a partir da ltima comunidade da pgina anterior.
+     *
+     * @param prefix o prefixo do nome das comunidades.
+     * @param cursor o nome da ltima comunidade recebida, ou null para a primeira pgina.
+     * @param limit a quantidade mxima de comunidades retornadas.
+     * @return os nomes das comunidades no formato "{comunidade1,comunidade2,...}".
+     * @throws InvalidLimitException se o limite no for positivo.
+     */
+    public String listCommunities(String prefix, String cursor, int limit) throws InvalidLimitException {
+        return this.listCommunityPage(prefix, cursor, limit);
+    }
+
+    private String listCommunityPage(String prefix, String cursor, int limit) throws InvalidLimitException {
+        if (limit <= 0) {
+            throw new InvalidLimitException();
+        }
+        return "{" + String.join(",", this.communitys.listCommunities(prefix, cursor, limit)) + "}";
     }
 
     /**
@@ -584,11 +1142,120 @@ public class Jackut {
      * @throws UserNotRegisteredException caso o usurio no esteja registrado.
      */
     public void removeUser(String sessionId) throws UserNotRegisteredException {
-        User userToRemove = this.sessions.getUserBySessionId(sessionId);
+        try (StripedLocks.Guard users = this.userLocks.writeAll(); StripedLocks.Guard communitys = this.communityLocks.writeAll()) {
+            User userToRemove = this.sessions.getUserBySessionId(sessionId);
+            UserRemovalEvent event = new UserRemovalEvent();
+            event.begin();
+            int memberships = userToRemove.getCommunitys().size();
+            int usersScanned = this.users.countUsers();
+
+            List<Community> dissolved = this.communitys.removeUserFromCommunitys(userToRemove);
+            for (Community community : dissolved) {
+                this.index.removeCommunity(community.getCommunityName(), community.getDescription());
+            }
+            this.index.removeMessagesOf(userToRemove.getLogin());
+            this.communitys.removeArchivedMessagesFrom(userToRemove.getLogin());
+            this.users.removeSentMessagesFromUser(userToRemove);
+            this.users.removeUserReferences(userToRemove);
+            this.expirer.forget(userToRemove);
+            this.subscriptions.removeSubscriptionsOf(userToRemove.getLogin());
+            this.sessions.removeSessionsOf(userToRemove.getLogin());
+
+            if (event.shouldCommit()) {
+                event.login = userToRemove.getLogin();
+                event.usersScanned = usersScanned;
+                event.communitiesDissolved = dissolved.size();
+                event.communitiesLeft = Math.max(0, memberships - dissolved.size());
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Define a validade das sesses e quantas sesses cada usurio pode manter abertas.
+     *
+     * @param idleSeconds o tempo mximo, em segundos, que uma sesso pode ficar sem acessos.
+     * @param maxAgeSeconds a durao mxima de uma sesso, em segundos.
+     * @param maxPerUser a quantidade mxima de sesses abertas por usurio.
+     * @throws InvalidExpirationException se algum dos tempos no for positivo.
+     * @throws InvalidLimitException se a quantidade mxima de sesses no for positiva.
+     */
+    public void setSessionPolicy(int idleSeconds, int maxAgeSeconds, int maxPerUser) throws InvalidExpirationException, InvalidLimitException {
+        if (idleSeconds <= 0 || maxAgeSeconds <= 0) {
+            throw new InvalidExpirationException();
+        }
+        if (maxPerUser <= 0) {
+            throw new InvalidLimitException();
+        }
 
-        this.communitys.removeUserFromCommunitys(userToRemove);
-        this.users.removeSentMessagesFromUser(userToRemove);
-        this.users.removeUserReferences(userToRemove);
-        this.sessions.removeSession(sessionId);
+        this.sessions.setPolicy(idleSeconds, maxAgeSeconds, maxPerUser);
+    }
+
+    /**
+     * Define o limite de taxa de uma operao de escrita para cada sesso.
+     *
+     * @param operationName o nome da operao: "recado", "mensagem" ou "amizade".
+     * @param perMinute a quantidade mdia de requisies permitidas por minuto.
+     * @param burst a quantidade de requisies permitidas de uma s vez.
+     * @throws UnknownOperationException se a operao no tiver limite de taxa.
+     * @throws InvalidLimitException se a taxa ou a rajada no for positiva.
+     */
+    public void setRateLimit(String operationName, int perMinute, int burst) throws UnknownOperationException, InvalidLimitException {
+        RateLimitedOperation operation = RateLimitedOperation.byName(operationName);
+        if (operation == null) {
+            throw new UnknownOperationException();
+        }
+        if (perMinute <= 0 || burst <= 0) {
+            throw new InvalidLimitException();
+        }
+
+        this.sessions.setRateLimit(operation, perMinute, burst);
+    }
+
+    /**
+     * Retorna a quantidade de usurios cadastrados.
+     *
+     * @return a quantidade de usurios.
+     */
+    public int countUsers() {
+        return this.users.countUsers();
+    }
+
+    /**
+     * Retorna a quantidade de comunidades existentes.
+     *
+     * @return a quantidade de comunidades.
+     */
+    public int countCommunitys() {
+        return this.communitys.countCommunitys();
+    }
+
+    /**
+     * Retorna a quantidade de sesses abertas.
+     *
+     * @return a quantidade de sesses.
+     */
+    public int countSessions() {
+        return this.sessions.countSessions();
+    }
+
+    /**
+     * Retorna a quantidade de sesses vlidas de um usurio.
+     *
+     * @param login o login do usurio.
+     * @return a quantidade de sesses vlidas do usurio.
+     */
+    public int countSessionsOf(String login) {
+        return this.sessions.countSessionsOf(login);
+    }
+
+    /**
+     * Retorna a quantidade de recados e mensagens de comunidades ainda no lidos, somando as
+     * caixas de mensagens de todos os usurios.
+     *
+     * @return a quantidade de mensagens na fila.
+     */
+    public long countUnreadMessages() {
+        return this.users.countUnreadMessages();
     }
 }
@@ -1,26 +1,54 @@
 package br.ufal.ic.p2.jackut.code.community;
 
+import br.ufal.ic.p2.jackut.code.concurrency.VersionedMap;
+import br.ufal.ic.p2.jackut.code.message.Message;
+import br.ufal.ic.p2.jackut.code.persistence.LegacyFields;
 import br.ufal.ic.p2.jackut.code.user.User;
+import br.ufal.ic.p2.jackut.code.user.UserManager;
+import br.ufal.ic.p2.jackut.exceptions.login.UserNotRegisteredException;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
- * Classe Comunidade implementada com os atributos owner, communityName, description e memberList.
+ * Classe Comunidade implementada com os atributos owner, communityName, description e members.
  * Ela visa fornecer o gerenciamento da prpria comunidade.
+ *
+ * Os membros so indexados pelo login em um mapa que preserva a ordem de entrada, de forma que
+ * verificar, adicionar ou remover um membro leva tempo constante, independente do tamanho
+ * da comunidade, e a listagem de membros continua na ordem em que entraram. O mapa  versionado:
+ * as consultas aos membros percorrem uma verso imutvel, sem travas, enquanto as entradas e
+ * sadas publicam novas verses.
+ *
+ * @see LegacyFields
  */
 public class Community implements Serializable {
     private User owner;
     private String communityName;
     private String description;
-    private List<User> memberList;
+    private VersionedMap<String, User> members;
+    private int messageCount;
+    private MessageArchive archive;
+    private static final long serialVersionUID = -7708602325249097178L;
+
+    /**
+     * Quantidade de membros a partir da qual a dissoluo da comunidade  feita em paralelo.
+     */
+    private static final int PARALLEL_THRESHOLD = 10_000;
 
     public Community(User creator, String communityName, String description) {
         this.owner = creator;
         this.communityName = communityName;
         this.description = description;
-        this.memberList = new ArrayList<>();
+        this.members = new VersionedMap<>();
+        this.archive = new MessageArchive(communityName);
         this.addMember(creator);
         creator.addCommunity(this.communityName);
     }
@@ -53,11 +81,11 @@ public class Community implements Serializable {
     }
 
     /**
-     * Retorna os membros da comunidade como uma Lista de usurios (User).
+     * Retorna os membros da comunidade, na ordem em que entraram.
      *
-     * @return uma lista de usurios.
+     * @return uma viso no modificvel dos membros da comunidade, fixada na verso corrente.
      */
-    public List<User> getMemberList() { return this.memberList; }
+    public Collection<User> getMembers() { return this.members.snapshot().values(); }
 
     /**
      * Retorna uma string que representa uma lista com os nomes dos usurios membros da comunidade.
@@ -65,9 +93,110 @@ public class Community implements Serializable {
      * @return uma string com o nome dos membros da comunidade.
      */
     public String getMemberListAsString() {
-        List<String> membersName = new ArrayList<>();
-        for (User user : memberList) { membersName.add(user.getLogin()); }
-        return "{" + String.join(",", membersName) + "}";
+        StringBuilder builder = new StringBuilder();
+        try {
+            this.writeMembers(builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Escreve os logins dos membros da comunidade, no formato "{login1,login2,...}", diretamente
+     * no destino informado, sem montar listas ou strings intermedirias.
+     *
+     * @param out o destino onde os logins sero escritos.
+     * @throws IOException se ocorrer um erro ao escrever no destino.
+     */
+    public void writeMembers(Appendable out) throws IOException {
+        out.append('{');
+        boolean first = true;
+        for (String login : this.members.snapshot().keys()) {
+            if (!first) {
+                out.append(',');
+            }
+            out.append(login);
+            first = false;
+        }
+        out.append('}');
+    }
+
+    /**
+     * Retorna a quantidade de mensagens j enviadas para a comunidade.
+     *
+     * @return a quantidade de mensagens.
+     */
+    public int getMessageCount() {
+        return this.messageCount;
+    }
+
+    /**
+     * Registra que uma mensagem foi enviada para a comunidade e a guarda no histrico.
+     *
+     * @param message a mensagem enviada.
+     */
+    public void recordMessage(Message message) {
+        this.messageCount++;
+        this.archive.add(message);
+    }
+
+    /**
+     * Retorna as mensagens mais recentes do histrico da comunidade, em ordem de envio.
+     *
+     * @param limit a quantidade mxima de mensagens retornadas.
+     * @return as mensagens mais recentes.
+     */
+    public List<Message> getHistory(int limit) {
+        return this.archive.recent(limit);
+    }
+
+    /**
+     * Remove do histrico da comunidade as mensagens enviadas por um usurio.
+     *
+     * @param senderLogin o login do remetente.
+     */
+    public void removeArchivedMessagesFrom(String senderLogin) {
+        this.archive.removeMessagesFrom(senderLogin);
+    }
+
+    /**
+     * Esvazia o histrico da comunidade e apaga seu segmento em disco.
+     */
+    public void discardArchive() {
+        this.archive.discard();
+    }
+
+    /**
+     * Retorna a quantidade de membros da comunidade.
+     *
+     * @return a quantidade de membros.
+     */
+    public int getMemberCount() {
+        return this.members.size();
+    }
+
+    /**
+     * Retorna uma pgina dos logins dos membros da comunidade, na ordem em que entraram.
+     *
+     * @param offset a quantidade de membros a serem pulados.
+     * @param limit a quantidade mxima de logins retornados.
+     * @return os logins dos membros da pgina.
+     */
+    public List<String> getMemberLogins(int offset, int limit) {
+        VersionedMap.Snapshot<String, User> snapshot = this.members.snapshot();
+        List<String> page = new ArrayList<>(Math.min(limit, Math.max(snapshot.size() - offset, 0)));
+        if (offset >= snapshot.size()) {
+            return page;
+        }
+        Iterator<String> logins = snapshot.keys().iterator();
+        for (int skipped = 0; skipped < offset; skipped++) {
+            logins.next();
+        }
+        while (page.size() < limit && logins.hasNext()) {
+            page.add(logins.next());
+        }
+        return page;
     }
 
     /**
@@ -76,7 +205,7 @@ public class Community implements Serializable {
      * @param user objeto User a ser adicionado.
      */
     public void addMember(User user) {
-        this.memberList.add(user);
+        this.members.put(user.getLogin(), user);
     }
 
 
@@ -87,7 +216,7 @@ public class Community implements Serializable {
      * @return true se o usurio j for membro, false caso contrrio
      */
     public boolean userAlredyJoined(User user) {
-        return this.memberList.contains(user);
+        return this.members.containsKey(user.getLogin());
     }
 
     /**
@@ -97,21 +226,69 @@ public class Community implements Serializable {
      * @param user o usurio a ser removido da comunidade
      */
     public void removeMember(User user) {
-        this.memberList.remove(user);
+        this.members.remove(user.getLogin());
         user.removeComunity(this.communityName);
     }
 
     /**
-     * Remove todos os membros da comunidade, exceto o proprietrio.
-     * Tambm remove a comunidade da lista de comunidades de cada membro.
+     * Substitui o dono e os membros da comunidade pelas instncias de usurio equivalentes
+     * do gerenciador de usurios. Usurios e comunidades so persistidos em arquivos distintos,
+     * e por isso a desserializao produz cpias separadas dos mesmos usurios.
+     *
+     * @param users o gerenciador que contm as instncias cannicas dos usurios
      */
-    public void removeAllMembersExceptOwner() {
-        for (User user : this.memberList) {
-            if (user != this.owner) {
-                user.removeComunity(this.communityName);
+    public void relinkUsers(UserManager users) {
+        VersionedMap<String, User> relinkedMembers = new VersionedMap<>();
+        for (String login : this.members.snapshot().keys()) {
+            try {
+                relinkedMembers.put(login, users.getUserByLogin(login));
+            } catch (UserNotRegisteredException e) {
+                // membro removido do sistema; no deve voltar para a comunidade
             }
         }
-        this.memberList.clear();
+        this.members = relinkedMembers;
+        try {
+            this.owner = users.getUserByLogin(this.owner.getLogin());
+        } catch (UserNotRegisteredException e) {
+            // a comunidade de um dono removido  apagada junto com ele
+        }
     }
 
+    /**
+     * Remove todos os membros da comunidade, exceto o proprietrio.
+     * Tambm remove a comunidade da lista de comunidades de cada membro; em comunidades
+     * grandes, os membros so processados em paralelo.
+     */
+    public void removeAllMembersExceptOwner() {
+        List<User> snapshot = new ArrayList<>(this.members.snapshot().values());
+        Stream<User> members = snapshot.size() >= PARALLEL_THRESHOLD
+                ? snapshot.parallelStream()
+                : snapshot.stream();
+        members.filter(user -> user != this.owner).forEach(user -> user.removeComunity(this.communityName));
+        this.members.clear();
+    }
+
+    /**
+     * L a comunidade gravada. A verso original guardava os membros em uma lista; comunidades
+     * nesse formato so carregadas com os membros indexados e o histrico vazio.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.owner = (User) fields.get("owner", null);
+        this.communityName = (String) fields.get("communityName", null);
+        this.description = (String) fields.get("description", null);
+        this.messageCount = fields.get("messageCount", 0);
+        MessageArchive storedArchive = (MessageArchive) fields.get("archive", null);
+        this.archive = storedArchive != null ? storedArchive : new MessageArchive(this.communityName);
+
+        VersionedMap<String, User> storedMembers = (VersionedMap<String, User>) fields.get("members", null);
+        if (storedMembers != null) {
+            this.members = storedMembers;
+            return;
+        }
+        VersionedMap<String, User> legacyMembers = new VersionedMap<>();
+        LegacyFields.<User>forEachAfterRead(in, LegacyFields.get(fields, "memberList"), user -> legacyMembers.put(user.getLogin(), user));
+        this.members = legacyMembers;
+    }
 }
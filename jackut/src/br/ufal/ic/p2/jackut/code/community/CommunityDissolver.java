@@ -0,0 +1,80 @@
+package br.ufal.ic.p2.jackut.code.community;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Desfaz, em segundo plano, as comunidades cujo dono encerrou a conta.
+ *
+ * A comunidade j deve ter sido retirada do gerenciador de comunidades antes de ser entregue
+ * ao dissolvedor, de forma que ela deixa de ser encontrada imediatamente. O que resta fazer,
+ * e que  proporcional ao tamanho da comunidade,  retir-la da lista de comunidades de cada
+ * membro; isso  feito por uma thread dedicada, e em paralelo para comunidades grandes.
+ */
+public class CommunityDissolver {
+    private final Map<String, CompletableFuture<Void>> pending;
+    private ExecutorService executor;
+
+    /**
+     * Constri um dissolvedor sem dissolues pendentes. A thread em segundo plano s 
+     * iniciada na primeira dissoluo.
+     */
+    public CommunityDissolver() {
+        this.pending = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Agenda a dissoluo de uma comunidade j removida do gerenciador.
+     *
+     * @param community a comunidade a ser dissolvida
+     */
+    public void dissolve(Community community) {
+        String communityName = community.getCommunityName();
+        CompletableFuture<Void> dissolution = CompletableFuture.runAsync(community::removeAllMembersExceptOwner, this.executor());
+        this.pending.put(communityName, dissolution);
+        dissolution.whenComplete((result, error) -> {
+            this.pending.remove(communityName, dissolution);
+            if (error != null) {
+                error.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Verifica se a dissoluo de uma comunidade ainda est em andamento.
+     *
+     * @param communityName o nome da comunidade
+     * @return true se a comunidade ainda estiver sendo dissolvida
+     */
+    public boolean isPending(String communityName) {
+        return this.pending.containsKey(communityName);
+    }
+
+    /**
+     * Aguarda o trmino de todas as dissolues em andamento.
+     */
+    public void awaitPending() {
+        for (CompletableFuture<Void> dissolution : new ArrayList<>(this.pending.values())) {
+            try {
+                dissolution.join();
+            } catch (RuntimeException e) {
+                // o erro j foi registrado quando a dissoluo terminou
+            }
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (this.executor == null) {
+            this.executor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "jackut-dissolucao");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.executor;
+    }
+}
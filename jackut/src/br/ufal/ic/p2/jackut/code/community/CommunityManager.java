@@ -1,61 +1,344 @@
 package br.ufal.ic.p2.jackut.code.community;
 
+import br.ufal.ic.p2.jackut.code.message.Message;
 import br.ufal.ic.p2.jackut.code.persistence.SerializableData;
+import br.ufal.ic.p2.jackut.code.search.TextNormalizer;
 import br.ufal.ic.p2.jackut.code.user.User;
+import br.ufal.ic.p2.jackut.code.user.UserManager;
 import br.ufal.ic.p2.jackut.exceptions.community.CommunityAlredyExistException;
 import br.ufal.ic.p2.jackut.exceptions.community.CommunityNotExistException;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 public class CommunityManager extends SerializableData {
     Map<String, Community> communityMap;
+    private Map<String, Set<String>> communitysByPoster;
+    private transient NavigableMap<String, NavigableSet<String>> namesByFoldedName;
+    private transient NavigableSet<PopularityEntry> ranking;
+    private transient Map<String, PopularityEntry> rankingEntries;
+    private transient Map<String, Set<String>> communitysByOwner;
+    private final transient CommunityDissolver dissolver;
+    private static final long serialVersionUID = -6318293898337332327L;
 
     public CommunityManager(String filePath) {
         super(filePath);
-        this.communityMap = new TreeMap<>();
+        this.communityMap = new ConcurrentSkipListMap<>();
+        this.communitysByPoster = new ConcurrentHashMap<>();
+        this.namesByFoldedName = new ConcurrentSkipListMap<>();
+        this.ranking = new ConcurrentSkipListSet<>();
+        this.rankingEntries = new ConcurrentHashMap<>();
+        this.communitysByOwner = new ConcurrentHashMap<>();
+        this.dissolver = new CommunityDissolver();
     }
 
     public void createCommunity(User creator, String communityName, String description) throws CommunityAlredyExistException {
         if (this.communityMap.containsKey(communityName)) {
             throw new CommunityAlredyExistException();
         }
+        if (this.dissolver.isPending(communityName)) {
+            // os membros da comunidade antiga ainda no foram desligados dela
+            this.dissolver.awaitPending();
+        }
+
+        Community community = new Community(creator, communityName, description);
+        if (this.communityMap.putIfAbsent(communityName, community) != null) {
+            throw new CommunityAlredyExistException();
+        }
+        this.indexName(communityName);
+        this.indexOwner(community);
+        this.updateRanking(community);
+    }
+
+    /**
+     * Adiciona vrios usurios a uma comunidade de uma s vez, atualizando juntos a comunidade
+     * e a lista de comunidades de cada usurio. O ranking de popularidade  atualizado uma nica
+     * vez ao final. Os usurios j devem ter sido validados.
+     *
+     * @param community a comunidade.
+     * @param newMembers os usurios que entraro na comunidade.
+     */
+    public void addMembers(Community community, Collection<User> newMembers) {
+        for (User user : newMembers) {
+            community.addMember(user);
+            user.addCommunity(community.getCommunityName());
+        }
+        this.updateRanking(community);
+    }
+
+    /**
+     * Registra que uma mensagem foi enviada para a comunidade, atualizando o ranking de
+     * popularidade e o ndice das comunidades em que cada usurio j publicou.
+     *
+     * @param community a comunidade que recebeu a mensagem.
+     * @param message a mensagem enviada.
+     */
+    public void messagePosted(Community community, Message message) {
+        this.updateRanking(community);
+        this.communitysByPoster.computeIfAbsent(message.getSenderLogin(), key -> ConcurrentHashMap.newKeySet()).add(community.getCommunityName());
+    }
+
+    /**
+     * Remove dos histricos das comunidades as mensagens enviadas por um usurio. Apenas as
+     * comunidades em que o usurio publicou so visitadas.
+     *
+     * @param senderLogin o login do remetente.
+     */
+    public void removeArchivedMessagesFrom(String senderLogin) {
+        Set<String> postedCommunitys = this.communitysByPoster.remove(senderLogin);
+        if (postedCommunitys != null) {
+            for (String communityName : postedCommunitys) {
+                Community community = this.communityMap.get(communityName);
+                if (community != null) {
+                    community.removeArchivedMessagesFrom(senderLogin);
+                }
+            }
+        }
+    }
+
+    /**
+     * Esvazia os histricos de todas as comunidades e apaga seus segmentos em disco.
+     */
+    public void clearArchives() {
+        for (Community community : this.communityMap.values()) {
+            community.discardArchive();
+        }
+        MessageArchive.clearSegmentDirectory();
+    }
+
+    /**
+     * Verifica se existe uma comunidade com o nome informado. Comunidades em dissoluo
+     * no so mais encontradas.
+     *
+     * @param communityName o nome da comunidade.
+     * @return true se a comunidade existir.
+     */
+    public boolean communityExists(String communityName) {
+        return this.communityMap.containsKey(communityName);
+    }
+
+    /**
+     * Aguarda o trmino das dissolues de comunidades em andamento, por exemplo antes
+     * de persistir os usurios.
+     */
+    public void awaitPendingDissolutions() {
+        this.dissolver.awaitPending();
+    }
+
+    /**
+     * Atualiza a posio de uma comunidade no ranking de popularidade. Deve ser chamado sempre
+     * que a comunidade ganhar ou perder membros ou receber mensagens; custa O(log n).
+     *
+     * Quem chama deve segurar a trava de escrita da comunidade, de forma que duas atualizaes
+     * da mesma comunidade no se intercalem. A nova entrada  inserida antes de a antiga ser
+     * retirada: quem percorre o ranking sem travas pode ver as duas, mas nunca nenhuma.
+     *
+     * @param community a comunidade cujos nmeros mudaram.
+     */
+    public void updateRanking(Community community) {
+        PopularityEntry entry = PopularityEntry.of(community);
+        PopularityEntry previous = this.rankingEntries.put(community.getCommunityName(), entry);
+        this.ranking.add(entry);
+        if (previous != null && !previous.equals(entry)) {
+            this.ranking.remove(previous);
+        }
+    }
+
+    /**
+     * Retorna as comunidades mais populares, isto , com mais membros e, em caso de empate,
+     * com mais mensagens. Percorre apenas as k primeiras entradas do ranking; como ele  lido
+     * sem travas, uma comunidade sendo atualizada pode aparecer duas vezes e s a primeira conta.
+     *
+     * @param k a quantidade de comunidades retornadas.
+     * @return os nomes das comunidades, da mais para a menos popular.
+     */
+    public List<String> getPopularCommunities(int k) {
+        Set<String> popular = new LinkedHashSet<>();
+        for (PopularityEntry entry : this.ranking) {
+            if (popular.size() == k) {
+                break;
+            }
+            popular.add(entry.getCommunityName());
+        }
+        return new ArrayList<>(popular);
+    }
+
+    /**
+     * Lista, em ordem alfabtica, os nomes das comunidades que comeam com o prefixo informado.
+     * A comparao ignora maisculas e acentos.
+     *
+     * @param prefix o prefixo procurado.
+     * @param limit a quantidade mxima de nomes retornados.
+     * @return os nomes encontrados.
+     */
+    public List<String> listCommunities(String prefix, int limit) {
+        return this.listCommunities(prefix, null, limit);
+    }
+
+    /**
+     * Lista, em ordem alfabtica, os nomes das comunidades que comeam com o prefixo informado
+     * e vm depois do cursor. A comparao ignora maisculas e acentos, e a busca percorre apenas
+     * a faixa do ndice ordenado que corresponde ao prefixo, a partir do cursor.
+     *
+     * @param prefix o prefixo procurado.
+     * @param cursor o nome da ltima comunidade da pgina anterior, ou null para a primeira pgina.
+     * @param limit a quantidade mxima de nomes retornados.
+     * @return os nomes encontrados.
+     */
+    public List<String> listCommunities(String prefix, String cursor, int limit) {
+        String foldedPrefix = TextNormalizer.fold(prefix);
+        String foldedCursor = cursor == null ? foldedPrefix : TextNormalizer.fold(cursor);
+        List<String> page = new ArrayList<>();
+        if (foldedCursor.compareTo(foldedPrefix) < 0) {
+            foldedCursor = foldedPrefix;
+            cursor = null;
+        }
+
+        for (Map.Entry<String, NavigableSet<String>> entry : this.namesByFoldedName.tailMap(foldedCursor, true).entrySet()) {
+            if (!entry.getKey().startsWith(foldedPrefix)) {
+                break;
+            }
+            NavigableSet<String> names = entry.getValue();
+            if (cursor != null && entry.getKey().equals(foldedCursor)) {
+                names = names.tailSet(cursor, false);
+            }
+            for (String name : names) {
+                if (page.size() == limit) {
+                    return page;
+                }
+                page.add(name);
+            }
+        }
+        return page;
+    }
+
+    // os conjuntos de nomes nunca so alterados depois de publicados: cada alterao troca o
+    // conjunto inteiro, para que as listagens possam percorr-los sem travas
+    private void indexName(String communityName) {
+        this.namesByFoldedName.compute(TextNormalizer.fold(communityName), (key, names) -> {
+            NavigableSet<String> updated = names == null ? new TreeSet<>() : new TreeSet<>(names);
+            updated.add(communityName);
+            return updated;
+        });
+    }
 
-        this.communityMap.put(communityName, new Community(creator, communityName, description));
+    private void unindexName(String communityName) {
+        this.namesByFoldedName.computeIfPresent(TextNormalizer.fold(communityName), (key, names) -> {
+            NavigableSet<String> updated = new TreeSet<>(names);
+            updated.remove(communityName);
+            return updated.isEmpty() ? null : updated;
+        });
     }
 
     public Community getCommunityByName(String communityName) throws CommunityNotExistException {
-        if (this.communityMap.containsKey(communityName)) {
-            return this.communityMap.get(communityName);
+        Community community = communityName == null ? null : this.communityMap.get(communityName);
+        if (community != null) {
+            return community;
         }
         throw new CommunityNotExistException();
     }
 
-    public void removeUserFromCommunitys(User user) {
-        List<String> communitysThatUserIsOwner = new ArrayList<>();
+    /**
+     * Retira um usurio de todas as comunidades das quais participa e dissolve as comunidades
+     * das quais ele  dono. As comunidades dissolvidas deixam de ser encontradas imediatamente;
+     * a retirada delas da lista de comunidades de cada membro  feita em segundo plano.
+     *
+     * @param user o usurio que est sendo removido.
+     * @return as comunidades dissolvidas.
+     */
+    public List<Community> removeUserFromCommunitys(User user) {
+        List<Community> communitysThatUserIsOwner = new ArrayList<>();
+        Set<String> ownedCommunitys = this.communitysByOwner.remove(user.getLogin());
+        if (ownedCommunitys != null) {
+            for (String communityName : ownedCommunitys) {
+                Community community = this.communityMap.remove(communityName);
+                this.unindexName(communityName);
+                this.ranking.remove(this.rankingEntries.remove(communityName));
+                community.discardArchive();
+                this.dissolver.dissolve(community);
+                communitysThatUserIsOwner.add(community);
+            }
+            this.communitysByPoster.values().removeIf(postedCommunitys -> {
+                postedCommunitys.removeAll(ownedCommunitys);
+                return postedCommunitys.isEmpty();
+            });
+        }
         for (String communityName : user.getCommunitys()) {
-            Community community = this.getCommunityByName(communityName);
-            if (user == community.getOwner()) {
-                community.removeAllMembersExceptOwner();
-                communitysThatUserIsOwner.add(community.getCommunityName());
-            } else {
+            Community community = this.communityMap.get(communityName);
+            if (community != null) {
                 community.removeMember(user);
+                this.updateRanking(community);
             }
         }
-        for (String communityName : communitysThatUserIsOwner) {
-            this.communityMap.remove(communityName);
+        return communitysThatUserIsOwner;
+    }
+
+    private void indexOwner(Community community) {
+        this.communitysByOwner.computeIfAbsent(community.getOwner().getLogin(), key -> ConcurrentHashMap.newKeySet()).add(community.getCommunityName());
+    }
+
+    public void relinkUsers(UserManager users) {
+        for (Community community : this.communityMap.values()) {
+            community.relinkUsers(users);
+            this.updateRanking(community);
         }
     }
 
+    public int countCommunitys() {
+        return this.communityMap.size();
+    }
+
     public void clearCommunitys() {
+        this.dissolver.awaitPending();
         this.communityMap.clear();
+        this.communitysByPoster.clear();
+        this.communitysByOwner.clear();
+        this.namesByFoldedName.clear();
+        this.ranking.clear();
+        this.rankingEntries.clear();
+    }
+
+    /**
+     * L o gerenciador gravado. A verso original guardava as comunidades em um TreeMap e no
+     * tinha o ndice de comunidades por autor de mensagens; nesse formato, o mapa  copiado para
+     * um mapa concorrente e o ndice comea vazio.
+     *
+     * @see br.ufal.ic.p2.jackut.code.persistence.LegacyFields
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Map<String, Community> storedCommunitys = (Map<String, Community>) fields.get("communityMap", null);
+        this.communityMap = storedCommunitys instanceof ConcurrentSkipListMap ? storedCommunitys : new ConcurrentSkipListMap<>(storedCommunitys);
+        Map<String, Set<String>> storedPosters = (Map<String, Set<String>>) fields.get("communitysByPoster", null);
+        this.communitysByPoster = storedPosters != null ? storedPosters : new ConcurrentHashMap<>();
     }
 
     @Override
     protected void castObject(Object object) {
         CommunityManager communityManager = (CommunityManager) object;
         this.communityMap = communityManager.communityMap;
+        this.communitysByPoster = communityManager.communitysByPoster;
+        this.namesByFoldedName.clear();
+        this.ranking.clear();
+        this.rankingEntries.clear();
+        this.communitysByOwner.clear();
+        for (Community community : this.communityMap.values()) {
+            this.indexName(community.getCommunityName());
+            this.indexOwner(community);
+            this.updateRanking(community);
+        }
     }
 }
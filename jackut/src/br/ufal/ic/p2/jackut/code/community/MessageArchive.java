@@ -0,0 +1,185 @@
+package br.ufal.ic.p2.jackut.code.community;
+
+import br.ufal.ic.p2.jackut.code.message.MailboxOverflowFile;
+import br.ufal.ic.p2.jackut.code.message.Message;
+import br.ufal.ic.p2.jackut.code.message.StoredMessage;
+
+import java.io.File;
+import java.io.Serializable;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Histrico das mensagens recentes de uma comunidade, guardado em um buffer circular de
+ * tamanho fixo.
+ *
+ * O histrico permite ler as ltimas mensagens de uma comunidade sem consultar as caixas de
+ * entrada dos membros, e a memria ocupada por comunidade  limitada pela capacidade do buffer.
+ * Quando o buffer est cheio, a mensagem mais antiga  descartada ou, se o histrico em disco
+ * estiver habilitado, gravada em um segmento da comunidade no disco. As posies das pginas do
+ * segmento ficam em um {@link SegmentPageIndex}, tambm no disco, e no na memria.
+ */
+public class MessageArchive implements Serializable {
+    /**
+     * Diretrio onde ficam os segmentos em disco dos histricos das comunidades.
+     */
+    public static final String SEGMENT_DIRECTORY = "data/historico";
+
+    /**
+     * Capacidade padro do buffer de cada comunidade. Pode ser alterada pela propriedade
+     * de sistema {@code jackut.historico.limite}.
+     */
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("jackut.historico.limite", 100);
+
+    /**
+     * Indica se as mensagens que saem do buffer so guardadas em disco. Habilitado pela
+     * propriedade de sistema {@code jackut.historico.disco}.
+     */
+    public static final boolean DISK_ENABLED = Boolean.getBoolean("jackut.historico.disco");
+
+    private static final int SEGMENT_PAGE = 256;
+
+    private final int capacity;
+    private final MailboxOverflowFile segment;
+    private final SegmentPageIndex segmentPages;
+    private Message[] entries;
+    private int start;
+    private int count;
+    private long segmentCount;
+
+    /**
+     * Constri um histrico vazio com a capacidade padro. O buffer s  alocado quando
+     * a primeira mensagem  arquivada.
+     *
+     * @param communityName o nome da comunidade, usado para nomear o segmento em disco
+     */
+    public MessageArchive(String communityName) {
+        this.capacity = Math.max(DEFAULT_CAPACITY, 1);
+        String segmentPath = SEGMENT_DIRECTORY + "/" + URLEncoder.encode(communityName, StandardCharsets.UTF_8);
+        this.segment = new MailboxOverflowFile(segmentPath + ".dat");
+        this.segmentPages = new SegmentPageIndex(segmentPath + ".idx", SEGMENT_PAGE);
+        this.start = 0;
+        this.count = 0;
+        this.segmentCount = 0;
+    }
+
+    /**
+     * Arquiva uma mensagem enviada para a comunidade. Apenas o login do remetente e os dados
+     * da mensagem so guardados, e no os objetos do remetente e da comunidade.
+     *
+     * @param message a mensagem enviada
+     */
+    public void add(Message message) {
+        Message stored = new StoredMessage(message.getSenderLogin(), message.getMessage(),
+                message.getSequence(), message.getTimestamp(), message.getExpiresAt());
+        if (this.entries == null) {
+            this.entries = new Message[this.capacity];
+        }
+        if (this.count < this.capacity) {
+            this.entries[(this.start + this.count) % this.capacity] = stored;
+            this.count++;
+            return;
+        }
+        Message evicted = this.entries[this.start];
+        this.entries[this.start] = stored;
+        this.start = (this.start + 1) % this.capacity;
+        if (DISK_ENABLED) {
+            this.segmentPages.record(this.segmentCount, this.segment.append(evicted));
+            this.segmentCount++;
+        }
+    }
+
+    /**
+     * Retorna as ltimas mensagens ainda vlidas do histrico, da mais antiga para a mais recente.
+     * O segmento em disco s  lido quando o buffer no contm mensagens suficientes, e a
+     * leitura comea pela ltima pgina do segmento, localizada pelo ndice de pginas.
+     *
+     * @param limit a quantidade mxima de mensagens retornadas
+     * @return as mensagens mais recentes, em ordem de envio
+     */
+    public List<Message> recent(int limit) {
+        long now = System.currentTimeMillis();
+        Deque<Message> recent = new ArrayDeque<>();
+        for (int i = this.count - 1; i >= 0 && recent.size() < limit; i--) {
+            Message message = this.entries[(this.start + i) % this.capacity];
+            if (!message.isExpired(now)) {
+                recent.addFirst(message);
+            }
+        }
+
+        int missing = limit - recent.size();
+        if (missing > 0 && this.segmentCount > 0) {
+            List<Message> page = new ArrayList<>();
+            int pageNumber = (int) ((this.segmentCount - 1) / SEGMENT_PAGE);
+            while (pageNumber >= 0 && recent.size() < limit) {
+                long first = (long) pageNumber * SEGMENT_PAGE;
+                page.clear();
+                this.segment.read(this.segmentPages.pageOffset(pageNumber, this.segment, this.segmentCount),
+                        (int) Math.min(SEGMENT_PAGE, this.segmentCount - first), page);
+                for (int i = page.size() - 1; i >= 0 && recent.size() < limit; i--) {
+                    if (!page.get(i).isExpired(now)) {
+                        recent.addFirst(page.get(i));
+                    }
+                }
+                pageNumber--;
+            }
+        }
+        return new ArrayList<>(recent);
+    }
+
+    /**
+     * Remove do histrico, na memria e no disco, as mensagens enviadas por um usurio.
+     *
+     * @param senderLogin o login do remetente
+     */
+    public void removeMessagesFrom(String senderLogin) {
+        if (this.count > 0) {
+            Message[] kept = new Message[this.capacity];
+            int keptCount = 0;
+            for (int i = 0; i < this.count; i++) {
+                Message message = this.entries[(this.start + i) % this.capacity];
+                if (!senderLogin.equals(message.getSenderLogin())) {
+                    kept[keptCount++] = message;
+                }
+            }
+            this.entries = kept;
+            this.start = 0;
+            this.count = keptCount;
+        }
+        if (this.segmentCount > 0) {
+            this.segmentCount = this.segment.rewrite(0, message -> !senderLogin.equals(message.getSenderLogin()));
+            this.segmentPages.delete();
+            if (this.segmentCount == 0) {
+                this.segment.delete();
+            }
+        }
+    }
+
+    /**
+     * Esvazia o histrico e apaga seu segmento em disco.
+     */
+    public void discard() {
+        this.entries = null;
+        this.start = 0;
+        this.count = 0;
+        this.segment.delete();
+        this.segmentPages.delete();
+        this.segmentCount = 0;
+    }
+
+    /**
+     * Apaga todos os segmentos do diretrio de histricos.
+     */
+    public static void clearSegmentDirectory() {
+        File[] files = new File(SEGMENT_DIRECTORY).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+}
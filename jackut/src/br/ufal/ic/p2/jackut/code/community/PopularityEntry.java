@@ -0,0 +1,72 @@
+package br.ufal.ic.p2.jackut.code.community;
+
+/**
+ * Posio imutvel de uma comunidade no ranking de popularidade.
+ *
+ * As entradas so ordenadas pela quantidade de membros, depois pela quantidade de mensagens
+ * enviadas, ambas de forma decrescente, e por fim pelo nome da comunidade. Como so imutveis,
+ * uma comunidade que muda de tamanho tem sua entrada substituda no ranking, e no alterada.
+ */
+public final class PopularityEntry implements Comparable<PopularityEntry> {
+    private final String communityName;
+    private final int members;
+    private final int messages;
+
+    /**
+     * Constri a entrada de ranking de uma comunidade.
+     *
+     * @param communityName o nome da comunidade
+     * @param members a quantidade de membros
+     * @param messages a quantidade de mensagens enviadas  comunidade
+     */
+    public PopularityEntry(String communityName, int members, int messages) {
+        this.communityName = communityName;
+        this.members = members;
+        this.messages = messages;
+    }
+
+    /**
+     * Constri a entrada de ranking com os nmeros atuais da comunidade.
+     *
+     * @param community a comunidade
+     * @return a entrada correspondente
+     */
+    public static PopularityEntry of(Community community) {
+        return new PopularityEntry(community.getCommunityName(), community.getMemberCount(), community.getMessageCount());
+    }
+
+    /**
+     * Retorna o nome da comunidade.
+     *
+     * @return o nome da comunidade
+     */
+    public String getCommunityName() {
+        return this.communityName;
+    }
+
+    @Override
+    public int compareTo(PopularityEntry other) {
+        if (this.members != other.members) {
+            return Integer.compare(other.members, this.members);
+        }
+        if (this.messages != other.messages) {
+            return Integer.compare(other.messages, this.messages);
+        }
+        return this.communityName.compareTo(other.communityName);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PopularityEntry)) {
+            return false;
+        }
+        PopularityEntry other = (PopularityEntry) obj;
+        return this.members == other.members && this.messages == other.messages
+                && this.communityName.equals(other.communityName);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * this.communityName.hashCode() + this.members) + this.messages;
+    }
+}
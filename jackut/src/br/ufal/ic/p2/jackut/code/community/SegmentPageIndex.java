@@ -0,0 +1,116 @@
+package br.ufal.ic.p2.jackut.code.community;
+
+import br.ufal.ic.p2.jackut.code.message.MailboxOverflowFile;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+
+/**
+ * ndice esparso, em disco, do segmento de histrico de uma comunidade: guarda a posio do
+ * primeiro registro de cada pgina de {@code pageSize} mensagens, em um arquivo ao lado do
+ * segmento, com oito bytes por pgina.
+ *
+ * Assim, a leitura das pginas finais do segmento no percorre o arquivo desde o incio, e o
+ * ndice no ocupa memria: cada consulta l apenas a posio da pgina pedida. Se o arquivo do
+ * ndice no existir ou estiver incompleto, por exemplo depois de uma reescrita do segmento, ele
+ *  reconstrudo a partir do segmento.
+ */
+public class SegmentPageIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String filePath;
+    private final int pageSize;
+
+    /**
+     * Constri o ndice no caminho especificado. O arquivo s  criado quando a primeira
+     * pgina  registrada.
+     *
+     * @param filePath o caminho do arquivo do ndice
+     * @param pageSize a quantidade de mensagens por pgina
+     */
+    public SegmentPageIndex(String filePath, int pageSize) {
+        this.filePath = filePath;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Registra a posio de um registro acrescentado ao segmento, se ele for o primeiro de uma pgina.
+     *
+     * @param recordNumber o nmero do registro no segmento, a partir de zero
+     * @param offset a posio, em bytes, do registro
+     * @throws UncheckedIOException se ocorrer um erro de escrita
+     */
+    public void record(long recordNumber, long offset) {
+        if (recordNumber % this.pageSize != 0) {
+            return;
+        }
+        File file = new File(this.filePath);
+        file.getParentFile().mkdirs();
+        try (RandomAccessFile index = new RandomAccessFile(file, "rw")) {
+            index.seek(recordNumber / this.pageSize * Long.BYTES);
+            index.writeLong(offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retorna a posio do primeiro registro de uma pgina, reconstruindo o ndice a partir do
+     * segmento se a pgina ainda no estiver registrada nele.
+     *
+     * @param page o nmero da pgina, a partir de zero
+     * @param segment o segmento indexado
+     * @param segmentCount a quantidade de registros do segmento
+     * @return a posio, em bytes, do primeiro registro da pgina
+     * @throws UncheckedIOException se ocorrer um erro de leitura ou escrita
+     */
+    public long pageOffset(int page, MailboxOverflowFile segment, long segmentCount) {
+        long pages = (segmentCount + this.pageSize - 1) / this.pageSize;
+        if (new File(this.filePath).length() < pages * Long.BYTES) {
+            this.rebuild(segment, segmentCount);
+        }
+        try (RandomAccessFile index = new RandomAccessFile(this.filePath, "r")) {
+            index.seek((long) page * Long.BYTES);
+            return index.readLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Regrava o ndice a partir dos tamanhos dos registros do segmento.
+     *
+     * @param segment o segmento indexado
+     * @param segmentCount a quantidade de registros do segmento
+     * @throws UncheckedIOException se ocorrer um erro de leitura ou escrita
+     */
+    public void rebuild(MailboxOverflowFile segment, long segmentCount) {
+        File file = new File(this.filePath);
+        file.delete();
+        file.getParentFile().mkdirs();
+        try (DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            segment.index(segmentCount, this.pageSize, offset -> {
+                try {
+                    index.writeLong(offset);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Apaga o arquivo do ndice do disco.
+     */
+    public void delete() {
+        new File(this.filePath).delete();
+    }
+}
@@ -0,0 +1,143 @@
+package br.ufal.ic.p2.jackut.code.concurrency;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Conjunto fixo de travas de leitura e escrita, distribudas entre as chaves por hash.
+ *
+ * Cada usurio ou comunidade  protegido pela trava da faixa em que sua chave cai, de forma que
+ * operaes sobre chaves diferentes quase nunca disputam a mesma trava e leituras sobre a mesma
+ * chave acontecem em paralelo. Quando uma operao envolve vrias chaves, as faixas so sempre
+ * travadas em ordem crescente de ndice, o que impede que duas operaes se bloqueiem mutuamente.
+ */
+public class StripedLocks {
+    /**
+     * Quantidade padro de faixas.
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantReadWriteLock[] stripes;
+
+    /**
+     * Constri um conjunto com a quantidade padro de faixas.
+     */
+    public StripedLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constri um conjunto de travas com a quantidade de faixas informada.
+     *
+     * @param stripes a quantidade de faixas, arredondada para a prxima potncia de dois.
+     */
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1);
+        this.stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Trava para leitura as faixas das chaves informadas.
+     *
+     * @param keys as chaves a serem lidas.
+     * @return a trava adquirida, a ser liberada com {@link Guard#close()}.
+     */
+    public Guard read(String... keys) {
+        return this.lock(Arrays.asList(keys), List.of());
+    }
+
+    /**
+     * Trava para escrita as faixas das chaves informadas.
+     *
+     * @param keys as chaves a serem alteradas.
+     * @return a trava adquirida, a ser liberada com {@link Guard#close()}.
+     */
+    public Guard write(String... keys) {
+        return this.lock(List.of(), Arrays.asList(keys));
+    }
+
+    /**
+     * Trava as faixas de um conjunto de chaves lidas e de um conjunto de chaves alteradas.
+     * Se uma mesma faixa for necessria para leitura e para escrita, ela  travada para escrita.
+     *
+     * @param readKeys as chaves a serem lidas.
+     * @param writeKeys as chaves a serem alteradas.
+     * @return a trava adquirida, a ser liberada com {@link Guard#close()}.
+     */
+    public Guard lock(Collection<String> readKeys, Collection<String> writeKeys) {
+        TreeMap<Integer, Boolean> modes = new TreeMap<>();
+        for (String key : readKeys) {
+            modes.putIfAbsent(this.stripeOf(key), false);
+        }
+        for (String key : writeKeys) {
+            modes.put(this.stripeOf(key), true);
+        }
+
+        Lock[] locks = new Lock[modes.size()];
+        int i = 0;
+        for (Integer stripe : modes.keySet()) {
+            ReentrantReadWriteLock lock = this.stripes[stripe];
+            locks[i++] = modes.get(stripe) ? lock.writeLock() : lock.readLock();
+        }
+        return new Guard(locks);
+    }
+
+    /**
+     * Trava para escrita todas as faixas, excluindo qualquer outra operao enquanto a trava
+     * estiver adquirida. Usada pelas operaes que alteram o sistema como um todo.
+     *
+     * @return a trava adquirida, a ser liberada com {@link Guard#close()}.
+     */
+    public Guard writeAll() {
+        Lock[] locks = new Lock[this.stripes.length];
+        for (int i = 0; i < this.stripes.length; i++) {
+            locks[i] = this.stripes[i].writeLock();
+        }
+        return new Guard(locks);
+    }
+
+    private int stripeOf(String key) {
+        int hash = Objects.hashCode(key);
+        return (hash ^ (hash >>> 16)) & (this.stripes.length - 1);
+    }
+
+    /**
+     * Conjunto de travas adquiridas, liberadas na ordem inversa da aquisio.
+     * Feito para ser usado em blocos try-with-resources.
+     */
+    public static final class Guard implements AutoCloseable {
+        private final Lock[] locks;
+        private int acquired;
+
+        private Guard(Lock[] locks) {
+            this.locks = locks;
+            try {
+                for (Lock lock : locks) {
+                    lock.lock();
+                    this.acquired++;
+                }
+            } catch (RuntimeException | Error e) {
+                this.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Libera as travas adquiridas.
+         */
+        @Override
+        public void close() {
+            while (this.acquired > 0) {
+                this.locks[--this.acquired].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package br.ufal.ic.p2.jackut.code.concurrency;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de fichas sem travas, implementado como o algoritmo de taxa de clulas genrico (GCRA).
+ *
+ * Em vez de contar fichas, o balde guarda em um nico {@link AtomicLong} o instante terico em
+ * que ele estaria cheio de novo. Uma requisio  aceita se esse instante no estiver mais
+ * adiantado que a rajada permitida e, nesse caso, o instante avana um intervalo de emisso.
+ * A deciso e a atualizao so feitas com uma nica operao de comparao e troca.
+ *
+ * A taxa e a rajada so informadas a cada chamada, de forma que possam ser alteradas sem
+ * recriar os baldes.
+ */
+public final class TokenBucket {
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Tenta consumir uma ficha do balde.
+     *
+     * @param nowNanos o instante atual, em nanossegundos, de {@link System#nanoTime()}.
+     * @param intervalNanos o intervalo entre duas fichas, em nanossegundos.
+     * @param toleranceNanos quanto o balde pode se adiantar, em nanossegundos; um intervalo vezes a rajada menos um.
+     * @return true se a ficha foi consumida, false se o balde estiver vazio.
+     */
+    public boolean tryAcquire(long nowNanos, long intervalNanos, long toleranceNanos) {
+        while (true) {
+            long arrival = this.theoreticalArrival.get();
+            long base = arrival == Long.MIN_VALUE || arrival - nowNanos < 0 ? nowNanos : arrival;
+            if (base - nowNanos > toleranceNanos) {
+                return false;
+            }
+            if (this.theoreticalArrival.compareAndSet(arrival, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Devolve ao balde uma ficha consumida por {@link #tryAcquire}, quando a operao acabou recusada por outro limite.
+     *
+     * @param intervalNanos o intervalo entre duas fichas usado ao consumir a ficha, em nanossegundos.
+     */
+    public void refund(long intervalNanos) {
+        this.theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * Indica se o balde j recuperou todas as fichas, ou seja, se descart-lo no mudaria nenhuma deciso futura.
+     *
+     * @param nowNanos o instante atual, em nanossegundos, de {@link System#nanoTime()}.
+     * @return true se o balde estiver cheio.
+     */
+    public boolean isFull(long nowNanos) {
+        long arrival = this.theoreticalArrival.get();
+        return arrival == Long.MIN_VALUE || arrival - nowNanos <= 0;
+    }
+}
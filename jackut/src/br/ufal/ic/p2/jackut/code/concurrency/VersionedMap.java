@@ -0,0 +1,299 @@
+package br.ufal.ic.p2.jackut.code.concurrency;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Mapa versionado que mantm a ordem de insero e permite leituras sem travas.
+ *
+ * As entradas ficam em um registro apenas acrescido: cada alterao gera uma nova verso, publicada
+ * de forma atmica, e a remoo apenas marca a verso em que a entrada deixou de existir. Um leitor
+ * obtm com {@link #snapshot()} a verso corrente e enxerga exatamente as entradas vivas naquela
+ * verso, mesmo que escritores publiquem novas verses enquanto ele percorre o mapa. Quando mais da
+ * metade do registro  composta por entradas removidas, ele  compactado em um novo vetor, sem
+ * afetar os leitores que ainda percorrem o vetor antigo.
+ *
+ * As alteraes so sincronizadas entre si; as leituras nunca bloqueiam.
+ *
+ * @param <K> o tipo das chaves.
+ * @param <V> o tipo dos valores.
+ */
+public class VersionedMap<K, V> implements Serializable {
+    private static final int MIN_COMPACTION = 16;
+
+    private transient volatile Snapshot<K, V> current;
+    private transient Map<K, Entry<K, V>> live;
+    private transient int removed;
+
+    /**
+     * Constri um mapa vazio.
+     */
+    public VersionedMap() {
+        this.init();
+    }
+
+    private void init() {
+        this.current = new Snapshot<>(newArray(4), 0, 0, 0);
+        this.live = new ConcurrentHashMap<>();
+        this.removed = 0;
+    }
+
+    /**
+     * Insere uma entrada ao final do mapa, caso a chave ainda no exista.
+     *
+     * @param key a chave.
+     * @param value o valor.
+     * @return true se a entrada foi inserida, false se a chave j existia.
+     */
+    public synchronized boolean put(K key, V value) {
+        if (this.live.containsKey(key)) {
+            return false;
+        }
+        Snapshot<K, V> last = this.current;
+        Entry<K, V> entry = new Entry<>(key, value);
+        Entry<K, V>[] entries = last.entries;
+        if (last.length == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        // a posio escrita est alm do tamanho de qualquer verso j publicada
+        entries[last.length] = entry;
+        this.live.put(key, entry);
+        this.current = new Snapshot<>(entries, last.length + 1, last.size + 1, last.version + 1);
+        return true;
+    }
+
+    /**
+     * Remove a entrada com a chave informada.
+     *
+     * @param key a chave.
+     * @return o valor removido, ou null se a chave no existia.
+     */
+    public synchronized V remove(K key) {
+        Entry<K, V> entry = this.live.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        Snapshot<K, V> last = this.current;
+        long version = last.version + 1;
+        entry.removedAt = version;
+        this.removed++;
+
+        Entry<K, V>[] entries = last.entries;
+        int length = last.length;
+        if (this.removed >= MIN_COMPACTION && this.removed > length / 2) {
+            entries = newArray(Math.max(4, Integer.highestOneBit(Math.max(last.size - 1, 1)) * 2));
+            length = 0;
+            for (int i = 0; i < last.length; i++) {
+                if (last.entries[i].removedAt == Long.MAX_VALUE) {
+                    entries[length++] = last.entries[i];
+                }
+            }
+            this.removed = 0;
+        }
+        this.current = new Snapshot<>(entries, length, last.size - 1, version);
+        return entry.value;
+    }
+
+    /**
+     * Remove todas as entradas.
+     */
+    public synchronized void clear() {
+        long version = this.current.version + 1;
+        this.live.clear();
+        this.removed = 0;
+        this.current = new Snapshot<>(newArray(4), 0, 0, version);
+    }
+
+    /**
+     * Verifica, na verso mais recente, se a chave existe.
+     *
+     * @param key a chave.
+     * @return true se a chave existir.
+     */
+    public boolean containsKey(K key) {
+        return key != null && this.live.containsKey(key);
+    }
+
+    /**
+     * Retorna, na verso mais recente, o valor associado  chave.
+     *
+     * @param key a chave.
+     * @return o valor, ou null se a chave no existir.
+     */
+    public V get(K key) {
+        Entry<K, V> entry = key == null ? null : this.live.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Retorna a quantidade de entradas na verso mais recente.
+     *
+     * @return a quantidade de entradas.
+     */
+    public int size() {
+        return this.current.size;
+    }
+
+    /**
+     * Retorna uma viso imutvel da verso mais recente do mapa.
+     *
+     * @return a verso corrente.
+     */
+    public Snapshot<K, V> snapshot() {
+        return this.current;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        Snapshot<K, V> snapshot = this.current;
+        out.writeInt(snapshot.size);
+        for (int i = 0; i < snapshot.length; i++) {
+            Entry<K, V> entry = snapshot.entries[i];
+            if (snapshot.isVisible(entry)) {
+                out.writeObject(entry.key);
+                out.writeObject(entry.value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.init();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            this.put((K) in.readObject(), (V) in.readObject());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] newArray(int length) {
+        return (Entry<K, V>[]) new Entry<?, ?>[length];
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private volatile long removedAt = Long.MAX_VALUE;
+
+        private Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Verso imutvel do mapa. Percorre as entradas vivas no momento em que foi publicada,
+     * na ordem de insero.
+     *
+     * @param <K> o tipo das chaves.
+     * @param <V> o tipo dos valores.
+     */
+    public static final class Snapshot<K, V> {
+        private final Entry<K, V>[] entries;
+        private final int length;
+        private final int size;
+        private final long version;
+
+        private Snapshot(Entry<K, V>[] entries, int length, int size, long version) {
+            this.entries = entries;
+            this.length = length;
+            this.size = size;
+            this.version = version;
+        }
+
+        private boolean isVisible(Entry<K, V> entry) {
+            return entry.removedAt > this.version;
+        }
+
+        /**
+         * Retorna o nmero desta verso.
+         *
+         * @return o nmero da verso.
+         */
+        public long getVersion() {
+            return this.version;
+        }
+
+        /**
+         * Retorna a quantidade de entradas nesta verso.
+         *
+         * @return a quantidade de entradas.
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Retorna as chaves desta verso, na ordem de insero.
+         *
+         * @return uma coleo imutvel com as chaves.
+         */
+        public Collection<K> keys() {
+            return new View<>(this, entry -> entry.key);
+        }
+
+        /**
+         * Retorna os valores desta verso, na ordem de insero.
+         *
+         * @return uma coleo imutvel com os valores.
+         */
+        public Collection<V> values() {
+            return new View<>(this, entry -> entry.value);
+        }
+    }
+
+    private static final class View<K, V, T> extends AbstractCollection<T> {
+        private final Snapshot<K, V> snapshot;
+        private final Function<Entry<K, V>, T> projection;
+
+        private View(Snapshot<K, V> snapshot, Function<Entry<K, V>, T> projection) {
+            this.snapshot = snapshot;
+            this.projection = projection;
+        }
+
+        @Override
+        public int size() {
+            return this.snapshot.size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int index = this.advance(0);
+
+                private int advance(int from) {
+                    while (from < snapshot.length && !snapshot.isVisible(snapshot.entries[from])) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return this.index < snapshot.length;
+                }
+
+                @Override
+                public T next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    T value = projection.apply(snapshot.entries[this.index]);
+                    this.index = this.advance(this.index + 1);
+                    return value;
+                }
+            };
+        }
+    }
+}
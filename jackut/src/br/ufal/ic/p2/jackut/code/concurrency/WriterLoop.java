@@ -0,0 +1,174 @@
+package br.ufal.ic.p2.jackut.code.concurrency;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Lao de escrita nico: os comandos que alteram o sistema so enfileirados em um buffer
+ * circular de capacidade fixa e aplicados, um a um e na ordem de chegada, por uma nica thread.
+ *
+ * Como s a thread de escrita altera o estado, os comandos so aplicados em uma ordem total e
+ * determinstica e nunca disputam travas entre si. A thread retira do buffer todos os comandos
+ * pendentes de uma vez, at o tamanho de um lote, o que reduz a sincronizao com quem envia.
+ * Quando o buffer est cheio, quem envia espera at haver espao.
+ *
+ * Depois de {@link #shutdown()}, a thread aplica os comandos j enfileirados e termina, e os
+ * comandos enviados a partir de ento so recusados.
+ */
+public class WriterLoop {
+    /**
+     * Capacidade padro do buffer de comandos, configurvel pela propriedade
+     * de sistema {@code jackut.escritor.capacidade}.
+     */
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("jackut.escritor.capacidade", 4096);
+
+    private static final int BATCH_SIZE = 256;
+
+    private final BlockingQueue<Task<?>> ring;
+    private final Thread writer;
+    private final Object submitLock;
+    private volatile boolean shutdown;
+    private boolean stopping;
+
+    /**
+     * Comando executado pela thread de escrita.
+     *
+     * @param <T> o tipo do resultado do comando.
+     */
+    @FunctionalInterface
+    public interface Command<T> {
+        T execute() throws AbstractException;
+    }
+
+    /**
+     * Constri o lao de escrita com a capacidade padro e inicia a sua thread.
+     */
+    public WriterLoop() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constri o lao de escrita e inicia a sua thread.
+     *
+     * @param capacity a quantidade mxima de comandos aguardando no buffer.
+     */
+    public WriterLoop(int capacity) {
+        this.ring = new ArrayBlockingQueue<>(capacity);
+        this.submitLock = new Object();
+        this.writer = new Thread(this::run, "jackut-escritor");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Envia um comando para ser aplicado pela thread de escrita. Se o comando for enviado
+     * pela prpria thread de escrita, ele  aplicado imediatamente, j que ela no pode
+     * esperar por si mesma.
+     *
+     * @param command o comando a ser aplicado.
+     * @param <T> o tipo do resultado do comando.
+     * @return o futuro que  completado com o resultado do comando ou com a exceo que ele lanou,
+     * ou com {@link RejectedExecutionException} se o lao j tiver sido encerrado.
+     */
+    public <T> CompletableFuture<T> submit(Command<T> command) {
+        Task<T> task = new Task<>(command);
+        if (Thread.currentThread() == this.writer) {
+            task.apply();
+            return task.result;
+        }
+        synchronized (this.submitLock) {
+            if (this.shutdown) {
+                task.result.completeExceptionally(new RejectedExecutionException());
+                return task.result;
+            }
+            try {
+                this.ring.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                task.result.completeExceptionally(e);
+            }
+        }
+        return task.result;
+    }
+
+    /**
+     * Encerra o lao de escrita. Os comandos enfileirados antes da chamada ainda so aplicados,
+     * e depois deles a thread de escrita termina. Chamadas repetidas no tm efeito.
+     */
+    public void shutdown() {
+        if (Thread.currentThread() == this.writer) {
+            this.shutdown = true;
+            this.stopping = true;
+            return;
+        }
+        synchronized (this.submitLock) {
+            if (this.shutdown) {
+                return;
+            }
+            this.shutdown = true;
+            try {
+                this.ring.put(new Task<>(() -> {
+                    this.stopping = true;
+                    return null;
+                }));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.writer.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Indica se a thread de escrita j terminou.
+     *
+     * @return true se a thread de escrita no estiver mais em execuo.
+     */
+    public boolean isTerminated() {
+        return !this.writer.isAlive();
+    }
+
+    private void run() {
+        List<Task<?>> batch = new ArrayList<>(BATCH_SIZE);
+        while (!this.stopping) {
+            try {
+                batch.add(this.ring.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            this.ring.drainTo(batch, BATCH_SIZE - 1);
+            for (Task<?> task : batch) {
+                task.apply();
+            }
+            batch.clear();
+        }
+
+        this.ring.drainTo(batch);
+        for (Task<?> task : batch) {
+            task.result.completeExceptionally(new RejectedExecutionException());
+        }
+    }
+
+    private static final class Task<T> {
+        private final Command<T> command;
+        private final CompletableFuture<T> result;
+
+        private Task(Command<T> command) {
+            this.command = command;
+            this.result = new CompletableFuture<>();
+        }
+
+        private void apply() {
+            try {
+                this.result.complete(this.command.execute());
+            } catch (AbstractException | RuntimeException | Error e) {
+                this.result.completeExceptionally(e);
+            }
+        }
+    }
+}
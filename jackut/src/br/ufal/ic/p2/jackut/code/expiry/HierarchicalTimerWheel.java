@@ -0,0 +1,222 @@
+package br.ufal.ic.p2.jackut.code.expiry;
+
+import java.util.function.Consumer;
+
+/**
+ * Roda de temporizadores hierrquica, no estilo dos temporizadores do kernel Linux.
+ *
+ * O tempo  dividido em ticks de durao fixa. A roda possui {@value #LEVELS} nveis de
+ * {@value #SLOTS} posies cada: o primeiro nvel cobre os prximos 64 ticks com a resoluo
+ * de um tick, o segundo os prximos 64 ticks com resoluo de 64 ticks, e assim por diante.
+ * Agendar e cancelar um temporizador custa O(1); ao avanar, os temporizadores de um nvel
+ * superior so redistribudos para os nveis inferiores quando o nvel de baixo d uma volta.
+ *
+ * @param <T> o tipo do objeto associado a cada temporizador
+ */
+public class HierarchicalTimerWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    private final Timeout<T>[][] wheel;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Temporizador agendado na roda. Cada temporizador  um n de uma lista duplamente
+     * encadeada da posio onde est, o que permite remov-lo em O(1).
+     *
+     * @param <T> o tipo do objeto associado ao temporizador
+     */
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private Timeout<T>[] level;
+        private int slot;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Retorna o objeto associado ao temporizador.
+         *
+         * @return o objeto associado
+         */
+        public T getPayload() {
+            return this.payload;
+        }
+    }
+
+    /**
+     * Constri uma roda de temporizadores vazia.
+     *
+     * @param tickMillis a durao de um tick, em milissegundos
+     * @param nowMillis o instante atual, em milissegundos
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimerWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.wheel = (Timeout<T>[][]) new Timeout<?>[LEVELS][SLOTS];
+        this.currentTick = nowMillis / tickMillis;
+        this.size = 0;
+    }
+
+    /**
+     * Agenda um temporizador para o instante informado.
+     *
+     * @param payload o objeto entregue quando o temporizador expirar
+     * @param deadlineMillis o instante de expirao, em milissegundos
+     * @return o temporizador agendado, que pode ser usado para cancel-lo
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadlineMillis) {
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis, this.tickMillis), this.currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(payload, deadlineTick);
+        this.insert(timeout);
+        this.size++;
+        return timeout;
+    }
+
+    /**
+     * Cancela um temporizador ainda no expirado.
+     *
+     * @param timeout o temporizador a ser cancelado
+     * @return true se o temporizador foi cancelado, false se j havia expirado ou sido cancelado
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.level == null) {
+            return false;
+        }
+        this.unlink(timeout);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Avana a roda at o instante informado, entregando ao consumidor os objetos de todos os
+     * temporizadores que expiraram.
+     *
+     * @param nowMillis o instante atual, em milissegundos
+     * @param expired o consumidor dos objetos expirados
+     */
+    public synchronized void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / this.tickMillis;
+        while (this.currentTick < targetTick) {
+            if (this.size == 0) {
+                this.currentTick = targetTick;
+                return;
+            }
+            this.currentTick++;
+            this.cascade();
+            int slot = (int) (this.currentTick & SLOT_MASK);
+            Timeout<T> first = this.wheel[0][slot];
+            this.wheel[0][slot] = null;
+            for (Timeout<T> timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.level = null;
+                this.size--;
+            }
+            while (first != null) {
+                Timeout<T> next = first.next;
+                first.previous = null;
+                first.next = null;
+                expired.accept(first.payload);
+                first = next;
+            }
+        }
+    }
+
+    /**
+     * Retorna a quantidade de temporizadores agendados.
+     *
+     * @return a quantidade de temporizadores ainda no expirados nem cancelados
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Cancela todos os temporizadores agendados.
+     */
+    public synchronized void clear() {
+        for (Timeout<T>[] level : this.wheel) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                for (Timeout<T> timeout = level[slot]; timeout != null; timeout = timeout.next) {
+                    timeout.level = null;
+                }
+                level[slot] = null;
+            }
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Quando um nvel completa uma volta, redistribui para os nveis inferiores os temporizadores
+     * da posio atual do nvel seguinte. Os nveis so percorridos de baixo para cima, do
+     * segundo ao ltimo, parando no primeiro cujo nvel anterior ainda no completou a volta.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((this.currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            int slot = (int) ((this.currentTick >>> shift) & SLOT_MASK);
+            Timeout<T> timeout = this.wheel[level][slot];
+            this.wheel[level][slot] = null;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.previous = null;
+                timeout.next = null;
+                timeout.level = null;
+                this.insert(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void insert(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - this.currentTick;
+        long tick = delta > MAX_DELTA ? this.currentTick + MAX_DELTA : Math.max(timeout.deadlineTick, this.currentTick);
+        delta = tick - this.currentTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        Timeout<T>[] slots = this.wheel[level];
+        timeout.level = slots;
+        timeout.slot = slot;
+        timeout.previous = null;
+        timeout.next = slots[slot];
+        if (slots[slot] != null) {
+            slots[slot].previous = timeout;
+        }
+        slots[slot] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            timeout.level[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.level = null;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
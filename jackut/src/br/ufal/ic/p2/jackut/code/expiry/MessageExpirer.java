@@ -0,0 +1,167 @@
+package br.ufal.ic.p2.jackut.code.expiry;
+
+import br.ufal.ic.p2.jackut.code.message.Message;
+import br.ufal.ic.p2.jackut.code.user.User;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Responsvel por descartar as mensagens com validade depois que expiram.
+ *
+ * Cada mensagem temporria  agendada em uma {@link HierarchicalTimerWheel}. Uma tarefa em
+ * segundo plano avana a roda periodicamente e, para cada lote de mensagens expiradas, limpa
+ * uma nica vez as caixas de cada destinatrio afetado, sem percorrer as caixas dos demais
+ * usurios. As caixas tambm descartam mensagens expiradas no momento da leitura, o que cobre
+ * mensagens carregadas do disco depois de um reincio.
+ *
+ * Cada destinatrio que l a mensagem deixa de ser referenciado pelo temporizador, e quando
+ * todos a leram, ou quando o remetente  removido do sistema, o temporizador  cancelado.
+ */
+public class MessageExpirer {
+    private static final long TICK_MILLIS = 100;
+
+    private final HierarchicalTimerWheel<Expiry> wheel;
+    private final Map<Long, HierarchicalTimerWheel.Timeout<Expiry>> scheduled;
+    private ScheduledExecutorService reaper;
+
+    /**
+     * Mensagem agendada para expirar, junto com os usurios que a receberam.
+     */
+    private static final class Expiry {
+        private final Message message;
+        private final Set<User> recipients;
+
+        private Expiry(Message message, Collection<User> recipients) {
+            this.message = message;
+            this.recipients = Collections.newSetFromMap(new IdentityHashMap<>());
+            this.recipients.addAll(recipients);
+        }
+
+        /**
+         * Deixa de referenciar um destinatrio.
+         *
+         * @param recipient o destinatrio
+         * @return true se no restar nenhum destinatrio
+         */
+        private synchronized boolean remove(User recipient) {
+            this.recipients.remove(recipient);
+            return this.recipients.isEmpty();
+        }
+
+        private synchronized void addRecipientsTo(Set<User> affected) {
+            affected.addAll(this.recipients);
+        }
+    }
+
+    /**
+     * Constri um agendador de expirao sem mensagens agendadas. A tarefa em segundo plano
+     * s  iniciada quando a primeira mensagem temporria  agendada.
+     */
+    public MessageExpirer() {
+        this.wheel = new HierarchicalTimerWheel<>(TICK_MILLIS, System.currentTimeMillis());
+        this.scheduled = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Agenda a expirao de uma mensagem temporria entregue aos usurios informados.
+     *
+     * @param message a mensagem com validade definida
+     * @param recipients os usurios que receberam a mensagem
+     */
+    public void schedule(Message message, Collection<User> recipients) {
+        this.scheduled.put(message.getSequence(), this.wheel.schedule(new Expiry(message, recipients), message.getExpiresAt()));
+        this.startReaper();
+    }
+
+    /**
+     * Registra que um destinatrio leu uma mensagem. Quando todos os destinatrios de uma
+     * mensagem temporria a leram, sua expirao deixa de ser necessria e  cancelada.
+     *
+     * @param message a mensagem lida
+     * @param recipient o usurio que a leu
+     */
+    public void read(Message message, User recipient) {
+        if (message.getExpiresAt() == 0) {
+            return;
+        }
+        HierarchicalTimerWheel.Timeout<Expiry> timeout = this.scheduled.get(message.getSequence());
+        if (timeout != null && timeout.getPayload().remove(recipient)) {
+            this.cancel(message.getSequence(), timeout);
+        }
+    }
+
+    /**
+     * Esquece um usurio removido do sistema: cancela a expirao das mensagens que ele enviou,
+     * j retiradas das caixas dos destinatrios, e deixa de referenci-lo como destinatrio.
+     *
+     * @param user o usurio removido
+     */
+    public void forget(User user) {
+        for (Map.Entry<Long, HierarchicalTimerWheel.Timeout<Expiry>> entry : this.scheduled.entrySet()) {
+            Expiry expiry = entry.getValue().getPayload();
+            if (user.getLogin().equals(expiry.message.getSenderLogin()) || expiry.remove(user)) {
+                this.cancel(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void cancel(long sequence, HierarchicalTimerWheel.Timeout<Expiry> timeout) {
+        if (this.scheduled.remove(sequence, timeout)) {
+            this.wheel.cancel(timeout);
+        }
+    }
+
+    /**
+     * Avana a roda at o instante informado e descarta as mensagens expiradas das caixas
+     * dos usurios que as receberam.
+     *
+     * @param nowMillis o instante atual, em milissegundos
+     */
+    public void expire(long nowMillis) {
+        Set<User> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.wheel.advance(nowMillis, expiry -> {
+            this.scheduled.remove(expiry.message.getSequence());
+            expiry.addRecipientsTo(affected);
+        });
+        for (User user : affected) {
+            user.purgeExpiredMessages(nowMillis);
+        }
+    }
+
+    /**
+     * Cancela todas as expiraes agendadas e encerra a tarefa em segundo plano.
+     */
+    public synchronized void clear() {
+        this.wheel.clear();
+        this.scheduled.clear();
+        if (this.reaper != null) {
+            this.reaper.shutdownNow();
+            this.reaper = null;
+        }
+    }
+
+    private synchronized void startReaper() {
+        if (this.reaper == null) {
+            this.reaper = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "jackut-expiracao");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.reaper.scheduleWithFixedDelay(() -> {
+                try {
+                    this.expire(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package br.ufal.ic.p2.jackut.code.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para a entrega de uma mensagem a todos os membros de uma comunidade.
+ */
+@Name("br.ufal.ic.p2.jackut.CommunityFanOut")
+@Label("Entrega de mensagem de comunidade")
+@Category({"Jackut", "Comunidades"})
+public class CommunityFanOutEvent extends Event {
+    @Label("Comunidade")
+    public String community;
+
+    @Label("Membros alcanados")
+    public int membersReached;
+
+    @Label("Sequncia da mensagem")
+    public long sequence;
+}
@@ -0,0 +1,25 @@
+package br.ufal.ic.p2.jackut.code.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder para a busca do usurio dono de uma sesso. O identificador da
+ * sesso no  gravado, apenas o login encontrado. Assim como {@link UserLookupEvent}, vem desativado.
+ */
+@Name("br.ufal.ic.p2.jackut.SessionLookup")
+@Label("Busca de usurio por sesso")
+@Category({"Jackut", "Sesses"})
+@Enabled(false)
+@StackTrace(false)
+public class SessionLookupEvent extends Event {
+    @Label("Login")
+    public String login;
+
+    @Label("Encontrado")
+    public boolean found;
+}
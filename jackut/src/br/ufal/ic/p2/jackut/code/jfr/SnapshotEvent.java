@@ -0,0 +1,25 @@
+package br.ufal.ic.p2.jackut.code.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para a gravao ou a leitura de um arquivo de dados do sistema.
+ */
+@Name("br.ufal.ic.p2.jackut.Snapshot")
+@Label("Persistncia de dados")
+@Category({"Jackut", "Persistncia"})
+public class SnapshotEvent extends Event {
+    @Label("Arquivo")
+    public String file;
+
+    @Label("Operao")
+    public String operation;
+
+    @Label("Tamanho")
+    @DataAmount
+    public long bytes;
+}
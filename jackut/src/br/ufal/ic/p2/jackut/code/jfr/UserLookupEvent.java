@@ -0,0 +1,26 @@
+package br.ufal.ic.p2.jackut.code.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder para a busca de um usurio pelo login. Como a busca acontece em
+ * quase todas as operaes, o evento vem desativado e deve ser ativado explicitamente nas
+ * configuraes da gravao.
+ */
+@Name("br.ufal.ic.p2.jackut.UserLookup")
+@Label("Busca de usurio por login")
+@Category({"Jackut", "Usurios"})
+@Enabled(false)
+@StackTrace(false)
+public class UserLookupEvent extends Event {
+    @Label("Login")
+    public String login;
+
+    @Label("Encontrado")
+    public boolean found;
+}
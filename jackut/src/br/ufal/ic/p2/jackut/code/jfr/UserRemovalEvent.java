@@ -0,0 +1,27 @@
+package br.ufal.ic.p2.jackut.code.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para a remoo de um usurio e de tudo o que depende dele:
+ * comunidades de que  dono, participaes, mensagens enviadas e relaes nos demais usurios.
+ */
+@Name("br.ufal.ic.p2.jackut.UserRemoval")
+@Label("Remoo de usurio")
+@Category({"Jackut", "Usurios"})
+public class UserRemovalEvent extends Event {
+    @Label("Login")
+    public String login;
+
+    @Label("Usurios percorridos")
+    public int usersScanned;
+
+    @Label("Comunidades dissolvidas")
+    public int communitiesDissolved;
+
+    @Label("Comunidades deixadas")
+    public int communitiesLeft;
+}
@@ -1,16 +1,23 @@
 package br.ufal.ic.p2.jackut.code.message;
 
 import br.ufal.ic.p2.jackut.code.community.Community;
+import br.ufal.ic.p2.jackut.code.jfr.CommunityFanOutEvent;
 import br.ufal.ic.p2.jackut.code.user.User;
 
 /**
  * Representa uma mensagem enviada para uma comunidade.
  * A mensagem  enviada a todos os membros da comunidade.
+ *
+ * @see br.ufal.ic.p2.jackut.code.persistence.LegacyFields
  */
-public class CommunityMessage implements Message {
+public class CommunityMessage implements OutgoingMessage {
     private User sender;
     private Community community;
     private String message;
+    private long sequence;
+    private long timestamp;
+    private long expiresAt;
+    private static final long serialVersionUID = -9040412325434250286L;
 
     /**
      * Construtor da classe CommunityMessage.
@@ -18,11 +25,28 @@ public class CommunityMessage implements Message {
      * @param sender o usurio que est enviando a mensagem
      * @param community a comunidade para a qual a mensagem ser enviada
      * @param message o contedo da mensagem
+     * @param sequence o nmero de sequncia atribudo  mensagem
      */
-    public CommunityMessage(User sender, Community community, String message) {
+    public CommunityMessage(User sender, Community community, String message, long sequence) {
+        this(sender, community, message, sequence, 0);
+    }
+
+    /**
+     * Construtor da classe CommunityMessage para mensagens com validade.
+     *
+     * @param sender o usurio que est enviando a mensagem
+     * @param community a comunidade para a qual a mensagem ser enviada
+     * @param message o contedo da mensagem
+     * @param sequence o nmero de sequncia atribudo  mensagem
+     * @param ttlMillis a validade da mensagem em milissegundos, ou zero se ela no expira
+     */
+    public CommunityMessage(User sender, Community community, String message, long sequence, long ttlMillis) {
         this.sender = sender;
         this.community = community;
         this.message = message;
+        this.sequence = sequence;
+        this.timestamp = System.currentTimeMillis();
+        this.expiresAt = ttlMillis > 0 ? this.timestamp + ttlMillis : 0;
     }
 
     @Override
@@ -31,14 +55,50 @@ public class CommunityMessage implements Message {
     }
 
     @Override
-    public User getSender() {
-        return this.sender;
+    public String getSenderLogin() {
+        return this.sender.getLogin();
+    }
+
+    /**
+     * Grava a mensagem como uma {@link StoredMessage}, apenas com o login do remetente, para que
+     * a serializao de uma caixa de mensagens no siga para o remetente e os dados dele.
+     *
+     * @return a mensagem a ser gravada no lugar desta
+     */
+    private Object writeReplace() {
+        return new StoredMessage(this.getSenderLogin(), this.message, this.sequence, this.timestamp, this.expiresAt);
+    }
+
+    @Override
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    public long getExpiresAt() {
+        return this.expiresAt;
     }
 
     @Override
     public void send() {
-        for (User user : community.getMemberList()) {
+        CommunityFanOutEvent event = new CommunityFanOutEvent();
+        event.begin();
+        int reached = 0;
+        for (User user : community.getMembers()) {
             user.receiveCommunityMessage(this);
+            reached++;
+        }
+        community.recordMessage(this);
+        if (event.shouldCommit()) {
+            event.community = community.getCommunityName();
+            event.membersReached = reached;
+            event.sequence = this.sequence;
+            event.commit();
         }
     }
 }
@@ -0,0 +1,234 @@
+package br.ufal.ic.p2.jackut.code.message;
+
+import java.io.File;
+import java.io.Serializable;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Caixa de mensagens de um usurio, lida em ordem de chegada.
+ *
+ * Apenas as primeiras mensagens, at o limite configurado, ficam em memria. As demais so
+ * gravadas em um arquivo de transbordo do usurio e trazidas de volta para a memria, em
+ * pginas,  medida que as mensagens em memria so lidas. Assim o consumo de memria de
+ * cada caixa fica limitado, no importa quantas mensagens no lidas existam.
+ *
+ * Mensagens com validade vencida nunca so entregues: elas so descartadas ao serem lidas
+ * e podem ser removidas antecipadamente por {@link #purgeExpired(long)}.
+ */
+public class Mailbox implements Serializable {
+    /**
+     * Diretrio onde ficam os arquivos de transbordo das caixas de mensagens.
+     */
+    public static final String OVERFLOW_DIRECTORY = "data/mailbox";
+
+    /**
+     * Limite padro de mensagens mantidas em memria por caixa. Pode ser alterado
+     * pela propriedade de sistema {@code jackut.caixa.limite}.
+     */
+    public static final int DEFAULT_LIMIT = Integer.getInteger("jackut.caixa.limite", 1000);
+
+    private final Deque<Message> head;
+    private final MailboxOverflowFile overflow;
+    private int limit;
+    private long overflowOffset;
+    private int overflowCount;
+
+    /**
+     * Constri uma caixa de mensagens vazia com o limite padro.
+     *
+     * @param ownerLogin o login do dono da caixa, usado para nomear o arquivo de transbordo
+     * @param kind o tipo da caixa (por exemplo, "recados" ou "comunidades")
+     */
+    public Mailbox(String ownerLogin, String kind) {
+        String fileName = URLEncoder.encode(ownerLogin, StandardCharsets.UTF_8) + "-" + kind + ".dat";
+        this.head = new ArrayDeque<>();
+        this.overflow = new MailboxOverflowFile(OVERFLOW_DIRECTORY + "/" + fileName);
+        this.limit = DEFAULT_LIMIT;
+        this.overflowOffset = 0;
+        this.overflowCount = 0;
+    }
+
+    /**
+     * Define a quantidade mxima de mensagens mantidas em memria. O novo limite vale para as
+     * prximas mensagens recebidas; as que j esto em memria permanecem nela.
+     *
+     * @param limit o novo limite, maior que zero
+     */
+    public synchronized void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Retorna a quantidade mxima de mensagens mantidas em memria.
+     *
+     * @return o limite da caixa
+     */
+    public synchronized int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Adiciona uma mensagem ao final da caixa. Se o limite em memria foi atingido, ou se j
+     * existem mensagens no disco, a mensagem  gravada no arquivo de transbordo para preservar
+     * a ordem de chegada.
+     *
+     * @param message a mensagem recebida
+     */
+    public synchronized void add(Message message) {
+        if (this.overflowCount == 0 && this.head.size() < this.limit) {
+            this.head.addLast(message);
+        } else {
+            this.overflow.append(message);
+            this.overflowCount++;
+        }
+    }
+
+    /**
+     * Remove e retorna a mensagem mais antiga da caixa, trazendo a prxima pgina do disco
+     * quando as mensagens em memria se esgotam.
+     *
+     * @return a mensagem mais antiga ainda vlida, ou null se no houver nenhuma
+     */
+    public synchronized Message poll() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            if (this.head.isEmpty() && this.overflowCount > 0) {
+                this.pageIn();
+            }
+            Message message = this.head.pollFirst();
+            if (message == null || !message.isExpired(now)) {
+                return message;
+            }
+        }
+    }
+
+    /**
+     * Verifica se a caixa est vazia.
+     *
+     * @return true se no houver mensagens na memria nem no disco
+     */
+    public synchronized boolean isEmpty() {
+        return this.head.isEmpty() && this.overflowCount == 0;
+    }
+
+    /**
+     * Retorna a quantidade total de mensagens na caixa.
+     *
+     * @return a quantidade de mensagens na memria e no disco
+     */
+    public synchronized int size() {
+        return this.head.size() + this.overflowCount;
+    }
+
+    /**
+     * Retorna, sem remov-las, as mensagens com sequncia maior que o cursor, em ordem de chegada.
+     * O arquivo de transbordo s  lido se as mensagens em memria no bastarem, e a leitura
+     * termina no fim do arquivo mesmo que ele tenha menos mensagens que o esperado.
+     *
+     * @param cursor a sequncia de referncia
+     * @param max a quantidade mxima de mensagens retornadas
+     * @return as mensagens posteriores ao cursor
+     */
+    public synchronized List<Message> since(long cursor, int max) {
+        long now = System.currentTimeMillis();
+        List<Message> messages = new ArrayList<>();
+        for (Message message : this.head) {
+            if (messages.size() == max) {
+                return messages;
+            }
+            if (message.getSequence() > cursor && !message.isExpired(now)) {
+                messages.add(message);
+            }
+        }
+
+        long offset = this.overflowOffset;
+        int remaining = this.overflowCount;
+        List<Message> page = new ArrayList<>();
+        while (messages.size() < max && remaining > 0) {
+            page.clear();
+            offset = this.overflow.read(offset, Math.min(remaining, this.limit), page);
+            if (page.isEmpty()) {
+                break;
+            }
+            remaining -= page.size();
+            for (Message message : page) {
+                if (messages.size() < max && message.getSequence() > cursor && !message.isExpired(now)) {
+                    messages.add(message);
+                }
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Remove da caixa, na memria e no disco, todas as mensagens enviadas por um usurio.
+     *
+     * @param senderLogin o login do remetente cujas mensagens sero removidas
+     */
+    public synchronized void removeMessagesFrom(String senderLogin) {
+        this.head.removeIf(message -> senderLogin.equals(message.getSenderLogin()));
+        if (this.overflowCount > 0) {
+            this.overflowCount = this.overflow.rewrite(this.overflowOffset, message -> !senderLogin.equals(message.getSenderLogin()));
+            this.overflowOffset = 0;
+            if (this.overflowCount == 0) {
+                this.overflow.delete();
+            }
+        }
+    }
+
+    /**
+     * Remove da memria as mensagens cuja validade j passou. As mensagens no disco so
+     * descartadas quando forem trazidas de volta para a memria.
+     *
+     * @param now o instante de referncia, em milissegundos desde a poca Unix
+     * @return a quantidade de mensagens removidas
+     */
+    public synchronized int purgeExpired(long now) {
+        int before = this.head.size();
+        this.head.removeIf(message -> message.isExpired(now));
+        return before - this.head.size();
+    }
+
+    /**
+     * Esvazia a caixa e apaga seu arquivo de transbordo.
+     */
+    public synchronized void discard() {
+        this.head.clear();
+        this.overflow.delete();
+        this.overflowOffset = 0;
+        this.overflowCount = 0;
+    }
+
+    /**
+     * Apaga todos os arquivos de transbordo do diretrio de caixas de mensagens.
+     */
+    public static void clearOverflowDirectory() {
+        File[] files = new File(OVERFLOW_DIRECTORY).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Traz do disco para a memria a prxima pgina de mensagens, de tamanho igual ao limite.
+     * Quando todas as mensagens do disco j foram lidas, o arquivo de transbordo  apagado.
+     * Se o arquivo terminar antes do esperado, as mensagens que faltam so dadas como perdidas.
+     */
+    private void pageIn() {
+        List<Message> page = new ArrayList<>();
+        this.overflowOffset = this.overflow.read(this.overflowOffset, Math.min(this.overflowCount, this.limit), page);
+        this.overflowCount = page.isEmpty() ? 0 : this.overflowCount - page.size();
+        this.head.addAll(page);
+        if (this.overflowCount == 0) {
+            this.overflow.delete();
+            this.overflowOffset = 0;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package br.ufal.ic.p2.jackut.code.message;
+
+import java.io.*;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Arquivo binrio, apenas de acrscimo, que guarda as mensagens que excederam o limite
+ * em memria de uma caixa de mensagens. Cada registro  precedido pelo seu tamanho e contm
+ * a sequncia, os instantes de criao e de expirao, o login do remetente e o contedo da mensagem.
+ */
+public class MailboxOverflowFile implements Serializable {
+    private final String filePath;
+
+    /**
+     * Constri o arquivo de transbordo no caminho especificado. O arquivo s  criado
+     * no disco quando a primeira mensagem  gravada.
+     *
+     * @param filePath o caminho do arquivo de transbordo
+     */
+    public MailboxOverflowFile(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Acrescenta uma mensagem ao final do arquivo.
+     *
+     * @param message a mensagem a ser gravada
+     * @return a posio, em bytes, do registro gravado
+     * @throws UncheckedIOException se ocorrer um erro de escrita
+     */
+    public long append(Message message) {
+        File file = new File(this.filePath);
+        file.getParentFile().mkdirs();
+        long offset = file.length();
+        try (OutputStream output = new FileOutputStream(file, true)) {
+            output.write(encode(message));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return offset;
+    }
+
+    /**
+     * Percorre os registros do arquivo, lendo apenas o tamanho de cada um, e entrega as posies
+     * de um a cada {@code step} registros, a comear pelo primeiro.
+     *
+     * @param count a quantidade de registros do arquivo
+     * @param step o intervalo, em registros, entre as posies entregues
+     * @param offsets recebe as posies, em bytes, dos registros de nmero 0, step, 2 * step, ..., em ordem de gravao
+     * @throws UncheckedIOException se ocorrer um erro de leitura
+     */
+    public void index(long count, int step, LongConsumer offsets) {
+        try (RandomAccessFile file = new RandomAccessFile(this.filePath, "r")) {
+            for (long i = 0; i < count; i++) {
+                long offset = file.getFilePointer();
+                if (i % step == 0) {
+                    offsets.accept(offset);
+                }
+                file.seek(offset + Integer.BYTES + file.readInt());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * L at {@code max} mensagens a partir da posio informada.
+     *
+     * @param offset a posio, em bytes, do primeiro registro a ser lido
+     * @param max a quantidade mxima de mensagens a serem lidas
+     * @param into a lista que recebe as mensagens lidas
+     * @return a posio do registro seguinte ao ltimo lido
+     * @throws UncheckedIOException se ocorrer um erro de leitura
+     */
+    public long read(long offset, int max, List<Message> into) {
+        try (RandomAccessFile file = new RandomAccessFile(this.filePath, "r")) {
+            file.seek(offset);
+            for (int read = 0; read < max && file.getFilePointer() < file.length(); read++) {
+                into.add(readRecord(file));
+            }
+            return file.getFilePointer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reescreve o arquivo a partir da posio informada, mantendo apenas as mensagens aceitas
+     * pelo filtro. Aps a reescrita, os registros mantidos comeam na posio zero.
+     *
+     * @param offset a posio do primeiro registro ainda no lido
+     * @param keep o filtro das mensagens que devem permanecer
+     * @return a quantidade de mensagens mantidas
+     * @throws UncheckedIOException se ocorrer um erro de leitura ou escrita
+     */
+    public int rewrite(long offset, Predicate<Message> keep) {
+        File file = new File(this.filePath);
+        File temporary = new File(this.filePath + ".tmp");
+        int kept = 0;
+        try (RandomAccessFile source = new RandomAccessFile(file, "r");
+             OutputStream output = new BufferedOutputStream(new FileOutputStream(temporary))) {
+            source.seek(offset);
+            while (source.getFilePointer() < source.length()) {
+                Message message = readRecord(source);
+                if (keep.test(message)) {
+                    output.write(encode(message));
+                    kept++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        file.delete();
+        temporary.renameTo(file);
+        return kept;
+    }
+
+    /**
+     * Apaga o arquivo de transbordo do disco.
+     */
+    public void delete() {
+        new File(this.filePath).delete();
+    }
+
+    private static byte[] encode(Message message) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeLong(message.getSequence());
+        data.writeLong(message.getTimestamp());
+        data.writeLong(message.getExpiresAt());
+        data.writeUTF(message.getSenderLogin());
+        byte[] content = message.getMessage().getBytes("UTF-8");
+        data.writeInt(content.length);
+        data.write(content);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payload.size() + Integer.BYTES);
+        new DataOutputStream(record).writeInt(payload.size());
+        payload.writeTo(record);
+        return record.toByteArray();
+    }
+
+    private static Message readRecord(RandomAccessFile file) throws IOException {
+        byte[] payload = new byte[file.readInt()];
+        file.readFully(payload);
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = data.readLong();
+        long timestamp = data.readLong();
+        long expiresAt = data.readLong();
+        String senderLogin = data.readUTF();
+        byte[] content = new byte[data.readInt()];
+        data.readFully(content);
+        return new StoredMessage(senderLogin, new String(content, "UTF-8"), sequence, timestamp, expiresAt);
+    }
+}
@@ -1,11 +1,11 @@
 package br.ufal.ic.p2.jackut.code.message;
 
-import br.ufal.ic.p2.jackut.code.user.User;
 import java.io.Serializable;
 
 /**
  * Interface que representa uma mensagem enviada por um usurio.
- * Define os comportamentos essenciais para diferentes tipos de mensagens.
+ * Define os comportamentos essenciais para diferentes tipos de mensagens. As mensagens que
+ * ainda sero enviadas implementam tambm {@link OutgoingMessage}.
  */
 public interface Message extends Serializable {
 
@@ -17,15 +17,41 @@ public interface Message extends Serializable {
     String getMessage();
 
     /**
-     * Retorna o remetente da mensagem.
+     * Retorna o login do remetente da mensagem.
      *
-     * @return o objeto User que enviou a mensagem
+     * @return o login do usurio que enviou a mensagem
      */
-    User getSender();
+    String getSenderLogin();
 
     /**
-     * Mtodo para enviar a mensagem.
-     * Implementado de forma diferente para cada tipo de mensagem.
+     * Retorna o nmero de sequncia da mensagem.
+     * Mensagens enviadas depois possuem nmeros de sequncia maiores.
+     *
+     * @return o nmero de sequncia da mensagem
+     */
+    long getSequence();
+
+    /**
+     * Retorna o instante em que a mensagem foi criada.
+     *
+     * @return o instante de criao da mensagem, em milissegundos desde a poca Unix
+     */
+    long getTimestamp();
+
+    /**
+     * Retorna o instante a partir do qual a mensagem deixa de ser entregue.
+     *
+     * @return o instante de expirao, em milissegundos desde a poca Unix, ou zero se a mensagem no expira
+     */
+    long getExpiresAt();
+
+    /**
+     * Verifica se a mensagem j expirou no instante informado.
+     *
+     * @param now o instante de referncia, em milissegundos desde a poca Unix
+     * @return true se a mensagem tiver validade e ela j tiver passado
      */
-    void send();
+    default boolean isExpired(long now) {
+        return this.getExpiresAt() != 0 && this.getExpiresAt() <= now;
+    }
 }
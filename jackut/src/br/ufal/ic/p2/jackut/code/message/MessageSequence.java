@@ -0,0 +1,44 @@
+package br.ufal.ic.p2.jackut.code.message;
+
+import java.io.Serializable;
+
+/**
+ * Gera os nmeros de sequncia das mensagens do sistema.
+ * Cada mensagem enviada recebe um nmero maior que o de todas as anteriores,
+ * o que permite aos clientes sincronizar suas caixas de entrada a partir de um cursor.
+ */
+public class MessageSequence implements Serializable {
+    private long lastSequence;
+
+    /**
+     * Constri um novo gerador de sequncia comeando do zero.
+     */
+    public MessageSequence() {
+        this.lastSequence = 0;
+    }
+
+    /**
+     * Retorna o prximo nmero de sequncia disponvel.
+     *
+     * @return um nmero de sequncia maior que todos os j emitidos.
+     */
+    public synchronized long next() {
+        return ++this.lastSequence;
+    }
+
+    /**
+     * Retorna o ltimo nmero de sequncia emitido.
+     *
+     * @return o ltimo nmero de sequncia emitido, ou zero se nenhum foi emitido.
+     */
+    public synchronized long getLastSequence() {
+        return this.lastSequence;
+    }
+
+    /**
+     * Reinicia o gerador de sequncia.
+     */
+    public synchronized void reset() {
+        this.lastSequence = 0;
+    }
+}
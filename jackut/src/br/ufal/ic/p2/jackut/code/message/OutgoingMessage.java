@@ -0,0 +1,13 @@
+package br.ufal.ic.p2.jackut.code.message;
+
+/**
+ * Mensagem recm-criada, que ainda ser entregue aos destinatrios.
+ */
+public interface OutgoingMessage extends Message {
+
+    /**
+     * Mtodo para enviar a mensagem.
+     * Implementado de forma diferente para cada tipo de mensagem.
+     */
+    void send();
+}
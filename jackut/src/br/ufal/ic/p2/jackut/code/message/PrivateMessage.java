@@ -4,11 +4,17 @@ import br.ufal.ic.p2.jackut.code.user.User;
 
 /**
  * Representa uma mensagem privada enviada de um usurio para outro.
+ *
+ * @see br.ufal.ic.p2.jackut.code.persistence.LegacyFields
  */
-public class PrivateMessage implements Message {
+public class PrivateMessage implements OutgoingMessage {
     private User sender;
     private User receiver;
     private String message;
+    private long sequence;
+    private long timestamp;
+    private long expiresAt;
+    private static final long serialVersionUID = -2031745004450952486L;
 
     /**
      * Construtor da classe PrivateMessage.
@@ -16,11 +22,28 @@ public class PrivateMessage implements Message {
      * @param sender o usurio que envia a mensagem
      * @param receiver o usurio que recebe a mensagem
      * @param message o contedo da mensagem
+     * @param sequence o nmero de sequncia atribudo  mensagem
      */
-    public PrivateMessage(User sender, User receiver, String message) {
+    public PrivateMessage(User sender, User receiver, String message, long sequence) {
+        this(sender, receiver, message, sequence, 0);
+    }
+
+    /**
+     * Construtor da classe PrivateMessage para mensagens com validade.
+     *
+     * @param sender o usurio que envia a mensagem
+     * @param receiver o usurio que recebe a mensagem
+     * @param message o contedo da mensagem
+     * @param sequence o nmero de sequncia atribudo  mensagem
+     * @param ttlMillis a validade da mensagem em milissegundos, ou zero se ela no expira
+     */
+    public PrivateMessage(User sender, User receiver, String message, long sequence, long ttlMillis) {
         this.sender = sender;
         this.receiver = receiver;
         this.message = message;
+        this.sequence = sequence;
+        this.timestamp = System.currentTimeMillis();
+        this.expiresAt = ttlMillis > 0 ? this.timestamp + ttlMillis : 0;
     }
 
     @Override
@@ -29,8 +52,33 @@ public class PrivateMessage implements Message {
     }
 
     @Override
-    public User getSender() {
-        return this.sender;
+    public String getSenderLogin() {
+        return this.sender.getLogin();
+    }
+
+    /**
+     * Grava a mensagem como uma {@link StoredMessage}, apenas com o login do remetente, para que
+     * a serializao de uma caixa de mensagens no siga para o remetente e os dados dele.
+     *
+     * @return a mensagem a ser gravada no lugar desta
+     */
+    private Object writeReplace() {
+        return new StoredMessage(this.getSenderLogin(), this.message, this.sequence, this.timestamp, this.expiresAt);
+    }
+
+    @Override
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    public long getExpiresAt() {
+        return this.expiresAt;
     }
 
     @Override
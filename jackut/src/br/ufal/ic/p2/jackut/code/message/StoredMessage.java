@@ -0,0 +1,58 @@
+package br.ufal.ic.p2.jackut.code.message;
+
+/**
+ * Representa uma mensagem j entregue, na forma em que  guardada: no arquivo de transbordo de
+ * uma caixa de mensagens, no histrico de uma comunidade e nos dados gravados do sistema, onde
+ * recados e mensagens de comunidades so gravados nesta forma. Apenas o login do remetente 
+ * guardado, e a mensagem no pode ser enviada novamente.
+ */
+public class StoredMessage implements Message {
+    private final String senderLogin;
+    private final String message;
+    private final long sequence;
+    private final long timestamp;
+    private final long expiresAt;
+    private static final long serialVersionUID = 321144381228699811L;
+
+    /**
+     * Construtor da classe StoredMessage.
+     *
+     * @param senderLogin o login do usurio que enviou a mensagem
+     * @param message o contedo da mensagem
+     * @param sequence o nmero de sequncia da mensagem
+     * @param timestamp o instante de criao da mensagem
+     * @param expiresAt o instante de expirao da mensagem, ou zero se ela no expira
+     */
+    public StoredMessage(String senderLogin, String message, long sequence, long timestamp, long expiresAt) {
+        this.senderLogin = senderLogin;
+        this.message = message;
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getMessage() {
+        return this.message;
+    }
+
+    @Override
+    public String getSenderLogin() {
+        return this.senderLogin;
+    }
+
+    @Override
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    public long getExpiresAt() {
+        return this.expiresAt;
+    }
+}
@@ -0,0 +1,372 @@
+package br.ufal.ic.p2.jackut.code.metrics;
+
+import br.ufal.ic.p2.jackut.code.Jackut;
+import br.ufal.ic.p2.jackut.code.subscription.MessageListener;
+import br.ufal.ic.p2.jackut.exceptions.community.CommunityAlredyExistException;
+import br.ufal.ic.p2.jackut.exceptions.community.CommunityNotExistException;
+import br.ufal.ic.p2.jackut.exceptions.community.NotCommunityOwnerException;
+import br.ufal.ic.p2.jackut.exceptions.community.UserAlredyJoinedCommunityException;
+import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginException;
+import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginOrPasswordException;
+import br.ufal.ic.p2.jackut.exceptions.login.InvalidPasswordException;
+import br.ufal.ic.p2.jackut.exceptions.login.LoginAlredyUsedException;
+import br.ufal.ic.p2.jackut.exceptions.login.UserNotRegisteredException;
+import br.ufal.ic.p2.jackut.exceptions.message.InvalidExpirationException;
+import br.ufal.ic.p2.jackut.exceptions.message.NoCommunityMessageException;
+import br.ufal.ic.p2.jackut.exceptions.message.NoPrivateMessageException;
+import br.ufal.ic.p2.jackut.exceptions.paging.InvalidLimitException;
+import br.ufal.ic.p2.jackut.exceptions.paging.InvalidOffsetException;
+import br.ufal.ic.p2.jackut.exceptions.ratelimit.RateLimitExceededException;
+import br.ufal.ic.p2.jackut.exceptions.ratelimit.UnknownOperationException;
+import br.ufal.ic.p2.jackut.exceptions.relations.*;
+import br.ufal.ic.p2.jackut.exceptions.subscription.NoNotificationException;
+import br.ufal.ic.p2.jackut.exceptions.subscription.SubscriptionNotFoundException;
+import br.ufal.ic.p2.jackut.exceptions.user.UserAttributeNotFilledException;
+
+import java.io.IOException;
+
+/**
+ * Jackut instrumentado: cada operao pblica  delegada  implementao original e tem
+ * registradas a sua durao e, quando lana uma exceo, o tipo da exceo. Isso inclui os erros
+ * de negcio no checados, como {@link CommunityNotExistException}. O custo por chamada  o de
+ * duas leituras do relgio e alguns incrementos atmicos, sem travas. S no so instrumentados
+ * os indicadores lidos pelo prprio {@link JackutMetrics}, como {@link Jackut#countUsers()}.
+ *
+ * A {@link br.ufal.ic.p2.jackut.Facade} usa esta classe por padro, salvo com
+ * -Djackut.metricas=false, e publica as mtricas via JMX depois de constru-la. As sobrecargas
+ * de trs argumentos de getCommunityMembers e listCommunities so registradas com o sufixo "(3)".
+ */
+public class InstrumentedJackut extends Jackut {
+    private final JackutMetrics metrics;
+
+    /**
+     * Constri o sistema instrumentado, lendo os dados persistidos como o {@link Jackut}. As
+     * mtricas no so publicadas via JMX: para isso, use {@link JackutMetrics#register()}.
+     */
+    public InstrumentedJackut() {
+        super();
+        this.metrics = new JackutMetrics(this);
+    }
+
+    /**
+     * Retorna as mtricas desta instncia.
+     *
+     * @return as mtricas.
+     */
+    public JackutMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public void clearSystem() {
+        this.timed("clearSystem", () -> super.clearSystem());
+    }
+
+    @Override
+    public void closeSystem() {
+        this.timed("closeSystem", () -> super.closeSystem());
+    }
+
+    @Override
+    public void saveCheckpoint() {
+        this.timed("saveCheckpoint", () -> super.saveCheckpoint());
+    }
+
+    @Override
+    public void createUser(String login, String password, String userName) throws LoginAlredyUsedException, InvalidLoginException, InvalidPasswordException {
+        this.timed("createUser", () -> super.createUser(login, password, userName));
+    }
+
+    @Override
+    public String openSession(String login, String password) throws UserNotRegisteredException, InvalidLoginOrPasswordException {
+        return this.timed("openSession", () -> super.openSession(login, password));
+    }
+
+    @Override
+    public String getUserAttribute(String login, String atribute) throws UserNotRegisteredException, UserAttributeNotFilledException {
+        return this.timed("getUserAttribute", () -> super.getUserAttribute(login, atribute));
+    }
+
+    @Override
+    public void updateProfile(String sessionId, String atribute, String value) throws UserNotRegisteredException {
+        this.timed("updateProfile", () -> super.updateProfile(sessionId, atribute, value));
+    }
+
+    @Override
+    public boolean isFriend(String login, String friendLogin) throws UserNotRegisteredException {
+        return this.timed("isFriend", () -> super.isFriend(login, friendLogin));
+    }
+
+    @Override
+    public void addFriend(String sessionId, String receiverLogin) throws UserNotRegisteredException, UserAlredyAddedException, FriendRequestAlredySentException, YourselfFriendRequestException, UserAttributeNotFilledException, ThisUserIsYourEnemyException, RateLimitExceededException {
+        this.timed("addFriend", () -> super.addFriend(sessionId, receiverLogin));
+    }
+
+    @Override
+    public String getUserFriends(String login) throws UserNotRegisteredException {
+        return this.timed("getUserFriends", () -> super.getUserFriends(login));
+    }
+
+    @Override
+    public void sendPrivateMessage(String sessionId, String receiverLogin, String messageContent) throws UserNotRegisteredException, YourselfMessageException, UserAttributeNotFilledException, ThisUserIsYourEnemyException, RateLimitExceededException {
+        this.timed("sendPrivateMessage", () -> super.sendPrivateMessage(sessionId, receiverLogin, messageContent));
+    }
+
+    @Override
+    public void sendTemporaryPrivateMessage(String sessionId, String receiverLogin, String messageContent, int ttlSeconds) throws UserNotRegisteredException, YourselfMessageException, UserAttributeNotFilledException, ThisUserIsYourEnemyException, InvalidExpirationException, RateLimitExceededException {
+        this.timed("sendTemporaryPrivateMessage", () -> super.sendTemporaryPrivateMessage(sessionId, receiverLogin, messageContent, ttlSeconds));
+    }
+
+    @Override
+    public String readPrivateMessage(String sessionId) throws NoPrivateMessageException, UserNotRegisteredException {
+        return this.timed("readPrivateMessage", () -> super.readPrivateMessage(sessionId));
+    }
+
+    @Override
+    public String readMessagesSince(String sessionId, long cursor, int limit) throws UserNotRegisteredException, InvalidLimitException {
+        return this.timed("readMessagesSince", () -> super.readMessagesSince(sessionId, cursor, limit));
+    }
+
+    @Override
+    public void setMailboxLimit(String sessionId, int limit) throws UserNotRegisteredException, InvalidLimitException {
+        this.timed("setMailboxLimit", () -> super.setMailboxLimit(sessionId, limit));
+    }
+
+    @Override
+    public String subscribe(String sessionId, MessageListener listener) throws UserNotRegisteredException {
+        return this.timed("subscribe", () -> super.subscribe(sessionId, listener));
+    }
+
+    @Override
+    public String subscribeToQueue(String sessionId) throws UserNotRegisteredException {
+        return this.timed("subscribeToQueue", () -> super.subscribeToQueue(sessionId));
+    }
+
+    @Override
+    public String awaitMessage(String sessionId, String subscriptionId, int timeoutMillis) throws UserNotRegisteredException, SubscriptionNotFoundException, NoNotificationException {
+        return this.timed("awaitMessage", () -> super.awaitMessage(sessionId, subscriptionId, timeoutMillis));
+    }
+
+    @Override
+    public void unsubscribe(String sessionId, String subscriptionId) throws UserNotRegisteredException, SubscriptionNotFoundException {
+        this.timed("unsubscribe", () -> super.unsubscribe(sessionId, subscriptionId));
+    }
+
+    @Override
+    public void createCommunity(String sessionId, String communityName, String communityDescription) throws CommunityAlredyExistException, UserNotRegisteredException {
+        this.timed("createCommunity", () -> super.createCommunity(sessionId, communityName, communityDescription));
+    }
+
+    @Override
+    public String getCommunityDescription(String communityName) throws CommunityNotExistException {
+        return this.timed("getCommunityDescription", () -> super.getCommunityDescription(communityName));
+    }
+
+    @Override
+    public String getCommunityOwner(String communityName) throws CommunityNotExistException {
+        return this.timed("getCommunityOwner", () -> super.getCommunityOwner(communityName));
+    }
+
+    @Override
+    public String getCommunityMembers(String communityName) throws CommunityNotExistException {
+        return this.timed("getCommunityMembers", () -> super.getCommunityMembers(communityName));
+    }
+
+    @Override
+    public String getCommunityMembers(String communityName, int offset, int limit) throws CommunityNotExistException, InvalidOffsetException, InvalidLimitException {
+        return this.timed("getCommunityMembers(3)", () -> super.getCommunityMembers(communityName, offset, limit));
+    }
+
+    @Override
+    public String getCommunityHistory(String communityName, int limit) throws CommunityNotExistException, InvalidLimitException {
+        return this.timed("getCommunityHistory", () -> super.getCommunityHistory(communityName, limit));
+    }
+
+    @Override
+    public int countCommunityMembers(String communityName) throws CommunityNotExistException {
+        return this.timed("countCommunityMembers", () -> super.countCommunityMembers(communityName));
+    }
+
+    @Override
+    public void writeCommunityMembers(String communityName, Appendable out) throws CommunityNotExistException, IOException {
+        this.timed("writeCommunityMembers", () -> super.writeCommunityMembers(communityName, out));
+    }
+
+    @Override
+    public String getUserCommunitysByLogin(String login) throws UserNotRegisteredException {
+        return this.timed("getUserCommunitysByLogin", () -> super.getUserCommunitysByLogin(login));
+    }
+
+    @Override
+    public void joinCommunity(String sessionId, String communityName) throws UserNotRegisteredException, CommunityNotExistException, UserAlredyJoinedCommunityException {
+        this.timed("joinCommunity", () -> super.joinCommunity(sessionId, communityName));
+    }
+
+    @Override
+    public void addMembers(String ownerSessionId, String communityName, String... logins) throws UserNotRegisteredException, CommunityNotExistException, NotCommunityOwnerException, UserAlredyJoinedCommunityException {
+        this.timed("addMembers", () -> super.addMembers(ownerSessionId, communityName, logins));
+    }
+
+    @Override
+    public void sendCommunityMessage(String sessionId, String communityName, String messageContent) throws UserNotRegisteredException, CommunityNotExistException, RateLimitExceededException {
+        this.timed("sendCommunityMessage", () -> super.sendCommunityMessage(sessionId, communityName, messageContent));
+    }
+
+    @Override
+    public void sendTemporaryCommunityMessage(String sessionId, String communityName, String messageContent, int ttlSeconds) throws UserNotRegisteredException, CommunityNotExistException, InvalidExpirationException, RateLimitExceededException {
+        this.timed("sendTemporaryCommunityMessage", () -> super.sendTemporaryCommunityMessage(sessionId, communityName, messageContent, ttlSeconds));
+    }
+
+    @Override
+    public String readCommunityMessage(String sessionId) throws NoCommunityMessageException, UserNotRegisteredException {
+        return this.timed("readCommunityMessage", () -> super.readCommunityMessage(sessionId));
+    }
+
+    @Override
+    public void addIdol(String sessionId, String idolLogin) throws UserNotRegisteredException, YourselfFaException, UserAlredyIsIdolException, ThisUserIsYourEnemyException, UserAttributeNotFilledException {
+        this.timed("addIdol", () -> super.addIdol(sessionId, idolLogin));
+    }
+
+    @Override
+    public boolean isFa(String faLogin, String idolLogin) throws UserNotRegisteredException {
+        return this.timed("isFa", () -> super.isFa(faLogin, idolLogin));
+    }
+
+    @Override
+    public String getFas(String idolLogin) throws UserNotRegisteredException {
+        return this.timed("getFas", () -> super.getFas(idolLogin));
+    }
+
+    @Override
+    public void addPaquera(String sessionId, String paqueraLogin) throws UserNotRegisteredException, UserAttributeNotFilledException, YourselfPaqueraException, PaqueraAlredyAddedException, ThisUserIsYourEnemyException {
+        this.timed("addPaquera", () -> super.addPaquera(sessionId, paqueraLogin));
+    }
+
+    @Override
+    public boolean isPaquera(String sessionsId, String paqueraLogin) throws UserNotRegisteredException {
+        return this.timed("isPaquera", () -> super.isPaquera(sessionsId, paqueraLogin));
+    }
+
+    @Override
+    public String getPaqueras(String sessionId) throws UserNotRegisteredException {
+        return this.timed("getPaqueras", () -> super.getPaqueras(sessionId));
+    }
+
+    @Override
+    public void addEnemy(String sessionId, String enemyLogin) throws UserNotRegisteredException, UserAttributeNotFilledException, YourselfEnemyException, EnemyAlredyDeclaredException {
+        this.timed("addEnemy", () -> super.addEnemy(sessionId, enemyLogin));
+    }
+
+    @Override
+    public String searchMessages(String sessionId, String terms) throws UserNotRegisteredException {
+        return this.timed("searchMessages", () -> super.searchMessages(sessionId, terms));
+    }
+
+    @Override
+    public String searchCommunities(String terms) {
+        return this.timed("searchCommunities", () -> super.searchCommunities(terms));
+    }
+
+    @Override
+    public String getPopularCommunities(int k) throws InvalidLimitException {
+        return this.timed("getPopularCommunities", () -> super.getPopularCommunities(k));
+    }
+
+    @Override
+    public String listCommunities(String prefix, int limit) throws InvalidLimitException {
+        return this.timed("listCommunities", () -> super.listCommunities(prefix, limit));
+    }
+
+    @Override
+    public String listCommunities(String prefix, String cursor, int limit) throws InvalidLimitException {
+        return this.timed("listCommunities(3)", () -> super.listCommunities(prefix, cursor, limit));
+    }
+
+    @Override
+    public void removeUser(String sessionId) throws UserNotRegisteredException {
+        this.timed("removeUser", () -> super.removeUser(sessionId));
+    }
+
+    @Override
+    public int countSessionsOf(String login) {
+        return this.timed("countSessionsOf", () -> super.countSessionsOf(login));
+    }
+
+    @Override
+    public void setSessionPolicy(int idleSeconds, int maxAgeSeconds, int maxPerUser) throws InvalidExpirationException, InvalidLimitException {
+        this.timed("setSessionPolicy", () -> super.setSessionPolicy(idleSeconds, maxAgeSeconds, maxPerUser));
+    }
+
+    @Override
+    public void setRateLimit(String operationName, int perMinute, int burst) throws UnknownOperationException, InvalidLimitException {
+        this.timed("setRateLimit", () -> super.setRateLimit(operationName, perMinute, burst));
+    }
+
+    /**
+     * Operao delegada que devolve um valor. As excees checadas que ela pode lanar so as
+     * declaradas pelo mtodo sobrescrito que a executa.
+     *
+     * @param <T> o tipo do valor devolvido.
+     */
+    @FunctionalInterface
+    private interface Operation<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Operao delegada sem valor de retorno. Ver {@link Operation}.
+     */
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Executa uma operao registrando a sua durao e, se ela lanar uma exceo, o tipo da
+     * exceo, que  relanada sem alterao.
+     *
+     * @param name o nome da operao.
+     * @param operation a operao.
+     * @param <T> o tipo do valor devolvido.
+     * @return o valor devolvido pela operao.
+     */
+    private <T> T timed(String name, Operation<T> operation) {
+        long start = System.nanoTime();
+        try {
+            return operation.run();
+        } catch (Exception e) {
+            this.metrics.recordError(name, e);
+            throw InstrumentedJackut.<RuntimeException>rethrow(e);
+        } finally {
+            this.metrics.record(name, start);
+        }
+    }
+
+    /**
+     * Executa uma operao sem valor de retorno. Ver {@link #timed(String, Operation)}.
+     *
+     * @param name o nome da operao.
+     * @param action a operao.
+     */
+    private void timed(String name, Action action) {
+        this.timed(name, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Relana uma exceo sem exigir que o chamador a declare. S  usado por
+     * {@link #timed(String, Operation)}, cujas operaes chamam o mtodo sobrescrito da
+     * superclasse: as excees checadas que elas lanam so, portanto, as declaradas por ele.
+     *
+     * @param e a exceo a ser relanada.
+     * @param <E> o tipo com que a exceo  relanada.
+     * @return nunca retorna.
+     * @throws E sempre.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E rethrow(Exception e) throws E {
+        throw (E) e;
+    }
+}
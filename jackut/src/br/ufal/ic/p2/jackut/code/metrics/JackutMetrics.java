@@ -0,0 +1,177 @@
+package br.ufal.ic.p2.jackut.code.metrics;
+
+import br.ufal.ic.p2.jackut.code.Jackut;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registro das mtricas de uma instncia do {@link Jackut}: as mtricas de cada operao,
+ * criadas no primeiro uso, e indicadores lidos do sistema no momento da consulta, como a
+ * quantidade de usurios, comunidades, sesses e mensagens na fila.
+ *
+ * As mtricas podem ser publicadas via JMX com {@link #register()}; como h um nico nome,
+ * a instncia registrada por ltimo substitui a anterior.
+ */
+public class JackutMetrics implements JackutMetricsMBean {
+    public static final String OBJECT_NAME = "br.ufal.ic.p2.jackut:type=Metricas";
+
+    private final Jackut jackut;
+    private final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+
+    /**
+     * Constri o registro de mtricas.
+     *
+     * @param jackut o sistema de onde so lidos os indicadores.
+     */
+    public JackutMetrics(Jackut jackut) {
+        this.jackut = jackut;
+    }
+
+    /**
+     * Retorna as mtricas de uma operao, criando-as no primeiro uso.
+     *
+     * @param name o nome da operao.
+     * @return as mtricas da operao.
+     */
+    public OperationMetrics operation(String name) {
+        OperationMetrics metrics = this.operations.get(name);
+        return metrics != null ? metrics : this.operations.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    /**
+     * Registra uma chamada iniciada no instante informado e concluda agora.
+     *
+     * @param name o nome da operao.
+     * @param startNanos o instante de incio, obtido de {@link System#nanoTime()}.
+     */
+    public void record(String name, long startNanos) {
+        this.operation(name).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Registra um erro de negcio lanado por uma operao.
+     *
+     * @param name o nome da operao.
+     * @param error a exceo lanada.
+     */
+    public void recordError(String name, Exception error) {
+        this.operation(name).recordError(error);
+    }
+
+    /**
+     * Publica as mtricas no servidor de MBeans da plataforma, substituindo a instncia
+     * registrada anteriormente. Falhas no registro no impedem o uso das mtricas.
+     */
+    public void register() {
+        synchronized (JackutMetrics.class) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(this, name);
+            } catch (JMException e) {
+                System.out.println("Erro ao registrar as mtricas: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public int getUserCount() {
+        return this.jackut.countUsers();
+    }
+
+    @Override
+    public int getCommunityCount() {
+        return this.jackut.countCommunitys();
+    }
+
+    @Override
+    public int getSessionCount() {
+        return this.jackut.countSessions();
+    }
+
+    @Override
+    public long getQueuedMessageCount() {
+        return this.jackut.countUnreadMessages();
+    }
+
+    @Override
+    public long getTotalCalls() {
+        long total = 0;
+        for (OperationMetrics metrics : this.operations.values()) {
+            total += metrics.getCalls();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalErrors() {
+        long total = 0;
+        for (OperationMetrics metrics : this.operations.values()) {
+            total += metrics.getErrors();
+        }
+        return total;
+    }
+
+    @Override
+    public String[] getOperationNames() {
+        return this.operations.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public long callsOf(String operation) {
+        OperationMetrics metrics = this.operations.get(operation);
+        return metrics == null ? 0 : metrics.getCalls();
+    }
+
+    @Override
+    public long errorsOf(String operation) {
+        OperationMetrics metrics = this.operations.get(operation);
+        return metrics == null ? 0 : metrics.getErrors();
+    }
+
+    @Override
+    public double percentileOf(String operation, double quantile) {
+        OperationMetrics metrics = this.operations.get(operation);
+        return metrics == null ? 0 : metrics.getLatencies().percentile(quantile) / 1e3;
+    }
+
+    /**
+     * Gera um relatrio em texto com os indicadores do sistema e, para cada operao chamada,
+     * as chamadas, os erros por tipo e os percentis de latncia em microssegundos.
+     *
+     * @return o relatrio.
+     */
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("usuarios=%d comunidades=%d sessoes=%d mensagens na fila=%d%n",
+                this.getUserCount(), this.getCommunityCount(), this.getSessionCount(), this.getQueuedMessageCount()));
+        out.append(String.format("%-32s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operacao", "chamadas", "erros", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (OperationMetrics metrics : this.operations.values()) {
+            LatencyHistogram latencies = metrics.getLatencies();
+            out.append(String.format("%-32s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n", metrics.getName(),
+                    metrics.getCalls(), metrics.getErrors(), latencies.percentile(0.50) / 1e3, latencies.percentile(0.90) / 1e3,
+                    latencies.percentile(0.99) / 1e3, latencies.percentile(0.999) / 1e3, latencies.max() / 1e3));
+            for (Map.Entry<String, Long> error : metrics.getErrorsByType().entrySet()) {
+                out.append(String.format("    %s=%d%n", error.getKey(), error.getValue()));
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (OperationMetrics metrics : this.operations.values()) {
+            metrics.reset();
+        }
+    }
+}
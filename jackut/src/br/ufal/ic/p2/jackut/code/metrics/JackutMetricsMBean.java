@@ -0,0 +1,31 @@
+package br.ufal.ic.p2.jackut.code.metrics;
+
+/**
+ * Interface de gerenciamento das mtricas do Jackut, publicada via JMX com o nome
+ * {@value JackutMetrics#OBJECT_NAME}. As latncias so informadas em microssegundos.
+ */
+public interface JackutMetricsMBean {
+    int getUserCount();
+
+    int getCommunityCount();
+
+    int getSessionCount();
+
+    long getQueuedMessageCount();
+
+    long getTotalCalls();
+
+    long getTotalErrors();
+
+    String[] getOperationNames();
+
+    long callsOf(String operation);
+
+    long errorsOf(String operation);
+
+    double percentileOf(String operation, double quantile);
+
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,114 @@
+package br.ufal.ic.p2.jackut.code.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latncias com faixas log-lineares, no estilo do HdrHistogram.
+ *
+ * Valores abaixo de 32 nanossegundos tm uma faixa cada; acima disso, cada potncia de dois 
+ * dividida em 32 faixas, o que limita o erro relativo dos percentis a cerca de 3%. O registro
+ *  um incremento atmico em um vetor fixo, sem travas nem alocao, e pode ser feito por vrias
+ * threads ao mesmo tempo; as leituras percorrem o vetor e no bloqueiam os registros.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Registra uma latncia.
+     *
+     * @param nanos a latncia, em nanossegundos.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        this.counts.incrementAndGet(indexOf(value));
+        if (value > this.max.get()) {
+            this.max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Retorna a quantidade de latncias registradas.
+     *
+     * @return a quantidade de registros.
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += this.counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Retorna a maior latncia registrada.
+     *
+     * @return a maior latncia, em nanossegundos.
+     */
+    public long max() {
+        return this.max.get();
+    }
+
+    /**
+     * Estima a latncia abaixo da qual est a frao informada dos registros. A estimativa  o
+     * limite superior da faixa onde o percentil cai, nunca maior que a maior latncia registrada.
+     *
+     * @param quantile a frao, entre 0 e 1.
+     * @return a latncia estimada, em nanossegundos, ou 0 se no houver registros.
+     */
+    public long percentile(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = this.counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    /**
+     * Descarta todos os registros.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long mantissa = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + mantissa) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
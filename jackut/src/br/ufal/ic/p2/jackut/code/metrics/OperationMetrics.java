@@ -0,0 +1,93 @@
+package br.ufal.ic.p2.jackut.code.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mtricas de uma operao do sistema: quantidade de chamadas, erros por tipo de exceo e
+ * histograma de latncias. Os contadores so somadores distribudos, de forma que chamadas
+ * simultneas da mesma operao no disputem a mesma varivel.
+ */
+public class OperationMetrics {
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Constri as mtricas de uma operao.
+     *
+     * @param name o nome da operao.
+     */
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Registra uma chamada concluda, com ou sem erro.
+     *
+     * @param nanos a durao da chamada, em nanossegundos.
+     */
+    public void record(long nanos) {
+        this.calls.increment();
+        this.latencies.record(nanos);
+    }
+
+    /**
+     * Registra um erro de negcio lanado pela operao.
+     *
+     * @param error a exceo lanada.
+     */
+    public void recordError(Exception error) {
+        this.errors.computeIfAbsent(error.getClass().getSimpleName(), key -> new LongAdder()).increment();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getCalls() {
+        return this.calls.sum();
+    }
+
+    /**
+     * Retorna a quantidade total de erros, de todos os tipos.
+     *
+     * @return a quantidade de erros.
+     */
+    public long getErrors() {
+        long total = 0;
+        for (LongAdder count : this.errors.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Retorna a quantidade de erros por nome simples da exceo, em ordem alfabtica.
+     *
+     * @return os erros por tipo.
+     */
+    public Map<String, Long> getErrorsByType() {
+        Map<String, Long> byType = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : this.errors.entrySet()) {
+            byType.put(entry.getKey(), entry.getValue().sum());
+        }
+        return byType;
+    }
+
+    public LatencyHistogram getLatencies() {
+        return this.latencies;
+    }
+
+    /**
+     * Descarta as chamadas, os erros e as latncias registrados.
+     */
+    public void reset() {
+        this.calls.reset();
+        this.errors.clear();
+        this.latencies.reset();
+    }
+}
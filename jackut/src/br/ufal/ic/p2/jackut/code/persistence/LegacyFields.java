@@ -0,0 +1,66 @@
+package br.ufal.ic.p2.jackut.code.persistence;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Mtodos auxiliares para ler, nos mtodos readObject das classes persistidas, arquivos gravados
+ * pela verso original do sistema, em que usurios, relaes e membros eram guardados em listas.
+ *
+ * Os elementos dessas listas podem referenciar objetos que ainda esto sendo lidos, cujos campos
+ * ainda no foram preenchidos. Por isso a converso de uma lista  adiada para o fim da leitura
+ * do arquivo, quando todo o grafo de objetos j est completo.
+ *
+ * As classes persistidas cujos campos mudaram mantm como serialVersionUID o valor calculado
+ * para a sua verso original, de modo que os arquivos gravados por ela continuem legveis; cada
+ * uma converte, no seu readObject, os campos daquele formato. Campos que no existiam so lidos
+ * com o valor padro: recados e mensagens gravados antes da numerao, por exemplo, so
+ * carregados com sequncia e instante de criao zero, e sem validade.
+ *
+ * O formato gravado mudou outra vez quando a gravao deixou de seguir as referncias entre
+ * usurios: as relaes passaram a ser gravadas como listas de logins, e os recados e mensagens
+ * como {@code StoredMessage}, s com o login do remetente. Arquivos nesse formato no podem ser
+ * lidos por verses anteriores do sistema, mas os gravados por elas, com usurios nas relaes e
+ * com {@code PrivateMessage} e {@code CommunityMessage} completos, continuam sendo lidos.
+ */
+public final class LegacyFields {
+    private LegacyFields() {
+    }
+
+    /**
+     * Retorna o valor de um campo de objeto lido do arquivo, ou null se o campo no existir
+     * no formato em que o objeto foi gravado.
+     *
+     * @param fields os campos lidos com {@link ObjectInputStream#readFields()}.
+     * @param name o nome do campo.
+     * @return o valor do campo, ou null se ele no tiver sido gravado.
+     * @throws IOException se o campo no puder ser lido.
+     */
+    public static Object get(ObjectInputStream.GetField fields, String name) throws IOException {
+        return fields.getObjectStreamClass().getField(name) == null ? null : fields.get(name, null);
+    }
+
+    /**
+     * Agenda uma ao para cada elemento de uma lista do formato original, executada quando
+     * a leitura do arquivo terminar.
+     *
+     * @param in o fluxo que est sendo lido.
+     * @param legacy a lista lida do arquivo; se for null, nada  agendado.
+     * @param action a ao aplicada a cada elemento.
+     * @param <E> o tipo dos elementos da lista.
+     * @throws IOException se a ao no puder ser agendada.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> void forEachAfterRead(ObjectInputStream in, Object legacy, Consumer<E> action) throws IOException {
+        if (legacy == null) {
+            return;
+        }
+        in.registerValidation(() -> {
+            for (Object element : (Collection<?>) legacy) {
+                action.accept((E) element);
+            }
+        }, 0);
+    }
+}
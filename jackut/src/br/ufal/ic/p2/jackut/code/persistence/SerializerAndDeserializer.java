@@ -1,5 +1,7 @@
 package br.ufal.ic.p2.jackut.code.persistence;
 
+import br.ufal.ic.p2.jackut.code.jfr.SnapshotEvent;
+
 import java.io.*;
 
 /**
@@ -38,12 +40,20 @@ public class SerializerAndDeserializer {
      * @param filePath O caminho do arquivo onde o objeto serializado ser salvo.
      */
     public void serializeObject(Object obj, String filePath) {
+        SnapshotEvent event = new SnapshotEvent();
+        event.begin();
         try (FileOutputStream fileOutputStream = new FileOutputStream(filePath)) {
             ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream);
             objectOutputStream.writeObject(obj);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        if (event.shouldCommit()) {
+            event.file = filePath;
+            event.operation = "serialize";
+            event.bytes = new File(filePath).length();
+            event.commit();
+        }
     }
 
     /**
@@ -60,14 +70,22 @@ public class SerializerAndDeserializer {
             return null;
         }
 
+        SnapshotEvent event = new SnapshotEvent();
+        event.begin();
+        Object restored;
         try (ObjectInputStream objectInputStream = new ObjectInputStream(new FileInputStream(filePath))) {
-            Object restoredObject = objectInputStream.readObject();
-
-            return restoredObject;
+            restored = objectInputStream.readObject();
         } catch (Exception e) {
             e.printStackTrace();
-            return null;
+            restored = null;
+        }
+        if (event.shouldCommit()) {
+            event.file = filePath;
+            event.operation = "deserialize";
+            event.bytes = file.length();
+            event.commit();
         }
+        return restored;
     }
 
     /**
@@ -1,31 +1,56 @@
 package br.ufal.ic.p2.jackut.code.relations;
 
+import br.ufal.ic.p2.jackut.code.concurrency.VersionedMap;
+import br.ufal.ic.p2.jackut.code.persistence.LegacyFields;
 import br.ufal.ic.p2.jackut.code.user.User;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Gerencia os diferentes tipos de relacionamentos entre usurios,
  * incluindo amigos, fs, paqueras e inimigos.
+ *
+ * Cada relao  um mapa versionado indexado pelo login, de forma que verificar uma relao
+ * leva tempo constante e as consultas leem uma verso imutvel da relao, sem travas.
+ * Relaes gravadas pela verso original da classe, em listas de usurios, so convertidas
+ * ao serem lidas.
+ *
+ * As relaes so gravadas apenas com os logins dos usurios, e no com os prprios usurios:
+ * caso contrrio, a serializao seguiria de um usurio para os seus amigos, e destes para os
+ * amigos deles, com uma chamada aninhada por usurio, e estouraria a pilha em cadeias longas.
+ * Depois da leitura, {@link #relinkUsers(Function)} troca os logins pelos usurios.
  */
 public class RelationsManager implements Serializable {
-    private List<User> friends;
-    private List<User> friendRequests;
-    private List<User> fas;
-    private List<User> paqueras;
-    private List<User> enemies;
+    private transient VersionedMap<String, User> friends;
+    private transient VersionedMap<String, User> friendRequests;
+    private transient VersionedMap<String, User> fas;
+    private transient VersionedMap<String, User> paqueras;
+    private transient VersionedMap<String, User> enemies;
+    private transient String[][] unresolvedLogins;
+    private static final long serialVersionUID = -6489690309877952861L;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("friends", String[].class),
+            new ObjectStreamField("friendRequests", String[].class),
+            new ObjectStreamField("fas", String[].class),
+            new ObjectStreamField("paqueras", String[].class),
+            new ObjectStreamField("enemies", String[].class)
+    };
 
     /**
      * Construtor que inicializa todas as listas de relacionamento como vazias.
      */
     public RelationsManager() {
-        this.friends = new ArrayList<>();
-        this.friendRequests = new ArrayList<>();
-        this.fas = new ArrayList<>();
-        this.paqueras = new ArrayList<>();
-        this.enemies = new ArrayList<>();
+        this.friends = new VersionedMap<>();
+        this.friendRequests = new VersionedMap<>();
+        this.fas = new VersionedMap<>();
+        this.paqueras = new VersionedMap<>();
+        this.enemies = new VersionedMap<>();
     }
 
     /**
@@ -34,8 +59,8 @@ public class RelationsManager implements Serializable {
      * @param user o usurio a ser adicionado como amigo
      */
     public void addFriend(User user) {
-        this.friends.add(user);
-        this.friendRequests.remove(user);
+        this.friends.put(user.getLogin(), user);
+        this.friendRequests.remove(user.getLogin());
     }
 
     /**
@@ -45,7 +70,7 @@ public class RelationsManager implements Serializable {
      * @return true se for amigo, false caso contrrio
      */
     public boolean isFriend(User user) {
-        return this.friends.contains(user);
+        return this.friends.containsKey(user.getLogin());
     }
 
     /**
@@ -63,7 +88,7 @@ public class RelationsManager implements Serializable {
      * @param user o usurio que enviou a solicitao
      */
     public void receiveRequest(User user) {
-        this.friendRequests.add(user);
+        this.friendRequests.put(user.getLogin(), user);
     }
 
     /**
@@ -73,7 +98,7 @@ public class RelationsManager implements Serializable {
      * @return true se a solicitao j foi recebida, false caso contrrio
      */
     public boolean alredyReceivedRequest(User user) {
-        return this.friendRequests.contains(user);
+        return this.friendRequests.containsKey(user.getLogin());
     }
 
     /**
@@ -82,7 +107,7 @@ public class RelationsManager implements Serializable {
      * @param user o usurio que virou f
      */
     public void addFa(User user) {
-        this.fas.add(user);
+        this.fas.put(user.getLogin(), user);
     }
 
     /**
@@ -92,7 +117,7 @@ public class RelationsManager implements Serializable {
      * @return true se for f, false caso contrrio
      */
     public boolean isIdol(User fa) {
-        return this.fas.contains(fa);
+        return this.fas.containsKey(fa.getLogin());
     }
 
     /**
@@ -110,7 +135,7 @@ public class RelationsManager implements Serializable {
      * @param user o usurio adicionado como paquera
      */
     public void addPaquera(User user) {
-        this.paqueras.add(user);
+        this.paqueras.put(user.getLogin(), user);
     }
 
     /**
@@ -120,7 +145,7 @@ public class RelationsManager implements Serializable {
      * @return true se j for paquera, false caso contrrio
      */
     public boolean paqueraTheUser(User paquerador) {
-        return this.paqueras.contains(paquerador);
+        return this.paqueras.containsKey(paquerador.getLogin());
     }
 
     /**
@@ -138,7 +163,7 @@ public class RelationsManager implements Serializable {
      * @param enemy o usurio a ser adicionado como inimigo
      */
     public void addEnemy(User enemy) {
-        this.enemies.add(enemy);
+        this.enemies.put(enemy.getLogin(), enemy);
     }
 
     /**
@@ -148,7 +173,7 @@ public class RelationsManager implements Serializable {
      * @return true se for inimigo, false caso contrrio
      */
     public boolean isEnemy(User enemy) {
-        return this.enemies.contains(enemy);
+        return this.enemies.containsKey(enemy.getLogin());
     }
 
     /**
@@ -157,12 +182,8 @@ public class RelationsManager implements Serializable {
      * @param users a lista de usurios a ser convertida
      * @return string formatada com os logins dos usurios
      */
-    private String asString(List<User> users) {
-        List<String> logins = new ArrayList<>();
-        for (User user : users) {
-            logins.add(user.getLogin());
-        }
-        return "{" + String.join(",", logins) + "}";
+    private String asString(VersionedMap<String, User> users) {
+        return "{" + String.join(",", users.snapshot().keys()) + "}";
     }
 
     /**
@@ -171,10 +192,81 @@ public class RelationsManager implements Serializable {
      * @param user o usurio cujas referncias sero removidas
      */
     public void removeReferencesFromUser(User user) {
-        this.friends.remove(user);
-        this.friendRequests.remove(user);
-        this.fas.remove(user);
-        this.paqueras.remove(user);
-        this.enemies.remove(user);
+        this.friends.remove(user.getLogin());
+        this.friendRequests.remove(user.getLogin());
+        this.fas.remove(user.getLogin());
+        this.paqueras.remove(user.getLogin());
+        this.enemies.remove(user.getLogin());
+    }
+
+    /**
+     * Troca os logins lidos do arquivo pelos usurios correspondentes. Logins de usurios que
+     * no existem mais so descartados.
+     *
+     * @param users funo que recupera o usurio pelo login, ou retorna null se ele no existir
+     */
+    public void relinkUsers(Function<String, User> users) {
+        if (this.unresolvedLogins == null) {
+            return;
+        }
+        List<VersionedMap<String, User>> relations = this.relations();
+        for (int i = 0; i < relations.size(); i++) {
+            if (this.unresolvedLogins[i] == null) {
+                continue;
+            }
+            for (String login : this.unresolvedLogins[i]) {
+                User user = users.apply(login);
+                if (user != null) {
+                    relations.get(i).put(login, user);
+                }
+            }
+        }
+        this.unresolvedLogins = null;
+    }
+
+    /**
+     * Retorna as relaes na ordem de {@code serialPersistentFields}.
+     *
+     * @return as relaes
+     */
+    private List<VersionedMap<String, User>> relations() {
+        return List.of(this.friends, this.friendRequests, this.fas, this.paqueras, this.enemies);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        List<VersionedMap<String, User>> relations = this.relations();
+        for (int i = 0; i < relations.size(); i++) {
+            String[] logins = this.unresolvedLogins != null && this.unresolvedLogins[i] != null
+                    ? this.unresolvedLogins[i]
+                    : relations.get(i).snapshot().keys().toArray(new String[0]);
+            fields.put(serialPersistentFields[i].getName(), logins);
+        }
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.unresolvedLogins = new String[serialPersistentFields.length][];
+        this.friends = this.readRelation(in, fields, 0);
+        this.friendRequests = this.readRelation(in, fields, 1);
+        this.fas = this.readRelation(in, fields, 2);
+        this.paqueras = this.readRelation(in, fields, 3);
+        this.enemies = this.readRelation(in, fields, 4);
+    }
+
+    @SuppressWarnings("unchecked")
+    private VersionedMap<String, User> readRelation(ObjectInputStream in, ObjectInputStream.GetField fields, int index) throws IOException {
+        Object stored = fields.get(serialPersistentFields[index].getName(), null);
+        if (stored instanceof String[]) {
+            this.unresolvedLogins[index] = (String[]) stored;
+            return new VersionedMap<>();
+        }
+        if (stored instanceof VersionedMap) {
+            return (VersionedMap<String, User>) stored;
+        }
+        VersionedMap<String, User> relation = new VersionedMap<>();
+        LegacyFields.<User>forEachAfterRead(in, stored, user -> relation.put(user.getLogin(), user));
+        return relation;
     }
 }
@@ -0,0 +1,78 @@
+package br.ufal.ic.p2.jackut.code.search;
+
+import java.io.Serializable;
+
+/**
+ * Documento do ndice de busca que representa uma mensagem enviada.
+ * Guarda apenas os logins e o nome da comunidade envolvidos, e no os objetos,
+ * para que o ndice possa ser persistido de forma independente dos usurios.
+ */
+public class IndexedMessage implements Serializable {
+    private final long sequence;
+    private final String senderLogin;
+    private final String receiverLogin;
+    private final String communityName;
+    private final String content;
+
+    /**
+     * Constri um documento de mensagem.
+     *
+     * @param sequence a sequncia da mensagem.
+     * @param senderLogin o login do remetente.
+     * @param receiverLogin o login do destinatrio, ou null se for uma mensagem de comunidade.
+     * @param communityName o nome da comunidade, ou null se for um recado.
+     * @param content o contedo da mensagem.
+     */
+    public IndexedMessage(long sequence, String senderLogin, String receiverLogin, String communityName, String content) {
+        this.sequence = sequence;
+        this.senderLogin = senderLogin;
+        this.receiverLogin = receiverLogin;
+        this.communityName = communityName;
+        this.content = content;
+    }
+
+    /**
+     * Retorna a sequncia da mensagem.
+     *
+     * @return a sequncia da mensagem.
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Retorna o login do remetente.
+     *
+     * @return o login do remetente.
+     */
+    public String getSenderLogin() {
+        return this.senderLogin;
+    }
+
+    /**
+     * Retorna o login do destinatrio do recado.
+     *
+     * @return o login do destinatrio, ou null se for uma mensagem de comunidade.
+     */
+    public String getReceiverLogin() {
+        return this.receiverLogin;
+    }
+
+    /**
+     * Retorna o nome da comunidade para a qual a mensagem foi enviada.
+     *
+     * @return o nome da comunidade, ou null se for um recado.
+     */
+    public String getCommunityName() {
+        return this.communityName;
+    }
+
+    /**
+     * Retorna o contedo da mensagem.
+     *
+     * @return o contedo da mensagem.
+     */
+    public String getContent() {
+        return this.content;
+    }
+}
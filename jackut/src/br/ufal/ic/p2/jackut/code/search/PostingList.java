@@ -0,0 +1,113 @@
+package br.ufal.ic.p2.jackut.code.search;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Lista de ocorrncias de um termo no ndice de busca.
+ * Guarda, em ordem crescente e em um vetor de primitivos, as sequncias das mensagens
+ * que contm o termo. Como as sequncias so sempre crescentes, a insero  feita ao final.
+ */
+public class PostingList implements Serializable {
+    private long[] sequences;
+    private int size;
+    private static final long serialVersionUID = -3715998350354575040L;
+
+    /**
+     * Constri uma lista de ocorrncias vazia.
+     */
+    public PostingList() {
+        this.sequences = new long[4];
+        this.size = 0;
+    }
+
+    /**
+     * Adiciona uma sequncia  lista, mantendo a ordem crescente.
+     *
+     * @param sequence a sequncia da mensagem que contm o termo.
+     */
+    public void add(long sequence) {
+        if (this.size > 0 && this.sequences[this.size - 1] >= sequence) {
+            int position = Arrays.binarySearch(this.sequences, 0, this.size, sequence);
+            if (position >= 0) {
+                return;
+            }
+            this.insertAt(-position - 1, sequence);
+            return;
+        }
+        this.insertAt(this.size, sequence);
+    }
+
+    /**
+     * Retorna a quantidade de sequncias na lista.
+     *
+     * @return o tamanho da lista.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Retorna a sequncia armazenada na posio informada.
+     *
+     * @param index a posio desejada.
+     * @return a sequncia na posio.
+     */
+    public long get(int index) {
+        return this.sequences[index];
+    }
+
+    /**
+     * Busca a primeira posio, a partir de {@code from}, cuja sequncia seja maior ou igual
+     * ao alvo. A busca avana em saltos exponenciais e depois refina binariamente, o que torna
+     * a interseo de uma lista curta com uma longa proporcional ao tamanho da lista curta.
+     *
+     * @param from a posio a partir da qual buscar.
+     * @param target a sequncia procurada.
+     * @return a posio encontrada, ou o tamanho da lista se todas forem menores que o alvo.
+     */
+    public int advance(int from, long target) {
+        if (from >= this.size) {
+            return this.size;
+        }
+        int bound = 1;
+        while (from + bound < this.size && this.sequences[from + bound] < target) {
+            bound <<= 1;
+        }
+        int low = from + (bound >> 1);
+        int high = Math.min(from + bound + 1, this.size);
+        int position = Arrays.binarySearch(this.sequences, low, high, target);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Mantm na lista apenas as sequncias aceitas pelo filtro, preservando a ordem, e
+     * reduz o vetor quando ele fica com menos de um quarto ocupado.
+     *
+     * @param keep o filtro que decide quais sequncias permanecem.
+     * @return o novo tamanho da lista.
+     */
+    public int retain(LongPredicate keep) {
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (keep.test(this.sequences[i])) {
+                this.sequences[kept++] = this.sequences[i];
+            }
+        }
+        this.size = kept;
+        if (this.sequences.length > 4 && kept < this.sequences.length / 4) {
+            this.sequences = Arrays.copyOf(this.sequences, Math.max(4, kept * 2));
+        }
+        return kept;
+    }
+
+    private void insertAt(int index, long sequence) {
+        if (this.size == this.sequences.length) {
+            this.sequences = Arrays.copyOf(this.sequences, this.size * 2);
+        }
+        System.arraycopy(this.sequences, index, this.sequences, index + 1, this.size - index);
+        this.sequences[index] = sequence;
+        this.size++;
+    }
+}
@@ -0,0 +1,318 @@
+package br.ufal.ic.p2.jackut.code.search;
+
+import br.ufal.ic.p2.jackut.code.persistence.SerializableData;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * ndice invertido sobre o contedo das mensagens e das descries das comunidades.
+ *
+ * Cada termo normalizado aponta para a lista ordenada de sequncias das mensagens que o contm,
+ * e para o conjunto de comunidades cuja descrio o contm. O ndice  atualizado a cada envio
+ * de mensagem ou criao de comunidade e  persistido junto com os demais dados do sistema.
+ * Buscas simultneas so feitas em paralelo; alteraes no ndice excluem as demais operaes.
+ *
+ * Mensagens removidas saem apenas do mapa de mensagens; suas sequncias continuam nas listas
+ * de ocorrncias at que o nmero de mensagens removidas supere o de mensagens indexadas,
+ * quando todas as listas so compactadas de uma vez.
+ */
+public class SearchIndex extends SerializableData {
+    private Map<String, PostingList> messageTerms;
+    private Map<Long, IndexedMessage> messages;
+    private Map<String, PostingList> messagesByUser;
+    private Map<String, PostingList> messagesByCommunity;
+    private Map<String, Set<String>> communityTerms;
+    private transient int staleMessages;
+    private final transient ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final long serialVersionUID = 1211617653747219363L;
+
+    /**
+     * Constri um ndice de busca vazio.
+     *
+     * @param filePath o caminho do arquivo onde o ndice ser serializado.
+     */
+    public SearchIndex(String filePath) {
+        super(filePath);
+        this.messageTerms = new HashMap<>();
+        this.messages = new HashMap<>();
+        this.messagesByUser = new HashMap<>();
+        this.messagesByCommunity = new HashMap<>();
+        this.communityTerms = new HashMap<>();
+    }
+
+    /**
+     * Indexa um recado enviado de um usurio para outro.
+     *
+     * @param sequence a sequncia da mensagem.
+     * @param senderLogin o login do remetente.
+     * @param receiverLogin o login do destinatrio.
+     * @param content o contedo do recado.
+     */
+    public void indexPrivateMessage(long sequence, String senderLogin, String receiverLogin, String content) {
+        this.lock.writeLock().lock();
+        try {
+            this.indexMessage(new IndexedMessage(sequence, senderLogin, receiverLogin, null, content));
+            this.postingsOf(this.messagesByUser, receiverLogin).add(sequence);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa uma mensagem enviada para uma comunidade.
+     *
+     * @param sequence a sequncia da mensagem.
+     * @param senderLogin o login do remetente.
+     * @param communityName o nome da comunidade.
+     * @param content o contedo da mensagem.
+     */
+    public void indexCommunityMessage(long sequence, String senderLogin, String communityName, String content) {
+        this.lock.writeLock().lock();
+        try {
+            this.indexMessage(new IndexedMessage(sequence, senderLogin, null, communityName, content));
+            this.postingsOf(this.messagesByCommunity, communityName).add(sequence);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa o nome e a descrio de uma comunidade.
+     *
+     * @param communityName o nome da comunidade.
+     * @param description a descrio da comunidade.
+     */
+    public void indexCommunity(String communityName, String description) {
+        this.lock.writeLock().lock();
+        try {
+            for (String term : communityTermsOf(communityName, description)) {
+                this.communityTerms.computeIfAbsent(term, key -> new TreeSet<>()).add(communityName);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove uma comunidade do ndice, junto com todas as mensagens enviadas a ela. Assim uma
+     * nova comunidade criada com o mesmo nome no d acesso s mensagens da anterior.
+     *
+     * @param communityName o nome da comunidade.
+     * @param description a descrio com a qual a comunidade foi indexada.
+     */
+    public void removeCommunity(String communityName, String description) {
+        this.lock.writeLock().lock();
+        try {
+            for (String term : communityTermsOf(communityName, description)) {
+                Set<String> names = this.communityTerms.get(term);
+                if (names != null) {
+                    names.remove(communityName);
+                    if (names.isEmpty()) {
+                        this.communityTerms.remove(term);
+                    }
+                }
+            }
+            this.removeMessages(this.messagesByCommunity.remove(communityName));
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove do ndice as mensagens enviadas por um usurio e os recados endereados a ele.
+     *
+     * @param login o login do usurio removido.
+     */
+    public void removeMessagesOf(String login) {
+        this.lock.writeLock().lock();
+        try {
+            this.removeMessages(this.messagesByUser.remove(login));
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void removeMessages(PostingList sequences) {
+        if (sequences == null) {
+            return;
+        }
+        for (int i = 0; i < sequences.size(); i++) {
+            if (this.messages.remove(sequences.get(i)) != null) {
+                this.staleMessages++;
+            }
+        }
+        if (this.staleMessages > this.messages.size()) {
+            this.compact();
+        }
+    }
+
+    /**
+     * Retira de todas as listas de ocorrncias as sequncias de mensagens removidas, e descarta
+     * as listas que ficarem vazias. O custo  proporcional ao tamanho do ndice, mas como s
+     * ocorre depois de tantas remoes quanto mensagens restantes,  amortizado entre elas.
+     */
+    private void compact() {
+        for (Map<String, PostingList> postings : List.of(this.messageTerms, this.messagesByUser, this.messagesByCommunity)) {
+            postings.values().removeIf(posting -> posting.retain(this.messages::containsKey) == 0);
+        }
+        this.staleMessages = 0;
+    }
+
+    /**
+     * Busca as mensagens que contm todos os termos informados.
+     *
+     * @param query os termos da busca, separados por espaos ou pontuao.
+     * @param visible filtro que decide quais mensagens podem ser vistas por quem busca.
+     * @return as mensagens encontradas, em ordem de envio.
+     */
+    public List<IndexedMessage> searchMessages(String query, Predicate<IndexedMessage> visible) {
+        this.lock.readLock().lock();
+        try {
+            return this.intersectMessages(query, visible);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private List<IndexedMessage> intersectMessages(String query, Predicate<IndexedMessage> visible) {
+        List<IndexedMessage> found = new ArrayList<>();
+        List<PostingList> postings = new ArrayList<>();
+        for (String term : TextNormalizer.tokenize(query)) {
+            PostingList posting = this.messageTerms.get(term);
+            if (posting == null) {
+                return found;
+            }
+            postings.add(posting);
+        }
+        if (postings.isEmpty()) {
+            return found;
+        }
+
+        postings.sort(Comparator.comparingInt(PostingList::size));
+        PostingList shortest = postings.get(0);
+        int[] positions = new int[postings.size()];
+
+        candidates:
+        for (int i = 0; i < shortest.size(); i++) {
+            long sequence = shortest.get(i);
+            for (int j = 1; j < postings.size(); j++) {
+                PostingList other = postings.get(j);
+                positions[j] = other.advance(positions[j], sequence);
+                if (positions[j] == other.size()) {
+                    break candidates;
+                }
+                if (other.get(positions[j]) != sequence) {
+                    continue candidates;
+                }
+            }
+            IndexedMessage message = this.messages.get(sequence);
+            if (message != null && visible.test(message)) {
+                found.add(message);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Busca as comunidades cujo nome ou descrio contm todos os termos informados.
+     *
+     * @param query os termos da busca, separados por espaos ou pontuao.
+     * @return os nomes das comunidades encontradas, em ordem alfabtica.
+     */
+    public Set<String> searchCommunities(String query) {
+        this.lock.readLock().lock();
+        try {
+            Set<String> found = null;
+            for (String term : TextNormalizer.tokenize(query)) {
+                Set<String> names = this.communityTerms.get(term);
+                if (names == null) {
+                    return new TreeSet<>();
+                }
+                if (found == null) {
+                    found = new TreeSet<>(names);
+                } else {
+                    found.retainAll(names);
+                }
+            }
+            return found == null ? new TreeSet<>() : found;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Limpa todos os dados do ndice.
+     */
+    public void clearIndex() {
+        this.lock.writeLock().lock();
+        try {
+            this.messageTerms.clear();
+            this.messages.clear();
+            this.messagesByUser.clear();
+            this.messagesByCommunity.clear();
+            this.communityTerms.clear();
+            this.staleMessages = 0;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void indexMessage(IndexedMessage message) {
+        this.messages.put(message.getSequence(), message);
+        this.postingsOf(this.messagesByUser, message.getSenderLogin()).add(message.getSequence());
+        for (String term : TextNormalizer.tokenize(message.getContent())) {
+            this.postingsOf(this.messageTerms, term).add(message.getSequence());
+        }
+    }
+
+    private PostingList postingsOf(Map<String, PostingList> map, String key) {
+        return map.computeIfAbsent(key, k -> new PostingList());
+    }
+
+    private static Set<String> communityTermsOf(String communityName, String description) {
+        Set<String> terms = TextNormalizer.tokenize(communityName);
+        terms.addAll(TextNormalizer.tokenize(description));
+        return terms;
+    }
+
+    /**
+     * Converte o objeto fornecido para o tipo SearchIndex e atualiza os campos
+     * do objeto atual com os dados do ndice desserializado. ndices gravados antes da
+     * separao das mensagens por comunidade tm essa lista reconstruda, e as sequncias
+     * de mensagens removidas antes da gravao so descartadas.
+     *
+     * @param obj o objeto a ser convertido para SearchIndex.
+     */
+    @Override
+    protected void castObject(Object obj) {
+        SearchIndex index = (SearchIndex) obj;
+        this.lock.writeLock().lock();
+        try {
+            this.messageTerms = index.messageTerms;
+            this.messages = index.messages;
+            this.messagesByUser = index.messagesByUser;
+            this.messagesByCommunity = index.messagesByCommunity;
+            this.communityTerms = index.communityTerms;
+            if (this.messagesByCommunity == null) {
+                this.messagesByCommunity = new HashMap<>();
+                for (IndexedMessage message : new TreeMap<>(this.messages).values()) {
+                    if (message.getCommunityName() != null) {
+                        this.postingsOf(this.messagesByCommunity, message.getCommunityName()).add(message.getSequence());
+                    }
+                }
+            }
+            this.compact();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+}
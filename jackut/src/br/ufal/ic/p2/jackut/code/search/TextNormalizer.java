@@ -0,0 +1,50 @@
+package br.ufal.ic.p2.jackut.code.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Utilitrio para normalizao de textos em portugus.
+ * Converte os textos para minsculas e remove os acentos, de forma que "Computao"
+ * e "computacao" sejam tratados como o mesmo termo.
+ */
+public final class TextNormalizer {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Converte um texto para minsculas e remove seus acentos.
+     *
+     * @param text o texto a ser normalizado.
+     * @return o texto sem acentos e em minsculas.
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Quebra um texto em termos normalizados, descartando pontuao e termos repetidos.
+     *
+     * @param text o texto a ser quebrado em termos.
+     * @return o conjunto de termos do texto, na ordem em que aparecem.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String term : SEPARATORS.split(fold(text))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
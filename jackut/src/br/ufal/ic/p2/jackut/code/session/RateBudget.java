@@ -0,0 +1,63 @@
+package br.ufal.ic.p2.jackut.code.session;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de taxa de uma operao: quantas requisies so permitidas por minuto, em mdia, e
+ * quantas podem ser feitas de uma s vez depois de um perodo sem uso.
+ */
+public final class RateBudget {
+    private final int perMinute;
+    private final int burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    /**
+     * Constri um limite de taxa.
+     *
+     * @param perMinute a quantidade mdia de requisies permitidas por minuto.
+     * @param burst a quantidade de requisies permitidas de uma s vez.
+     */
+    public RateBudget(int perMinute, int burst) {
+        this.perMinute = perMinute;
+        this.burst = burst;
+        this.intervalNanos = Math.max(1, TimeUnit.MINUTES.toNanos(1) / perMinute);
+        long tolerance;
+        try {
+            tolerance = Math.multiplyExact(this.intervalNanos, burst - 1L);
+        } catch (ArithmeticException e) {
+            tolerance = Long.MAX_VALUE / 2;
+        }
+        this.toleranceNanos = tolerance;
+    }
+
+    /**
+     * Retorna o intervalo mdio entre duas requisies.
+     *
+     * @return o intervalo, em nanossegundos.
+     */
+    public long getIntervalNanos() {
+        return this.intervalNanos;
+    }
+
+    /**
+     * Retorna quanto as requisies podem se adiantar em relao  taxa mdia.
+     *
+     * @return a tolerncia, em nanossegundos.
+     */
+    public long getToleranceNanos() {
+        return this.toleranceNanos;
+    }
+
+    /**
+     * Retorna um limite com a taxa e a rajada multiplicadas pelo fator informado, usado para
+     * os limites por usurio, que somam as sesses do usurio.
+     *
+     * @param factor o fator de multiplicao.
+     * @return o limite multiplicado.
+     */
+    public RateBudget times(int factor) {
+        return new RateBudget((int) Math.min(Integer.MAX_VALUE, (long) this.perMinute * factor),
+                (int) Math.min(Integer.MAX_VALUE, (long) this.burst * factor));
+    }
+}
@@ -0,0 +1,56 @@
+package br.ufal.ic.p2.jackut.code.session;
+
+/**
+ * Operaes de escrita sujeitas a limite de taxa, com os seus limites padro por sesso.
+ *
+ * Os limites padro podem ser alterados pelas propriedades de sistema
+ * {@code jackut.taxa.<nome>} (por minuto) e {@code jackut.rajada.<nome>}.
+ */
+public enum RateLimitedOperation {
+    PRIVATE_MESSAGE("recado", 6000, 200),
+    COMMUNITY_MESSAGE("mensagem", 6000, 200),
+    FRIEND_REQUEST("amizade", 600, 60);
+
+    private final String name;
+    private final int defaultPerMinute;
+    private final int defaultBurst;
+
+    RateLimitedOperation(String name, int defaultPerMinute, int defaultBurst) {
+        this.name = name;
+        this.defaultPerMinute = Integer.getInteger("jackut.taxa." + name, defaultPerMinute);
+        this.defaultBurst = Integer.getInteger("jackut.rajada." + name, defaultBurst);
+    }
+
+    /**
+     * Retorna o nome da operao usado na fachada.
+     *
+     * @return o nome da operao.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Retorna o limite padro da operao para uma sesso.
+     *
+     * @return o limite padro.
+     */
+    public RateBudget defaultBudget() {
+        return new RateBudget(this.defaultPerMinute, this.defaultBurst);
+    }
+
+    /**
+     * Busca a operao pelo nome usado na fachada.
+     *
+     * @param name o nome da operao.
+     * @return a operao, ou null se no houver operao com esse nome.
+     */
+    public static RateLimitedOperation byName(String name) {
+        for (RateLimitedOperation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
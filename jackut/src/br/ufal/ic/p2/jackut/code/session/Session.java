@@ -0,0 +1,114 @@
+package br.ufal.ic.p2.jackut.code.session;
+
+import br.ufal.ic.p2.jackut.code.concurrency.TokenBucket;
+import br.ufal.ic.p2.jackut.code.user.User;
+
+/**
+ * Uma sesso aberta por um usurio, identificada por um token aleatrio.
+ * Guarda o instante de abertura, que limita a durao total da sesso, e o instante do ltimo
+ * acesso, que limita o tempo em que ela pode ficar ociosa, e um balde de fichas para cada
+ * operao com limite de taxa.
+ */
+public class Session {
+    private final String token;
+    private final User user;
+    private final long createdAt;
+    private volatile long lastAccessAt;
+    private final TokenBucket[] buckets;
+
+    /**
+     * Constri uma sesso aberta no instante informado.
+     *
+     * @param token o token que identifica a sesso.
+     * @param user o usurio dono da sesso.
+     * @param nowMillis o instante de abertura, em milissegundos.
+     */
+    public Session(String token, User user, long nowMillis) {
+        this(token, user, nowMillis, nowMillis);
+    }
+
+    /**
+     * Constri uma sesso restaurada de uma cpia gravada, preservando os seus instantes.
+     *
+     * @param token o token que identifica a sesso.
+     * @param user o usurio dono da sesso.
+     * @param createdAt o instante de abertura, em milissegundos.
+     * @param lastAccessAt o instante do ltimo acesso, em milissegundos.
+     */
+    public Session(String token, User user, long createdAt, long lastAccessAt) {
+        this.token = token;
+        this.user = user;
+        this.createdAt = createdAt;
+        this.lastAccessAt = lastAccessAt;
+        this.buckets = SessionManager.newBuckets();
+    }
+
+    /**
+     * Retorna o token que identifica a sesso.
+     *
+     * @return o token da sesso.
+     */
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * Retorna o usurio dono da sesso.
+     *
+     * @return o usurio da sesso.
+     */
+    public User getUser() {
+        return this.user;
+    }
+
+    /**
+     * Retorna o instante de abertura da sesso.
+     *
+     * @return o instante de abertura, em milissegundos.
+     */
+    public long getCreatedAt() {
+        return this.createdAt;
+    }
+
+    /**
+     * Retorna o instante do ltimo acesso  sesso.
+     *
+     * @return o instante do ltimo acesso, em milissegundos.
+     */
+    public long getLastAccessAt() {
+        return this.lastAccessAt;
+    }
+
+    /**
+     * Retorna o balde de fichas da sesso para uma operao com limite de taxa.
+     *
+     * @param operation a operao.
+     * @return o balde de fichas da operao.
+     */
+    public TokenBucket getBucket(RateLimitedOperation operation) {
+        return this.buckets[operation.ordinal()];
+    }
+
+    /**
+     * Registra um acesso  sesso, reiniciando a contagem de ociosidade.
+     *
+     * @param nowMillis o instante do acesso, em milissegundos.
+     */
+    public void touch(long nowMillis) {
+        if (nowMillis > this.lastAccessAt) {
+            this.lastAccessAt = nowMillis;
+        }
+    }
+
+    /**
+     * Verifica se a sesso expirou, por ociosidade ou por durao total.
+     *
+     * @param nowMillis o instante atual, em milissegundos.
+     * @param idleMillis o tempo mximo sem acessos.
+     * @param maxAgeMillis a durao mxima da sesso.
+     * @return true se a sesso expirou.
+     */
+    public boolean isExpired(long nowMillis, long idleMillis, long maxAgeMillis) {
+        return nowMillis - this.lastAccessAt > idleMillis || nowMillis - this.createdAt > maxAgeMillis;
+    }
+}
@@ -1,81 +1,277 @@
 package br.ufal.ic.p2.jackut.code.session;
 
+import br.ufal.ic.p2.jackut.code.concurrency.TokenBucket;
+import br.ufal.ic.p2.jackut.code.jfr.SessionLookupEvent;
 import br.ufal.ic.p2.jackut.code.user.User;
 import br.ufal.ic.p2.jackut.exceptions.login.UserNotRegisteredException;
+import br.ufal.ic.p2.jackut.exceptions.ratelimit.RateLimitExceededException;
 
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * A classe SessionManager  responsvel por gerenciar as sesses de usurios dentro da aplicao.
  * Ela atribui IDs de sesso para os usurios, mantm o controle de sesses ativas
  * e fornece funcionalidades para gerenciar e interagir com essas sesses.
+ *
+ * Os IDs de sesso so tokens aleatrios de 128 bits, impossveis de adivinhar a partir de
+ * outros IDs. Uma sesso expira quando fica ociosa por mais tempo que o permitido ou quando
+ * ultrapassa a sua durao mxima; sesses expiradas so descartadas no prximo acesso e,
+ * periodicamente, por uma tarefa em segundo plano. Cada usurio pode ter um nmero limitado de
+ * sesses abertas: ao abrir uma sesso alm do limite, a mais antiga  encerrada.
+ *
+ * As operaes de escrita mais sujeitas a abuso tm limite de taxa, controlado por baldes de
+ * fichas sem travas: um por sesso e outro, com limites {@value #USER_BUDGET_FACTOR} vezes
+ * maiores, compartilhado pelas sesses do usurio. A requisio s  aceita se houver ficha nos dois.
+ *
+ * As sesses podem ser gravadas e restauradas depois de um reincio (ver {@link SessionSnapshot}).
+ * As sesses restauradas ficam pendentes e s so religadas aos usurios quando usadas pela
+ * primeira vez, de forma que a inicializao no depende da quantidade de sesses gravadas.
+ *
+ * Quem guarda estado associado a uma sesso pode registrar um ouvinte com {@link #onSessionEnd(Consumer)},
+ * chamado com o ID de cada sesso encerrada, expirada ou descartada por exceder o limite do usurio.
  */
 public class SessionManager {
-    private Map<String, User> sessionsOn;
-    private Integer sessionIdCount;
+    /**
+     * Tempo mximo sem acessos, em segundos, configurvel pela propriedade {@code jackut.sessao.ociosidade}.
+     */
+    public static final int DEFAULT_IDLE_SECONDS = Integer.getInteger("jackut.sessao.ociosidade", 30 * 60);
+
+    /**
+     * Durao mxima de uma sesso, em segundos, configurvel pela propriedade {@code jackut.sessao.duracao}.
+     */
+    public static final int DEFAULT_MAX_AGE_SECONDS = Integer.getInteger("jackut.sessao.duracao", 24 * 60 * 60);
+
+    /**
+     * Quantidade mxima de sesses por usurio, configurvel pela propriedade {@code jackut.sessao.limite}.
+     */
+    public static final int DEFAULT_MAX_PER_USER = Integer.getInteger("jackut.sessao.limite", 32);
+
+    /**
+     * Quantas vezes os limites de taxa de um usurio so maiores que os de uma sesso.
+     */
+    public static final int USER_BUDGET_FACTOR = 4;
+
+    /**
+     * Indica se as sesses so gravadas com os demais dados, configurvel pela propriedade {@code jackut.sessao.persistir}.
+     */
+    public static final boolean PERSIST_SESSIONS = Boolean.parseBoolean(System.getProperty("jackut.sessao.persistir", "true"));
+
+    private static final long REAPER_PERIOD_MILLIS = 60_000;
+    private static final int TOKEN_BYTES = 16;
+
+    private final Map<String, Session> sessionsOn;
+    private final Map<String, Deque<String>> tokensByLogin;
+    private final Map<String, TokenBucket[]> bucketsByLogin;
+    private final Map<String, SessionSnapshot.Entry> pending;
+    private volatile Function<String, User> userResolver;
+    private volatile Consumer<String> sessionEndListener;
+    private volatile RateBudget[] budgets;
+    private final SecureRandom random;
+    private volatile long idleMillis;
+    private volatile long maxAgeMillis;
+    private volatile int maxPerUser;
+    private volatile ScheduledExecutorService reaper;
 
     /**
      * Constri uma nova instncia de {@code SessionManager}.
      *
-     * Este construtor inicializa uma estrutura para gerenciar as sesses de usurios ativas
-     * e define o contador de IDs de sesso para zero. A estrutura de dados usada para gerenciar
-     * as sesses permite o rastreamento eficiente e a recuperao de sesses de usurios ativos.
+     * Este construtor inicializa uma estrutura para gerenciar as sesses de usurios ativas,
+     * com os limites de validade e de sesses por usurio padro. A tarefa que descarta as
+     * sesses expiradas s  iniciada quando a primeira sesso  aberta.
      */
     public SessionManager() {
-        this.sessionsOn = new TreeMap<String, User>();
-        this.sessionIdCount = 0;
+        this.sessionsOn = new ConcurrentHashMap<>();
+        this.tokensByLogin = new ConcurrentHashMap<>();
+        this.bucketsByLogin = new ConcurrentHashMap<>();
+        this.pending = new ConcurrentHashMap<>();
+        this.random = new SecureRandom();
+        this.sessionEndListener = sessionId -> { };
+        this.resetPolicy();
     }
 
     /**
-     * Limpa todas as sesses de usurios ativas e reseta o contador de IDs de sesso.
+     * Registra o ouvinte chamado com o ID de cada sesso que termina, seja por encerramento,
+     * expirao, excesso de sesses do usurio ou remoo do usurio.
+     *
+     * @param listener o ouvinte das sesses encerradas.
+     */
+    public void onSessionEnd(Consumer<String> listener) {
+        this.sessionEndListener = listener;
+    }
+
+    /**
+     * Limpa todas as sesses de usurios ativas e restaura os limites padro.
      *
      * Este mtodo remove todas as entradas da estrutura interna de rastreamento de sesses, encerrando,
-     * efetivamente, todas as sesses existentes. O contador de IDs de sesso  redefinido para zero,
-     * permitindo que novas sesses comecem a partir de um estado inicial. Isso  usado, normalmente,
-     * quando os dados das sesses precisam ser completamente apagados ou reinicializados dentro da aplicao.
+     * efetivamente, todas as sesses existentes, e encerra a tarefa em segundo plano. Isso  usado,
+     * normalmente, quando os dados das sesses precisam ser completamente apagados ou reinicializados
+     * dentro da aplicao.
      */
-    public void clearSessions() {
+    public synchronized void clearSessions() {
         this.sessionsOn.clear();
-        this.sessionIdCount = 0;
+        this.tokensByLogin.clear();
+        this.bucketsByLogin.clear();
+        this.pending.clear();
+        this.resetPolicy();
+        if (this.reaper != null) {
+            this.reaper.shutdownNow();
+            this.reaper = null;
+        }
+    }
+
+    /**
+     * Define a validade das sesses e quantas sesses cada usurio pode manter abertas.
+     * A nova validade vale tambm para as sesses j abertas.
+     *
+     * @param idleSeconds o tempo mximo sem acessos, em segundos.
+     * @param maxAgeSeconds a durao mxima de uma sesso, em segundos.
+     * @param maxPerUser a quantidade mxima de sesses por usurio.
+     */
+    public void setPolicy(int idleSeconds, int maxAgeSeconds, int maxPerUser) {
+        this.idleMillis = TimeUnit.SECONDS.toMillis(idleSeconds);
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+        this.maxPerUser = maxPerUser;
+    }
+
+    /**
+     * Define o limite de taxa de uma operao para cada sesso. O limite de cada usurio passa a
+     * ser {@value #USER_BUDGET_FACTOR} vezes maior.
+     *
+     * @param operation a operao.
+     * @param perMinute a quantidade mdia de requisies permitidas por minuto.
+     * @param burst a quantidade de requisies permitidas de uma s vez.
+     */
+    public synchronized void setRateLimit(RateLimitedOperation operation, int perMinute, int burst) {
+        RateBudget[] updated = this.budgets.clone();
+        updated[operation.ordinal()] = new RateBudget(perMinute, burst);
+        this.budgets = updated;
+    }
+
+    /**
+     * Consome uma ficha da sesso e do usurio dela para uma operao com limite de taxa.
+     * Se a sesso no estiver ativa, nada  consumido e a prpria operao trata a sesso invlida.
+     * Se o usurio recusar a operao, a ficha j consumida da sesso  devolvida, de forma que
+     * uma operao recusada no gaste nenhum dos dois limites.
+     *
+     * @param sessionId o ID da sesso que far a operao.
+     * @param operation a operao.
+     * @throws RateLimitExceededException se a sesso ou o usurio tiver ultrapassado o limite da operao.
+     */
+    public void acquire(String sessionId, RateLimitedOperation operation) throws RateLimitExceededException {
+        Session session = this.find(sessionId);
+        if (session == null) {
+            return;
+        }
+        RateBudget budget = this.budgets[operation.ordinal()];
+        RateBudget userBudget = budget.times(USER_BUDGET_FACTOR);
+        long now = System.nanoTime();
+        TokenBucket userBucket = this.bucketsByLogin.computeIfAbsent(session.getUser().getLogin(), login -> newBuckets())[operation.ordinal()];
+        TokenBucket sessionBucket = session.getBucket(operation);
+        if (!sessionBucket.tryAcquire(now, budget.getIntervalNanos(), budget.getToleranceNanos())) {
+            throw new RateLimitExceededException();
+        }
+        if (!userBucket.tryAcquire(now, userBudget.getIntervalNanos(), userBudget.getToleranceNanos())) {
+            sessionBucket.refund(budget.getIntervalNanos());
+            throw new RateLimitExceededException();
+        }
+    }
+
+    /**
+     * Cria um balde de fichas para cada operao com limite de taxa.
+     *
+     * @return os baldes, indexados pela ordem das operaes.
+     */
+    static TokenBucket[] newBuckets() {
+        TokenBucket[] buckets = new TokenBucket[RateLimitedOperation.values().length];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new TokenBucket();
+        }
+        return buckets;
+    }
+
+    private void resetPolicy() {
+        this.setPolicy(DEFAULT_IDLE_SECONDS, DEFAULT_MAX_AGE_SECONDS, DEFAULT_MAX_PER_USER);
+        RateBudget[] defaults = new RateBudget[RateLimitedOperation.values().length];
+        for (RateLimitedOperation operation : RateLimitedOperation.values()) {
+            defaults[operation.ordinal()] = operation.defaultBudget();
+        }
+        this.budgets = defaults;
     }
 
     /**
      * Cria uma nova sesso para o usurio especificado, atribui um ID de sesso nico
-     * e rastreia a sesso no sistema de gerenciamento de sesses.
+     * e rastreia a sesso no sistema de gerenciamento de sesses. Se o usurio j tiver o
+     * mximo de sesses permitido, a sesso mais antiga dele  encerrada.
      *
      * @param user o usurio para quem a sesso est sendo criada
      * @return o ID nico da sesso atribudo ao usurio
      */
     public String newSession(User user) {
-        this.sessionIdCount++;
-        String strId = this.sessionIdCount.toString();
-        this.sessionsOn.put(strId, user);
-        return strId;
+        String token = this.newToken();
+        List<String> evicted = new ArrayList<>();
+        this.sessionsOn.put(token, new Session(token, user, System.currentTimeMillis()));
+        this.tokensByLogin.compute(user.getLogin(), (login, tokens) -> {
+            if (tokens == null) {
+                tokens = new ArrayDeque<>();
+            }
+            tokens.addLast(token);
+            while (tokens.size() > this.maxPerUser) {
+                String oldest = tokens.pollFirst();
+                this.sessionsOn.remove(oldest);
+                evicted.add(oldest);
+            }
+            return tokens;
+        });
+        evicted.forEach(this.sessionEndListener);
+        if (this.reaper == null) {
+            this.startReaper();
+        }
+        return token;
     }
 
     /**
      * Verifica se uma sesso com o ID de sesso fornecido est atualmente ativa.
      *
      * @param id o identificador nico da sesso a ser verificada
-     * @return true se a sesso estiver ativa e existir no mapa de sesses atual, false caso contrrio
+     * @return true se a sesso estiver ativa e no tiver expirado, false caso contrrio
      */
     public boolean sessionIsOnline(String id) {
-        return this.sessionsOn.containsKey(id);
+        return this.activeSession(id) != null;
     }
 
     /**
-     * Recupera o usurio associado ao ID de sesso fornecido, caso a sesso esteja ativa.
+     * Recupera o usurio associado ao ID de sesso fornecido, caso a sesso esteja ativa,
+     * registrando o acesso  sesso.
      *
      * @param id o ID de sesso associado ao usurio que ser recuperado
      * @return o objeto User associado ao ID de sesso fornecido
-     * @throws UserNotRegisteredException se nenhum usurio estiver associado ao ID de sesso fornecido ou se a sesso estiver inativa
+     * @throws UserNotRegisteredException se nenhum usurio estiver associado ao ID de sesso fornecido ou se a sesso estiver inativa ou expirada
      */
     public User getUserBySessionId(String id) throws UserNotRegisteredException {
-        if (this.sessionIsOnline(id)) {
-            return this.sessionsOn.get(id);
+        SessionLookupEvent event = new SessionLookupEvent();
+        event.begin();
+        Session session = this.activeSession(id);
+        if (event.shouldCommit()) {
+            event.login = session == null ? null : session.getUser().getLogin();
+            event.found = session != null;
+            event.commit();
         }
-        throw new UserNotRegisteredException();
+        if (session == null) {
+            throw new UserNotRegisteredException();
+        }
+        return session.getUser();
     }
 
     /**
@@ -84,6 +280,219 @@ public class SessionManager {
      * @param sessionId ID da sesso a ser removida.
      */
     public void removeSession(String sessionId) {
-        this.sessionsOn.remove(sessionId);
+        Session session = this.find(sessionId);
+        if (session != null) {
+            this.endSession(session);
+        }
+    }
+
+    /**
+     * Encerra todas as sesses de um usurio, por exemplo quando ele  removido do sistema.
+     *
+     * @param login o login do usurio.
+     */
+    public void removeSessionsOf(String login) {
+        this.pending.values().removeIf(entry -> entry.getLogin().equals(login));
+        Deque<String> tokens = this.tokensByLogin.remove(login);
+        if (tokens != null) {
+            for (String token : tokens) {
+                this.sessionsOn.remove(token);
+                this.sessionEndListener.accept(token);
+            }
+        }
+        this.releaseBuckets(login);
+    }
+
+    /**
+     * Descarta as sesses expiradas no instante informado e os limites de taxa j recuperados
+     * dos usurios que no tm mais sesses.
+     *
+     * @param nowMillis o instante atual, em milissegundos.
+     */
+    public void expire(long nowMillis) {
+        for (Session session : this.sessionsOn.values()) {
+            if (session.isExpired(nowMillis, this.idleMillis, this.maxAgeMillis)) {
+                this.endSession(session);
+            }
+        }
+        this.pending.values().removeIf(entry -> this.isExpired(entry, nowMillis));
+        for (String login : this.bucketsByLogin.keySet()) {
+            this.releaseBuckets(login);
+        }
+    }
+
+    /**
+     * Restaura sesses gravadas. As sesses ainda vlidas ficam pendentes at serem usadas, quando
+     * o usurio dono de cada uma  recuperado pelo login. A restaurao no inicia a tarefa em
+     * segundo plano: as sesses pendentes so verificadas no uso e ao serem gravadas novamente.
+     *
+     * @param entries as sesses gravadas.
+     * @param userResolver funo que recupera o usurio pelo login, ou retorna null se ele no existir mais.
+     */
+    public void restore(List<SessionSnapshot.Entry> entries, Function<String, User> userResolver) {
+        this.userResolver = userResolver;
+        long now = System.currentTimeMillis();
+        for (SessionSnapshot.Entry entry : entries) {
+            if (!this.isExpired(entry, now)) {
+                this.pending.put(entry.getToken(), entry);
+            }
+        }
+    }
+
+    /**
+     * Retorna as sesses vlidas, incluindo as restauradas que ainda no foram usadas, para que
+     * sejam gravadas.
+     *
+     * @return as sesses vlidas.
+     */
+    public List<SessionSnapshot.Entry> snapshot() {
+        long now = System.currentTimeMillis();
+        List<SessionSnapshot.Entry> entries = new ArrayList<>(this.sessionsOn.size() + this.pending.size());
+        for (Session session : this.sessionsOn.values()) {
+            if (!session.isExpired(now, this.idleMillis, this.maxAgeMillis)) {
+                entries.add(new SessionSnapshot.Entry(session.getToken(), session.getUser().getLogin(),
+                        session.getCreatedAt(), session.getLastAccessAt()));
+            }
+        }
+        for (SessionSnapshot.Entry entry : this.pending.values()) {
+            if (!this.isExpired(entry, now)) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Retorna a quantidade de sesses abertas, incluindo as expiradas ainda no descartadas.
+     *
+     * @return a quantidade de sesses.
+     */
+    public int countSessions() {
+        return this.sessionsOn.size();
+    }
+
+    /**
+     * Retorna a quantidade de sesses vlidas de um usurio, incluindo as restauradas que ainda
+     * no foram usadas.
+     *
+     * @param login o login do usurio.
+     * @return a quantidade de sesses vlidas do usurio.
+     */
+    public int countSessionsOf(String login) {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Session session : this.sessionsOn.values()) {
+            if (session.getUser().getLogin().equals(login) && !session.isExpired(now, this.idleMillis, this.maxAgeMillis)) {
+                count++;
+            }
+        }
+        for (SessionSnapshot.Entry entry : this.pending.values()) {
+            if (entry.getLogin().equals(login) && !this.isExpired(entry, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Session find(String id) {
+        Session session = id == null ? null : this.sessionsOn.get(id);
+        if (session == null && id != null && !this.pending.isEmpty()) {
+            session = this.materialize(id);
+        }
+        return session;
+    }
+
+    private Session materialize(String id) {
+        // Acessos simultneos  mesma sesso pendente esperam que a primeira a religue
+        this.pending.computeIfPresent(id, (token, entry) -> {
+            User user = this.userResolver.apply(entry.getLogin());
+            if (user != null) {
+                this.sessionsOn.put(token, new Session(token, user, entry.getCreatedAt(), entry.getLastAccessAt()));
+                this.tokensByLogin.compute(user.getLogin(), (login, tokens) -> {
+                    if (tokens == null) {
+                        tokens = new ArrayDeque<>();
+                    }
+                    tokens.addLast(token);
+                    return tokens;
+                });
+            }
+            return null;
+        });
+        return this.sessionsOn.get(id);
+    }
+
+    private boolean isExpired(SessionSnapshot.Entry entry, long nowMillis) {
+        return nowMillis - entry.getLastAccessAt() > this.idleMillis || nowMillis - entry.getCreatedAt() > this.maxAgeMillis;
+    }
+
+    private Session activeSession(String id) {
+        Session session = this.find(id);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (session.isExpired(now, this.idleMillis, this.maxAgeMillis)) {
+            this.endSession(session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    private void endSession(Session session) {
+        if (this.sessionsOn.remove(session.getToken(), session)) {
+            String login = session.getUser().getLogin();
+            Deque<String> remaining = this.tokensByLogin.computeIfPresent(login, (key, tokens) -> {
+                tokens.remove(session.getToken());
+                return tokens.isEmpty() ? null : tokens;
+            });
+            if (remaining == null) {
+                this.releaseBuckets(login);
+            }
+            this.sessionEndListener.accept(session.getToken());
+        }
+    }
+
+    /**
+     * Descarta os baldes de um usurio sem sesses, mas s depois que todos estiverem cheios;
+     * antes disso, encerrar a sesso e abrir outra devolveria as fichas gastas. Os baldes que
+     * ainda no se recuperaram so revistos a cada execuo de {@link #expire(long)}.
+     */
+    private void releaseBuckets(String login) {
+        long now = System.nanoTime();
+        this.bucketsByLogin.computeIfPresent(login, (key, buckets) -> {
+            if (this.tokensByLogin.containsKey(key)) {
+                return buckets;
+            }
+            for (TokenBucket bucket : buckets) {
+                if (!bucket.isFull(now)) {
+                    return buckets;
+                }
+            }
+            return null;
+        });
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        this.random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private synchronized void startReaper() {
+        if (this.reaper == null) {
+            this.reaper = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "jackut-sessoes");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.reaper.scheduleWithFixedDelay(() -> {
+                try {
+                    this.expire(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }, REAPER_PERIOD_MILLIS, REAPER_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package br.ufal.ic.p2.jackut.code.session;
+
+import br.ufal.ic.p2.jackut.code.persistence.SerializableData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cpia compacta das sesses abertas, gravada junto com os demais dados do sistema para que os
+ * usurios continuem conectados depois de um reincio.
+ *
+ * Cada sesso  guardada apenas pelo token, pelo login do usurio e pelos instantes de abertura
+ * e de ltimo acesso, em vetores paralelos; os usurios no so gravados novamente.
+ */
+public class SessionSnapshot extends SerializableData {
+    private static final long serialVersionUID = 1L;
+
+    private String[] tokens;
+    private String[] logins;
+    private long[] createdAt;
+    private long[] lastAccessAt;
+
+    /**
+     * Uma sesso gravada na cpia.
+     */
+    public static final class Entry {
+        private final String token;
+        private final String login;
+        private final long createdAt;
+        private final long lastAccessAt;
+
+        /**
+         * Constri uma sesso gravada.
+         *
+         * @param token o token da sesso.
+         * @param login o login do usurio dono da sesso.
+         * @param createdAt o instante de abertura, em milissegundos.
+         * @param lastAccessAt o instante do ltimo acesso, em milissegundos.
+         */
+        public Entry(String token, String login, long createdAt, long lastAccessAt) {
+            this.token = token;
+            this.login = login;
+            this.createdAt = createdAt;
+            this.lastAccessAt = lastAccessAt;
+        }
+
+        /**
+         * Retorna o token da sesso.
+         *
+         * @return o token da sesso.
+         */
+        public String getToken() {
+            return this.token;
+        }
+
+        /**
+         * Retorna o login do usurio dono da sesso.
+         *
+         * @return o login do usurio.
+         */
+        public String getLogin() {
+            return this.login;
+        }
+
+        /**
+         * Retorna o instante de abertura da sesso.
+         *
+         * @return o instante de abertura, em milissegundos.
+         */
+        public long getCreatedAt() {
+            return this.createdAt;
+        }
+
+        /**
+         * Retorna o instante do ltimo acesso  sesso.
+         *
+         * @return o instante do ltimo acesso, em milissegundos.
+         */
+        public long getLastAccessAt() {
+            return this.lastAccessAt;
+        }
+    }
+
+    /**
+     * Constri uma cpia vazia.
+     *
+     * @param filePath o caminho do arquivo onde a cpia ser serializada.
+     */
+    public SessionSnapshot(String filePath) {
+        super(filePath);
+        this.setEntries(new ArrayList<>());
+    }
+
+    /**
+     * Retorna as sesses da cpia.
+     *
+     * @return as sesses gravadas.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>(this.tokens.length);
+        for (int i = 0; i < this.tokens.length; i++) {
+            entries.add(new Entry(this.tokens[i], this.logins[i], this.createdAt[i], this.lastAccessAt[i]));
+        }
+        return entries;
+    }
+
+    /**
+     * Substitui as sesses da cpia.
+     *
+     * @param entries as sesses a serem gravadas.
+     */
+    public void setEntries(List<Entry> entries) {
+        int size = entries.size();
+        this.tokens = new String[size];
+        this.logins = new String[size];
+        this.createdAt = new long[size];
+        this.lastAccessAt = new long[size];
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries.get(i);
+            this.tokens[i] = entry.getToken();
+            this.logins[i] = entry.getLogin();
+            this.createdAt[i] = entry.getCreatedAt();
+            this.lastAccessAt[i] = entry.getLastAccessAt();
+        }
+    }
+
+    /**
+     * Converte o objeto fornecido para o tipo SessionSnapshot e atualiza os campos
+     * do objeto atual com as sesses da cpia desserializada.
+     *
+     * @param obj o objeto a ser convertido para SessionSnapshot.
+     */
+    @Override
+    protected void castObject(Object obj) {
+        SessionSnapshot snapshot = (SessionSnapshot) obj;
+        this.tokens = snapshot.tokens;
+        this.logins = snapshot.logins;
+        this.createdAt = snapshot.createdAt;
+        this.lastAccessAt = snapshot.lastAccessAt;
+    }
+}
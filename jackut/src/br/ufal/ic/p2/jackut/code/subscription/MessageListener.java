@@ -0,0 +1,27 @@
+package br.ufal.ic.p2.jackut.code.subscription;
+
+import br.ufal.ic.p2.jackut.code.message.Message;
+
+/**
+ * Ouvinte notificado quando um usurio assinante recebe uma mensagem.
+ *
+ * As notificaes so feitas na mesma thread que entregou a mensagem, logo depois de ela ser
+ * colocada na caixa de entrada do usurio; por isso as implementaes devem retornar rapidamente.
+ * A mensagem continua na caixa de entrada e pode ser lida normalmente por lerRecado ou lerMensagem.
+ */
+public interface MessageListener {
+    /**
+     * Chamado quando o usurio recebe um recado.
+     *
+     * @param message o recado recebido
+     */
+    void onPrivateMessage(Message message);
+
+    /**
+     * Chamado quando o usurio recebe uma mensagem de uma comunidade da qual participa.
+     *
+     * @param communityName o nome da comunidade
+     * @param message a mensagem recebida
+     */
+    void onCommunityMessage(String communityName, Message message);
+}
@@ -0,0 +1,67 @@
+package br.ufal.ic.p2.jackut.code.subscription;
+
+import br.ufal.ic.p2.jackut.code.message.Message;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ouvinte que guarda as mensagens notificadas em uma fila bloqueante, para que o cliente
+ * aguarde a prxima mensagem sem precisar consultar a caixa de entrada repetidamente.
+ *
+ * A fila  limitada: se o cliente deixar de consumi-la, as notificaes mais antigas so
+ * descartadas para dar lugar s novas. As mensagens continuam disponveis na caixa de entrada.
+ */
+public class QueueListener implements MessageListener {
+    /**
+     * Quantidade mxima de notificaes pendentes por assinatura.
+     */
+    public static final int CAPACITY = 1024;
+
+    private final BlockingQueue<Message> queue;
+
+    /**
+     * Constri um ouvinte com a fila vazia.
+     */
+    public QueueListener() {
+        this.queue = new LinkedBlockingQueue<>(CAPACITY);
+    }
+
+    @Override
+    public void onPrivateMessage(Message message) {
+        this.offer(message);
+    }
+
+    @Override
+    public void onCommunityMessage(String communityName, Message message) {
+        this.offer(message);
+    }
+
+    /**
+     * Aguarda a prxima mensagem notificada, por no mximo o tempo informado.
+     *
+     * @param timeout o tempo mximo de espera
+     * @param unit a unidade do tempo de espera
+     * @return a prxima mensagem, ou null se nenhuma chegar dentro do tempo de espera
+     * @throws InterruptedException se a thread for interrompida durante a espera
+     */
+    public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.queue.poll(timeout, unit);
+    }
+
+    /**
+     * Retorna a quantidade de notificaes ainda no consumidas.
+     *
+     * @return o tamanho da fila
+     */
+    public int size() {
+        return this.queue.size();
+    }
+
+    private void offer(Message message) {
+        while (!this.queue.offer(message)) {
+            this.queue.poll();
+        }
+    }
+}
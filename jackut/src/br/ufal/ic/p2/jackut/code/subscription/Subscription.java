@@ -0,0 +1,63 @@
+package br.ufal.ic.p2.jackut.code.subscription;
+
+/**
+ * Assinatura de um usurio para ser notificado das mensagens que recebe.
+ * A assinatura pertence  sesso que a criou e deixa de existir quando ela termina.
+ */
+public class Subscription {
+    private final String id;
+    private final String sessionId;
+    private final String login;
+    private final MessageListener listener;
+
+    /**
+     * Constri uma assinatura.
+     *
+     * @param id o identificador da assinatura
+     * @param sessionId o ID da sesso que criou a assinatura
+     * @param login o login do usurio assinante
+     * @param listener o ouvinte notificado a cada mensagem recebida
+     */
+    public Subscription(String id, String sessionId, String login, MessageListener listener) {
+        this.id = id;
+        this.sessionId = sessionId;
+        this.login = login;
+        this.listener = listener;
+    }
+
+    /**
+     * Retorna o identificador da assinatura.
+     *
+     * @return o identificador da assinatura
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Retorna o ID da sesso que criou a assinatura.
+     *
+     * @return o ID da sesso
+     */
+    public String getSessionId() {
+        return this.sessionId;
+    }
+
+    /**
+     * Retorna o login do usurio assinante.
+     *
+     * @return o login do assinante
+     */
+    public String getLogin() {
+        return this.login;
+    }
+
+    /**
+     * Retorna o ouvinte da assinatura.
+     *
+     * @return o ouvinte notificado a cada mensagem recebida
+     */
+    public MessageListener getListener() {
+        return this.listener;
+    }
+}
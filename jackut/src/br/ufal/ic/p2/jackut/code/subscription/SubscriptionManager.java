@@ -0,0 +1,175 @@
+package br.ufal.ic.p2.jackut.code.subscription;
+
+import br.ufal.ic.p2.jackut.code.message.Message;
+import br.ufal.ic.p2.jackut.exceptions.subscription.SubscriptionNotFoundException;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Gerencia as assinaturas de notificao de mensagens.
+ *
+ * As assinaturas so indexadas pelo login do assinante, de forma que a entrega de uma mensagem
+ * custa apenas uma consulta ao mapa quando o destinatrio no tem assinaturas. As assinaturas
+ * existem apenas em memria e no so persistidas.
+ *
+ * Os identificadores so tokens aleatrios de 128 bits, como os IDs de sesso, e s o usurio
+ * assinante pode usar ou cancelar uma assinatura. Para os demais, ela  tratada como inexistente.
+ */
+public class SubscriptionManager {
+    private static final int TOKEN_BYTES = 16;
+
+    private final Map<String, Subscription> subscriptions;
+    private final Map<String, List<Subscription>> subscriptionsByLogin;
+    private final Map<String, List<Subscription>> subscriptionsBySession;
+    private final SecureRandom random;
+
+    /**
+     * Constri um gerenciador sem assinaturas.
+     */
+    public SubscriptionManager() {
+        this.subscriptions = new ConcurrentHashMap<>();
+        this.subscriptionsByLogin = new ConcurrentHashMap<>();
+        this.subscriptionsBySession = new ConcurrentHashMap<>();
+        this.random = new SecureRandom();
+    }
+
+    /**
+     * Cria uma assinatura para o usurio da sesso informada.
+     *
+     * @param sessionId o ID da sesso que cria a assinatura
+     * @param login o login do assinante
+     * @param listener o ouvinte notificado a cada mensagem recebida
+     * @return a assinatura criada
+     */
+    public Subscription subscribe(String sessionId, String login, MessageListener listener) {
+        Subscription subscription = new Subscription(this.newToken(), sessionId, login, listener);
+        this.subscriptions.put(subscription.getId(), subscription);
+        this.subscriptionsByLogin.computeIfAbsent(login, key -> new CopyOnWriteArrayList<>()).add(subscription);
+        this.subscriptionsBySession.computeIfAbsent(sessionId, key -> new CopyOnWriteArrayList<>()).add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Recupera uma assinatura do usurio informado pelo seu identificador.
+     *
+     * @param id o identificador da assinatura
+     * @param login o login do usurio que usa a assinatura
+     * @return a assinatura encontrada
+     * @throws SubscriptionNotFoundException se a assinatura no existir ou for de outro usurio
+     */
+    public Subscription getSubscription(String id, String login) throws SubscriptionNotFoundException {
+        Subscription subscription = id == null ? null : this.subscriptions.get(id);
+        if (subscription == null || !subscription.getLogin().equals(login)) {
+            throw new SubscriptionNotFoundException();
+        }
+        return subscription;
+    }
+
+    /**
+     * Cancela uma assinatura do usurio informado.
+     *
+     * @param id o identificador da assinatura
+     * @param login o login do usurio que cancela a assinatura
+     * @throws SubscriptionNotFoundException se a assinatura no existir ou for de outro usurio
+     */
+    public void unsubscribe(String id, String login) throws SubscriptionNotFoundException {
+        Subscription subscription = this.getSubscription(id, login);
+        if (!this.subscriptions.remove(id, subscription)) {
+            throw new SubscriptionNotFoundException();
+        }
+        this.detach(subscription);
+    }
+
+    /**
+     * Cancela as assinaturas criadas por uma sesso, quando ela  encerrada ou expira.
+     *
+     * @param sessionId o ID da sesso encerrada
+     */
+    public void removeSubscriptionsOfSession(String sessionId) {
+        List<Subscription> sessionSubscriptions = this.subscriptionsBySession.remove(sessionId);
+        if (sessionSubscriptions != null) {
+            for (Subscription subscription : sessionSubscriptions) {
+                if (this.subscriptions.remove(subscription.getId(), subscription)) {
+                    this.detach(subscription);
+                }
+            }
+        }
+    }
+
+    private void detach(Subscription subscription) {
+        this.subscriptionsByLogin.computeIfPresent(subscription.getLogin(), (login, list) -> {
+            list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+        this.subscriptionsBySession.computeIfPresent(subscription.getSessionId(), (sessionId, list) -> {
+            list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        this.random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Notifica as assinaturas de um usurio de que ele recebeu um recado.
+     *
+     * @param login o login do destinatrio
+     * @param message o recado recebido
+     */
+    public void publishPrivateMessage(String login, Message message) {
+        List<Subscription> userSubscriptions = this.subscriptionsByLogin.get(login);
+        if (userSubscriptions != null) {
+            for (Subscription subscription : userSubscriptions) {
+                subscription.getListener().onPrivateMessage(message);
+            }
+        }
+    }
+
+    /**
+     * Notifica as assinaturas de um usurio de que ele recebeu uma mensagem de comunidade.
+     *
+     * @param login o login do membro da comunidade
+     * @param communityName o nome da comunidade
+     * @param message a mensagem recebida
+     */
+    public void publishCommunityMessage(String login, String communityName, Message message) {
+        List<Subscription> userSubscriptions = this.subscriptionsByLogin.get(login);
+        if (userSubscriptions != null) {
+            for (Subscription subscription : userSubscriptions) {
+                subscription.getListener().onCommunityMessage(communityName, message);
+            }
+        }
+    }
+
+    /**
+     * Cancela todas as assinaturas de um usurio.
+     *
+     * @param login o login do usurio
+     */
+    public void removeSubscriptionsOf(String login) {
+        List<Subscription> userSubscriptions = this.subscriptionsByLogin.remove(login);
+        if (userSubscriptions != null) {
+            for (Subscription subscription : userSubscriptions) {
+                this.subscriptions.remove(subscription.getId());
+                this.subscriptionsBySession.remove(subscription.getSessionId());
+            }
+        }
+    }
+
+    /**
+     * Cancela todas as assinaturas.
+     */
+    public void clearSubscriptions() {
+        this.subscriptions.clear();
+        this.subscriptionsByLogin.clear();
+        this.subscriptionsBySession.clear();
+    }
+}
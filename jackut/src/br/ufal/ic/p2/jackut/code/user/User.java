@@ -1,6 +1,9 @@
 package br.ufal.ic.p2.jackut.code.user;
 
+import br.ufal.ic.p2.jackut.code.concurrency.VersionedMap;
+import br.ufal.ic.p2.jackut.code.message.Mailbox;
 import br.ufal.ic.p2.jackut.code.message.Message;
+import br.ufal.ic.p2.jackut.code.persistence.LegacyFields;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginOrPasswordException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidPasswordException;
@@ -9,22 +12,28 @@ import br.ufal.ic.p2.jackut.exceptions.message.NoPrivateMessageException;
 import br.ufal.ic.p2.jackut.exceptions.user.UserAttributeNotFilledException;
 import br.ufal.ic.p2.jackut.code.relations.RelationsManager;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * A classe User representa um usurio com login, senha, atributos de perfil,
  * relaes (amizade, fa, paquera, inimigo) representado pelo gerenciador de relaes
  * e 2 sistemas de mensagens (privado e comunidade). Ela implementa a interface
  * Serializable, permitindo que o objeto User seja serializado.
+ *
+ * @see LegacyFields
  */
 public class User implements Serializable {
     private String login, password;
     private Map<String, String> profileAttributes;
-    private List<Message> privateMessages;
-    private List<Message> communityMessages;
-    private List<String> communitys;
+    private Mailbox privateMessages;
+    private Mailbox communityMessages;
+    private VersionedMap<String, String> communitys;
     private RelationsManager relations;
+    private static final long serialVersionUID = 192386421973075692L;
 
     /**
      * Constroi um novo objeto User com o login, senha e nome fornecidos.
@@ -43,10 +52,10 @@ public class User implements Serializable {
 
         this.login = login;
         this.password = password;
-        this.profileAttributes = new TreeMap<String, String>();
-        this.privateMessages = new ArrayList<>();
-        this.communityMessages = new ArrayList<>();
-        this.communitys = new ArrayList<>();
+        this.profileAttributes = new ConcurrentSkipListMap<String, String>();
+        this.privateMessages = new Mailbox(login, "recados");
+        this.communityMessages = new Mailbox(login, "comunidades");
+        this.communitys = new VersionedMap<>();
         this.relations = new RelationsManager();
 
         this.updateProfileAttribute("nome", userName);
@@ -62,12 +71,14 @@ public class User implements Serializable {
     }
 
     /**
-     * Retorna a lista de comunidades.
+     * Retorna uma cpia dos nomes das comunidades do usurio, na ordem em que ele entrou nelas.
+     * As comunidades de um usurio podem ser alteradas em segundo plano quando uma comunidade
+     *  dissolvida; a cpia  feita a partir de uma verso imutvel do conjunto, sem travas.
      *
-     * @return a lista de comunidades.
+     * @return o conjunto de comunidades.
      */
-    public List<String> getCommunitys() {
-        return this.communitys;
+    public Set<String> getCommunitys() {
+        return new LinkedHashSet<>(this.communitys.snapshot().keys());
     }
 
     /**
@@ -76,7 +87,7 @@ public class User implements Serializable {
      * @return a lista de comunidades do usurio formatada como String.
      */
     public String getCommunitysAsString() {
-        return "{" + String.join(",", this.communitys) + "}";
+        return "{" + String.join(",", this.communitys.snapshot().keys()) + "}";
     }
 
     /**
@@ -153,14 +164,12 @@ public class User implements Serializable {
      * @return a primeira mensagem privada disponvel para o usurio.
      * @throws NoPrivateMessageException se no houver mensagens disponveis para leitura.
      */
-    public String readPrivateMessage() throws NoPrivateMessageException {
-        if (this.privateMessages.isEmpty()) {
+    public Message readPrivateMessage() throws NoPrivateMessageException {
+        Message message = this.privateMessages.poll();
+        if (message == null) {
             throw new NoPrivateMessageException();
-        } else {
-            Message message = this.privateMessages.get(0);
-            this.privateMessages.remove(0);
-            return message.getMessage();
         }
+        return message;
     }
 
     /**
@@ -170,14 +179,83 @@ public class User implements Serializable {
      * @return a primeira mensagem de uma comunidade disponvel para o usurio.
      * @throws NoCommunityMessageException se no houver mensagens disponveis para leitura.
      */
-    public String readCommunityMessage() throws NoCommunityMessageException {
-        if (this.communityMessages.isEmpty()) {
+    public Message readCommunityMessage() throws NoCommunityMessageException {
+        Message message = this.communityMessages.poll();
+        if (message == null) {
             throw new NoCommunityMessageException();
-        } else {
-            Message message = this.communityMessages.get(0);
-            this.communityMessages.remove(0);
-            return message.getMessage();
         }
+        return message;
+    }
+
+    /**
+     * Define a quantidade mxima de mensagens mantidas em memria em cada caixa do usurio.
+     * As mensagens que excederem o limite so guardadas em disco at serem lidas.
+     *
+     * @param limit o novo limite, maior que zero.
+     */
+    public void setMailboxLimit(int limit) {
+        this.privateMessages.setLimit(limit);
+        this.communityMessages.setLimit(limit);
+    }
+
+    /**
+     * Retorna a quantidade de mensagens privadas e de comunidades ainda no lidas.
+     *
+     * @return a quantidade de mensagens no lidas.
+     */
+    public int getUnreadMessagesCount() {
+        return this.privateMessages.size() + this.communityMessages.size();
+    }
+
+    /**
+     * Remove das caixas de mensagens em memria do usurio as mensagens cuja validade j passou.
+     *
+     * @param now o instante de referncia, em milissegundos desde a poca Unix.
+     * @return a quantidade de mensagens removidas.
+     */
+    public int purgeExpiredMessages(long now) {
+        return this.privateMessages.purgeExpired(now) + this.communityMessages.purgeExpired(now);
+    }
+
+    /**
+     * Esvazia as caixas de mensagens do usurio e apaga seus arquivos de transbordo.
+     */
+    public void discardMailboxes() {
+        this.privateMessages.discard();
+        this.communityMessages.discard();
+    }
+
+    /**
+     * Retorna, sem remov-las, as mensagens privadas e de comunidades recebidas pelo usurio
+     * cujo nmero de sequncia  maior que o cursor informado, em ordem de sequncia.
+     *
+     * @param cursor o nmero de sequncia da ltima mensagem j conhecida pelo cliente.
+     * @param limit a quantidade mxima de mensagens a serem retornadas.
+     * @return a lista de mensagens posteriores ao cursor, limitada a {@code limit} elementos.
+     */
+    public List<Message> getMessagesSince(long cursor, int limit) {
+        List<Message> messages = new ArrayList<>();
+        List<Message> privateSince = this.privateMessages.since(cursor, limit);
+        List<Message> communitySince = this.communityMessages.since(cursor, limit);
+        int privateIndex = 0;
+        int communityIndex = 0;
+
+        while (messages.size() < limit) {
+            Message nextPrivate = privateIndex < privateSince.size() ? privateSince.get(privateIndex) : null;
+            Message nextCommunity = communityIndex < communitySince.size() ? communitySince.get(communityIndex) : null;
+
+            if (nextPrivate == null && nextCommunity == null) {
+                break;
+            }
+            if (nextCommunity == null || (nextPrivate != null && nextPrivate.getSequence() < nextCommunity.getSequence())) {
+                messages.add(nextPrivate);
+                privateIndex++;
+            } else {
+                messages.add(nextCommunity);
+                communityIndex++;
+            }
+        }
+        return messages;
     }
 
     /**
@@ -186,7 +264,7 @@ public class User implements Serializable {
      * @param newCommunity o nome da nova comunidade a ser adicionada
      */
     public void addCommunity(String newCommunity) {
-        this.communitys.add(newCommunity);
+        this.communitys.put(newCommunity, newCommunity);
     }
 
     /**
@@ -204,7 +282,37 @@ public class User implements Serializable {
      * @param user o usurio cujas mensagens sero removidas
      */
     public void removeAllMessagesFromUser(User user) {
-        this.privateMessages.removeIf(message -> message.getSender() == user);
-        this.communityMessages.removeIf(message -> message.getSender() == user);
+        this.privateMessages.removeMessagesFrom(user.getLogin());
+        this.communityMessages.removeMessagesFrom(user.getLogin());
+    }
+
+    /**
+     * L o usurio gravado. No formato original, as listas de recados, de mensagens e de
+     * comunidades so convertidas nas caixas de mensagens e no mapa de comunidades atuais.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.login = (String) fields.get("login", null);
+        this.password = (String) fields.get("password", null);
+        Map<String, String> attributes = (Map<String, String>) fields.get("profileAttributes", null);
+        this.profileAttributes = attributes instanceof ConcurrentSkipListMap ? attributes : new ConcurrentSkipListMap<>(attributes);
+        this.relations = (RelationsManager) fields.get("relations", null);
+
+        Object storedPrivate = fields.get("privateMessages", null);
+        Object storedCommunity = fields.get("communityMessages", null);
+        Object storedCommunitys = fields.get("communitys", null);
+        if (storedPrivate instanceof Mailbox) {
+            this.privateMessages = (Mailbox) storedPrivate;
+            this.communityMessages = (Mailbox) storedCommunity;
+            this.communitys = (VersionedMap<String, String>) storedCommunitys;
+            return;
+        }
+        this.privateMessages = new Mailbox(this.login, "recados");
+        this.communityMessages = new Mailbox(this.login, "comunidades");
+        this.communitys = new VersionedMap<>();
+        LegacyFields.<Message>forEachAfterRead(in, storedPrivate, this.privateMessages::add);
+        LegacyFields.<Message>forEachAfterRead(in, storedCommunity, this.communityMessages::add);
+        LegacyFields.<String>forEachAfterRead(in, storedCommunitys, this::addCommunity);
     }
 }
@@ -1,5 +1,9 @@
 package br.ufal.ic.p2.jackut.code.user;
 
+import br.ufal.ic.p2.jackut.code.jfr.UserLookupEvent;
+import br.ufal.ic.p2.jackut.code.message.Mailbox;
+import br.ufal.ic.p2.jackut.code.message.MessageSequence;
+import br.ufal.ic.p2.jackut.code.persistence.LegacyFields;
 import br.ufal.ic.p2.jackut.code.persistence.SerializableData;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginException;
 import br.ufal.ic.p2.jackut.exceptions.login.InvalidLoginOrPasswordException;
@@ -7,18 +11,27 @@ import br.ufal.ic.p2.jackut.exceptions.login.InvalidPasswordException;
 import br.ufal.ic.p2.jackut.exceptions.login.LoginAlredyUsedException;
 import br.ufal.ic.p2.jackut.exceptions.login.UserNotRegisteredException;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A classe UserManager  responsvel por gerenciar os dados dos usurios dentro de uma aplicao.
  * Ela estende a classe SerializableData, que facilita a serializao e desserializao
- * dos dados para um arquivo. A classe mantm uma lista de usurios e fornece mtodos
+ * dos dados para um arquivo. A classe mantm os usurios indexados pelo login, em um mapa
+ * que pode ser consultado e alterado por vrias threads, e fornece mtodos
  * para operaes de gerenciamento de usurios, como adicionar novos usurios, limpar a lista,
  * verificar logins existentes e recuperar detalhes de usurios.
+ *
+ * @see LegacyFields
  */
 public class UserManager extends SerializableData {
-    private List<User> userList;
+    private Map<String, User> usersByLogin;
+    private MessageSequence messageSequence;
+    private static final long serialVersionUID = 6575436878108429456L;
 
     /**
      * Constri uma nova instncia de UserManager, inicializando a lista de usurios para gerenciar os usurios
@@ -28,7 +41,8 @@ public class UserManager extends SerializableData {
      */
     public UserManager(String filePath) {
         super(filePath);
-        this.userList = new ArrayList<User>();
+        this.usersByLogin = new ConcurrentHashMap<String, User>();
+        this.messageSequence = new MessageSequence();
     }
 
     /**
@@ -40,13 +54,57 @@ public class UserManager extends SerializableData {
      * dos usurios gerenciados por esta instncia sero perdidos.
      */
     public void clearUsers() {
-        this.userList.clear();
+        this.usersByLogin.clear();
+        this.messageSequence.reset();
+    }
+
+    /**
+     * Retorna a quantidade de usurios cadastrados.
+     *
+     * @return a quantidade de usurios.
+     */
+    public int countUsers() {
+        return this.usersByLogin.size();
+    }
+
+    /**
+     * Soma as mensagens no lidas das caixas de mensagens de todos os usurios.
+     *
+     * @return a quantidade de mensagens no lidas.
+     */
+    public long countUnreadMessages() {
+        long count = 0;
+        for (User user : this.usersByLogin.values()) {
+            count += user.getUnreadMessagesCount();
+        }
+        return count;
+    }
+
+    /**
+     * Esvazia as caixas de mensagens de todos os usurios e apaga os arquivos de transbordo do disco.
+     */
+    public void clearMailboxes() {
+        for (User user : this.usersByLogin.values()) {
+            user.discardMailboxes();
+        }
+        Mailbox.clearOverflowDirectory();
+    }
+
+    /**
+     * Retorna o prximo nmero de sequncia a ser atribudo a uma mensagem.
+     * O gerador  persistido junto com os usurios, garantindo que a sequncia
+     * continue crescendo mesmo aps o sistema ser reiniciado.
+     *
+     * @return o prximo nmero de sequncia de mensagem
+     */
+    public long nextMessageSequence() {
+        return this.messageSequence.next();
     }
 
     /**
      * Recupera um usurio pelo seu login.
      *
-     * Este mtodo busca um usurio na lista de usurios que corresponda ao login especificado.
+     * Este mtodo busca, no mapa de usurios, o usurio que corresponda ao login especificado.
      * Se um usurio correspondente for encontrado, ele  retornado. Caso contrrio,
      * uma exceo UserNotRegisteredException  lanada.
      *
@@ -55,32 +113,50 @@ public class UserManager extends SerializableData {
      * @throws UserNotRegisteredException se nenhum usurio com o login especificado for encontrado
      */
     public User getUserByLogin(String login) throws UserNotRegisteredException {
-        for (User user : this.userList) {
-            if (user.getLogin().equals(login)) {
-                return user;
-            }
+        UserLookupEvent event = new UserLookupEvent();
+        event.begin();
+        User user = login == null ? null : this.usersByLogin.get(login);
+        if (event.shouldCommit()) {
+            event.login = login;
+            event.found = user != null;
+            event.commit();
+        }
+        if (user != null) {
+            return user;
         }
         throw new UserNotRegisteredException();
     }
 
     /**
-     * Verifica se um determinado login j est em uso por algum usurio na lista de usurios.
+     * Recupera de uma s vez os usurios correspondentes a vrios logins, falhando antes de
+     * retornar qualquer usurio se algum dos logins no estiver registrado.
+     *
+     * @param logins os logins dos usurios a serem recuperados
+     * @return os usurios encontrados, indexados pelo login, na ordem dos logins informados
+     * @throws UserNotRegisteredException se algum dos logins no corresponder a um usurio
+     */
+    public Map<String, User> getUsersByLogin(Collection<String> logins) throws UserNotRegisteredException {
+        Map<String, User> found = new LinkedHashMap<>();
+        for (String login : logins) {
+            found.put(login, this.getUserByLogin(login));
+        }
+        return found;
+    }
+
+    /**
+     * Verifica se um determinado login j est em uso por algum usurio.
      *
      * @param login o login a ser verificado na lista de usurios
      * @return true se o login j existir, false caso contrrio
      */
     public boolean loginPreExist(String login) {
-        for (User user : this.userList) {
-            if (user.getLogin().equals(login)) {
-                return true;
-            }
-        }
-        return false;
+        return login != null && this.usersByLogin.containsKey(login);
     }
 
     /**
      * Cria um novo usurio com o login, senha e nome de usurio especificados.
-     * Se o login j existir, uma exceo ser lanada.
+     * Se o login j existir, uma exceo ser lanada. O usurio s  inserido se nenhum outro
+     * tiver sido criado com o mesmo login ao mesmo tempo.
      *
      * @param login o nome de login para o novo usurio
      * @param password a senha para o novo usurio
@@ -95,7 +171,9 @@ public class UserManager extends SerializableData {
         } else {
             try {
                 User user = new User(login, password, userName);
-                this.userList.add(user);
+                if (this.usersByLogin.putIfAbsent(login, user) != null) {
+                    throw new LoginAlredyUsedException();
+                }
             } catch (InvalidLoginException e) {
                 throw e;
             } catch (InvalidPasswordException e) {
@@ -128,7 +206,7 @@ public class UserManager extends SerializableData {
      * @param userSender o usurio cujas mensagens enviadas sero removidas
      */
     public void removeSentMessagesFromUser(User userSender) {
-        for (User user : userList) {
+        for (User user : this.usersByLogin.values()) {
             if (user != userSender) {
                 user.removeAllMessagesFromUser(userSender);
             }
@@ -142,24 +220,48 @@ public class UserManager extends SerializableData {
      * @param userToRemove o usurio a ser removido do sistema e das referncias
      */
     public void removeUserReferences(User userToRemove) {
-        for (User user : userList) {
+        for (User user : this.usersByLogin.values()) {
             if (user != userToRemove) {
                 user.getRelationManager().removeReferencesFromUser(userToRemove);
             }
         }
-        this.userList.remove(userToRemove);
+        this.usersByLogin.remove(userToRemove.getLogin(), userToRemove);
+        userToRemove.discardMailboxes();
     }
 
 
     /**
-     * Converte o objeto fornecido para o tipo UserManager e atualiza o campo userList
-     * do objeto atual com a lista de usurios do objeto fornecido.
+     * Converte o objeto fornecido para o tipo UserManager e atualiza os campos usersByLogin
+     * e messageSequence do objeto atual com os dados do objeto fornecido.
      *
      * @param obj o objeto a ser convertido para UserManager.
      */
     @Override
     protected void castObject(Object obj) {
         UserManager users = (UserManager) obj;
-        this.userList = users.userList;
+        this.usersByLogin = users.usersByLogin;
+        this.messageSequence = users.messageSequence;
+    }
+
+    /**
+     * L o gerenciador gravado. A verso original guardava os usurios em uma lista; arquivos
+     * nesse formato so indexados pelo login ao serem lidos.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Object stored = fields.get("usersByLogin", null);
+        MessageSequence sequence = (MessageSequence) fields.get("messageSequence", null);
+        this.messageSequence = sequence != null ? sequence : new MessageSequence();
+        if (stored != null) {
+            this.usersByLogin = (Map<String, User>) stored;
+            for (User user : this.usersByLogin.values()) {
+                user.getRelationManager().relinkUsers(this.usersByLogin::get);
+            }
+            return;
+        }
+        Map<String, User> users = new ConcurrentHashMap<>();
+        LegacyFields.<User>forEachAfterRead(in, LegacyFields.get(fields, "userList"), user -> users.put(user.getLogin(), user));
+        this.usersByLogin = users;
     }
 }
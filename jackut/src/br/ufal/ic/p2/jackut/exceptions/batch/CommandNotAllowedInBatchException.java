@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.batch;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando um lote contm uma operao que no pode ser executada em lote, como o encerramento do sistema.
+ */
+public class CommandNotAllowedInBatchException extends AbstractException {
+    public CommandNotAllowedInBatchException() {
+        super("Comando no permitido em lote.");
+    }
+}
@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.batch;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando um argumento de um comando no pode ser convertido para o tipo esperado pela operao.
+ */
+public class InvalidCommandArgumentException extends AbstractException {
+    public InvalidCommandArgumentException() {
+        super("Argumento invlido.");
+    }
+}
@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.batch;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando um comando no corresponde a nenhuma operao do sistema com aquela quantidade de argumentos.
+ */
+public class UnknownCommandException extends AbstractException {
+    public UnknownCommandException() {
+        super("Comando desconhecido.");
+    }
+}
@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.community;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando um usurio que no  dono da comunidade tenta adicionar membros a ela.
+ */
+public class NotCommunityOwnerException extends AbstractException {
+    public NotCommunityOwnerException() {
+        super("Apenas o dono da comunidade pode adicionar membros.");
+    }
+}
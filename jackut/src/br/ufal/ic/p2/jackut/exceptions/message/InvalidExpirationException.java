@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.message;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando se tenta enviar uma mensagem temporria com validade menor ou igual a zero.
+ */
+public class InvalidExpirationException extends AbstractException {
+    public InvalidExpirationException() {
+        super("Validade invlida.");
+    }
+}
@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.paging;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando uma consulta paginada recebe um limite de resultados menor ou igual a zero.
+ */
+public class InvalidLimitException extends AbstractException {
+    public InvalidLimitException() {
+        super("Limite invlido.");
+    }
+}
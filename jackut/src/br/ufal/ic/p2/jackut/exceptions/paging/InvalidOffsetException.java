@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.paging;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando uma consulta paginada recebe um deslocamento negativo.
+ */
+public class InvalidOffsetException extends AbstractException {
+    public InvalidOffsetException() {
+        super("Deslocamento invlido.");
+    }
+}
@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.ratelimit;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando uma sesso ou um usurio ultrapassa a taxa permitida para uma operao.
+ */
+public class RateLimitExceededException extends AbstractException {
+    public RateLimitExceededException() {
+        super("Limite de requisies excedido.");
+    }
+}
@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.ratelimit;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando se tenta definir a taxa de uma operao que no tem limite de taxa.
+ */
+public class UnknownOperationException extends AbstractException {
+    public UnknownOperationException() {
+        super("Operao desconhecida.");
+    }
+}
@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.subscription;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando nenhuma mensagem chega a uma assinatura dentro do tempo de espera.
+ */
+public class NoNotificationException extends AbstractException {
+    public NoNotificationException() {
+        super("No h novas mensagens.");
+    }
+}
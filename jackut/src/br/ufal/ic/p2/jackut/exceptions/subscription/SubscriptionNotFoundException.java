@@ -0,0 +1,12 @@
+package br.ufal.ic.p2.jackut.exceptions.subscription;
+
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+
+/**
+ * Exceo lanada quando se tenta usar uma assinatura de mensagens que no existe.
+ */
+public class SubscriptionNotFoundException extends AbstractException {
+    public SubscriptionNotFoundException() {
+        super("Assinatura no encontrada.");
+    }
+}
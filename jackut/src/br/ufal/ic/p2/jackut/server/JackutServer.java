@@ -0,0 +1,188 @@
+package br.ufal.ic.p2.jackut.server;
+
+import br.ufal.ic.p2.jackut.Facade;
+import br.ufal.ic.p2.jackut.FacadeInvoker;
+import br.ufal.ic.p2.jackut.exceptions.AbstractException;
+import br.ufal.ic.p2.jackut.exceptions.batch.UnknownCommandException;
+import br.ufal.ic.p2.jackut.exceptions.community.CommunityNotExistException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor HTTP embutido que expe todas as operaes da {@link Facade}.
+ *
+ * Cada operao  acessada pelo caminho com o seu nome, e os argumentos so passados, na ordem
+ * dos parmetros, como pares de formulrio na consulta ou no corpo da requisio; os nomes dos
+ * pares servem apenas de documentao. Por exemplo:
+ * <pre>
+ *     GET  /criarUsuario?login=jpsauve&amp;senha=sauvejp&amp;nome=Jacques
+ *     POST /enviarRecado   (corpo: id=1&amp;destinatario=oabath&amp;mensagem=Oi)
+ * </pre>
+ * Respostas:
+ * <ul>
+ *     <li>200 com o resultado da operao em texto, vazio se ela no tiver retorno;</li>
+ *     <li>400 com a mensagem do erro de negcio, cujo tipo vai no cabealho {@code X-Jackut-Erro};</li>
+ *     <li>404 se a operao no existir com aquela quantidade de argumentos;</li>
+ *     <li>500 se a operao falhar com um erro inesperado, cujo tipo tambm vai no cabealho.</li>
+ * </ul>
+ * Cada requisio  atendida em uma thread prpria: virtuais, quando a JVM as oferece, ou de um
+ * pool que cresce sob demanda. As conexes so mantidas abertas entre requisies (keep-alive).
+ */
+public class JackutServer {
+    /**
+     * Porta padro do servidor, configurvel pela propriedade de sistema {@code jackut.servidor.porta}.
+     */
+    public static final int DEFAULT_PORT = Integer.getInteger("jackut.servidor.porta", 8080);
+
+    static {
+        // Sem TCP_NODELAY, respostas pequenas em conexes mantidas abertas esperam o ACK atrasado do cliente (~40ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final FacadeInvoker invoker;
+
+    /**
+     * Constri o servidor sobre uma fachada, sem inici-lo.
+     *
+     * @param facade a fachada cujas operaes sero expostas.
+     * @param address o endereo em que o servidor escutar; a porta 0 escolhe uma porta livre.
+     * @throws IOException se no for possvel abrir o endereo.
+     */
+    public JackutServer(Facade facade, InetSocketAddress address) throws IOException {
+        this.invoker = new FacadeInvoker(facade);
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(address, 1024);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Inicia o atendimento das requisies.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Para o servidor, aguardando at um segundo pelas requisies em andamento.
+     */
+    public void stop() {
+        this.server.stop(1);
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retorna a porta em que o servidor est escutando.
+     *
+     * @return a porta do servidor.
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String operation = exchange.getRequestURI().getPath().substring(1);
+            List<String> arguments = parseArguments(exchange.getRequestURI().getRawQuery());
+            try (InputStream body = exchange.getRequestBody()) {
+                arguments.addAll(parseArguments(new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+
+            try {
+                respond(exchange, 200, this.invoker.invoke(operation, arguments));
+            } catch (AbstractException e) {
+                exchange.getResponseHeaders().set("X-Jackut-Erro", e.getClass().getSimpleName());
+                respond(exchange, e instanceof UnknownCommandException ? 404 : 400, e.getMessage());
+            } catch (CommunityNotExistException e) {
+                // erro de negcio que, por compatibilidade, no estende AbstractException
+                exchange.getResponseHeaders().set("X-Jackut-Erro", e.getClass().getSimpleName());
+                respond(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                exchange.getResponseHeaders().set("X-Jackut-Erro", e.getClass().getSimpleName());
+                respond(exchange, 500, "Erro interno.");
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static List<String> parseArguments(String form) {
+        List<String> arguments = new ArrayList<>();
+        if (form == null || form.isEmpty()) {
+            return arguments;
+        }
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            String value = separator < 0 ? pair : pair.substring(separator + 1);
+            arguments.add(URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return arguments;
+    }
+
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // JVM sem threads virtuais: uma thread por requisio em andamento, reaproveitadas
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "jackut-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Inicia o servidor em localhost, na porta informada ou na porta padro. Ao ser encerrado,
+     * o servidor salva os dados do sistema.
+     *
+     * Uso: java br.ufal.ic.p2.jackut.server.JackutServer [porta]
+     *
+     * @param args a porta, opcional.
+     * @throws IOException se no for possvel abrir a porta.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Facade facade = new Facade();
+        JackutServer server = new JackutServer(facade, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            facade.encerrarSistema();
+        }));
+        server.start();
+        System.out.println("Jackut escutando em http://localhost:" + server.getPort() + "/");
+    }
+}